@@ -0,0 +1,83 @@
+package com.taskmanager.taskmanager.benchmark;
+
+import com.taskmanager.taskmanager.model.Category;
+import com.taskmanager.taskmanager.model.Priority;
+import com.taskmanager.taskmanager.model.Role;
+import com.taskmanager.taskmanager.model.Task;
+import com.taskmanager.taskmanager.model.TaskStatus;
+import com.taskmanager.taskmanager.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic test data shared by the benchmarks.
+ *
+ * Every generator takes a seed, so a benchmark sees the same data on every run
+ * and results stay comparable across commits.
+ */
+public final class Fixtures {
+
+    public static final LocalDate TODAY = LocalDate.of(2025, 6, 2);
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private Fixtures() {
+    }
+
+    /**
+     * Create a user without back references, so it serializes without cycles
+     *
+     * @param id The ID of the user
+     * @return The user
+     */
+    public static User user(long id) {
+        return User.builder()
+                .id(id)
+                .username("user" + id)
+                .email("user" + id + "@example.com")
+                .password("$2a$10$" + "x".repeat(53))
+                .role(Role.ROLE_USER)
+                .build();
+    }
+
+    /**
+     * Create tasks with statuses and due dates spread around {@link #TODAY}
+     *
+     * @param count The number of tasks
+     * @param owner The owner of the tasks
+     * @param seed The random seed
+     * @return The tasks
+     */
+    public static List<Task> tasks(int count, User owner, long seed) {
+        Random random = new Random(seed);
+        List<Category> categories = List.of(category(1, owner), category(2, owner), category(3, owner));
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(Task.builder()
+                    .id((long) i + 1)
+                    .title("Task " + i)
+                    .description("Description of task " + i + " with a little more text to serialize")
+                    .status(STATUSES[random.nextInt(STATUSES.length)])
+                    .priority(PRIORITIES[random.nextInt(PRIORITIES.length)])
+                    .dueDate(TODAY.plusDays(random.nextInt(60) - 30))
+                    .reminderDate(random.nextBoolean() ? TODAY.plusDays(random.nextInt(30) - 15) : null)
+                    .user(owner)
+                    .categories(new ArrayList<>(categories.subList(0, random.nextInt(categories.size() + 1))))
+                    .build());
+        }
+        return tasks;
+    }
+
+    private static Category category(long id, User owner) {
+        return Category.builder()
+                .id(id)
+                .name("Category " + id)
+                .description("Description of category " + id)
+                .user(owner)
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.taskmanager.taskmanager.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.taskmanager.benchmark.Fixtures;
+import com.taskmanager.taskmanager.model.Category;
+import com.taskmanager.taskmanager.model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JSON serialization of task entities, as the task endpoints return them, against
+ * the same tasks projected to {@link TaskDto}.
+ *
+ * The entities carry their owner and categories but no loaded collections, i.e. the
+ * best case for the entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskSerializationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int taskCount;
+
+    private ObjectMapper objectMapper;
+
+    private List<Task> tasks;
+
+    private List<TaskDto> taskDtos;
+
+    @Setup
+    public void setUp() {
+        // Configured like the application's mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        tasks = Fixtures.tasks(taskCount, Fixtures.user(1), 42);
+        taskDtos = tasks.stream()
+                .map(task -> TaskDto.builder()
+                        .title(task.getTitle())
+                        .description(task.getDescription())
+                        .status(task.getStatus())
+                        .priority(task.getPriority())
+                        .dueDate(task.getDueDate())
+                        .reminderDate(task.getReminderDate())
+                        .completed(task.isCompleted())
+                        .categoryIds(task.getCategories().stream().map(Category::getId).collect(Collectors.toList()))
+                        .recurring(task.isRecurring())
+                        .recurrencePattern(task.getRecurrencePattern())
+                        .recurrenceInterval(task.getRecurrenceInterval())
+                        .recurrenceEndDate(task.getRecurrenceEndDate())
+                        .parentTaskId(task.getParentTaskId())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serializeEntities() throws Exception {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] serializeDtos() throws Exception {
+        return objectMapper.writeValueAsBytes(taskDtos);
+    }
+}
@@ -0,0 +1,67 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.benchmark.Fixtures;
+import com.taskmanager.taskmanager.dto.CollaboratorDto;
+import com.taskmanager.taskmanager.model.CollaboratorRole;
+import com.taskmanager.taskmanager.model.Task;
+import com.taskmanager.taskmanager.model.TaskCollaborator;
+import com.taskmanager.taskmanager.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collaborator list conversion of {@link CollaboratorService#convertToDtoList(List)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollaboratorServiceBenchmark {
+
+    private static final CollaboratorRole[] ROLES = CollaboratorRole.values();
+
+    @Param({"5", "100", "1000"})
+    private int collaboratorCount;
+
+    private CollaboratorService collaboratorService;
+
+    private List<TaskCollaborator> collaborators;
+
+    @Setup
+    public void setUp() {
+        collaboratorService = new CollaboratorService();
+        User owner = Fixtures.user(1);
+        Task task = Task.builder().id(1L).title("Task").description("Task").dueDate(Fixtures.TODAY).user(owner).build();
+        collaborators = new ArrayList<>(collaboratorCount);
+        for (int i = 0; i < collaboratorCount; i++) {
+            collaborators.add(TaskCollaborator.builder()
+                    .id((long) i + 1)
+                    .task(task)
+                    .user(Fixtures.user(i + 2))
+                    .role(ROLES[i % ROLES.length])
+                    .addedAt(Fixtures.TODAY.atStartOfDay().plusMinutes(i))
+                    .addedBy(owner)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<CollaboratorDto> convertToDtoList() {
+        return collaboratorService.convertToDtoList(collaborators);
+    }
+}
@@ -0,0 +1,102 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.benchmark.Fixtures;
+import com.taskmanager.taskmanager.dto.CommentDto;
+import com.taskmanager.taskmanager.model.Comment;
+import com.taskmanager.taskmanager.model.Task;
+import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.repository.CommentRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comment tree assembly of {@link CommentService#getCommentsWithReplies(Long)}.
+ *
+ * The repository is an in-memory stub, so this measures the grouping of replies
+ * and the conversion to DTOs and not the query that loads the comments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommentServiceBenchmark {
+
+    private static final Long TASK_ID = 1L;
+
+    @Param({"10", "100"})
+    private int commentCount;
+
+    @Param({"0", "10"})
+    private int repliesPerComment;
+
+    private CommentService commentService;
+
+    @Setup
+    public void setUp() {
+        Task task = Task.builder().id(TASK_ID).title("Task").description("Task").dueDate(Fixtures.TODAY).build();
+        List<User> users = List.of(Fixtures.user(1), Fixtures.user(2), Fixtures.user(3));
+        LocalDateTime createdAt = Fixtures.TODAY.atStartOfDay();
+
+        // Every comment of the task, oldest first, as the repository returns them
+        List<Comment> comments = new ArrayList<>();
+        long id = 1;
+        for (int i = 0; i < commentCount; i++) {
+            Comment comment = comment(id++, task, users.get(i % users.size()), null, createdAt.plusMinutes(i));
+            comments.add(comment);
+            for (int j = 0; j < repliesPerComment; j++) {
+                comments.add(comment(id++, task, users.get(j % users.size()), comment, createdAt.plusMinutes(i).plusSeconds(j + 1)));
+            }
+        }
+
+        commentService = new CommentService();
+        Field repository = ReflectionUtils.findField(CommentService.class, "commentRepository");
+        ReflectionUtils.makeAccessible(repository);
+        ReflectionUtils.setField(repository, commentService, repository(comments));
+    }
+
+    @Benchmark
+    public List<CommentDto> getCommentsWithReplies() {
+        return commentService.getCommentsWithReplies(TASK_ID);
+    }
+
+    private static Comment comment(long id, Task task, User user, Comment parent, LocalDateTime createdAt) {
+        return Comment.builder()
+                .id(id)
+                .content("Comment " + id + " with some text that a user might write")
+                .createdAt(createdAt)
+                .task(task)
+                .user(user)
+                .parentComment(parent)
+                .build();
+    }
+
+    /**
+     * A repository that answers the query the tree assembly makes from memory
+     */
+    private static CommentRepository repository(List<Comment> comments) {
+        return (CommentRepository) Proxy.newProxyInstance(CommentRepository.class.getClassLoader(),
+                new Class<?>[] {CommentRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findWithUserByTaskIdOrderByCreatedAtAsc" -> comments;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,56 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.RecurrencePattern;
+import com.taskmanager.taskmanager.model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Next due date computation of {@link RecurringTaskService}, once per recurrence pattern.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecurringTaskServiceBenchmark {
+
+    @Param({"DAILY", "WEEKLY", "BIWEEKLY", "MONTHLY", "YEARLY", "CUSTOM"})
+    private RecurrencePattern pattern;
+
+    private RecurringTaskService recurringTaskService;
+
+    private Task task;
+
+    @Setup
+    public void setUp() {
+        recurringTaskService = new RecurringTaskService();
+        task = Task.builder()
+                .title("Recurring")
+                .description("Recurring task")
+                // A month end, so month arithmetic has to clamp the day
+                .dueDate(LocalDate.of(2025, 1, 31))
+                .recurring(true)
+                .recurrencePattern(pattern)
+                .recurrenceInterval(3)
+                .build();
+    }
+
+    @Benchmark
+    public LocalDate calculateNextDueDate() {
+        return recurringTaskService.calculateNextDueDate(task);
+    }
+}
@@ -0,0 +1,49 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.benchmark.Fixtures;
+import com.taskmanager.taskmanager.model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard statistics, as computed for GET /api/dashboard/stats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskStatisticsBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int taskCount;
+
+    private TaskService taskService;
+
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() {
+        taskService = new TaskService();
+        tasks = Fixtures.tasks(taskCount, Fixtures.user(1), 42);
+    }
+
+    @Benchmark
+    public Map<String, Object> getTaskStatistics() {
+        return taskService.getTaskStatistics(tasks, Fixtures.TODAY);
+    }
+}
@@ -0,0 +1,125 @@
+package com.taskmanager.taskmanager.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The seeded users, tasks and subtasks the traffic is aimed at.
+ *
+ * Tasks created during the run are added, so later calls also hit new rows.
+ */
+public class Dataset {
+
+    /**
+     * A seeded user, logged in once before the run
+     */
+    public static class Session {
+        private final String username;
+        private final List<Long> taskIds = Collections.synchronizedList(new ArrayList<>());
+        private volatile String token;
+
+        public Session(String username) {
+            this.username = username;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public void setToken(String token) {
+            this.token = token;
+        }
+
+        public void addTask(Long taskId) {
+            taskIds.add(taskId);
+        }
+
+        /**
+         * Pick one of the user's tasks
+         *
+         * @param random The random source of the calling thread
+         * @return The ID of the task
+         */
+        public Long randomTask(Random random) {
+            synchronized (taskIds) {
+                return taskIds.get(random.nextInt(taskIds.size()));
+            }
+        }
+    }
+
+    /**
+     * A seeded subtask and the state the load test last set it to
+     */
+    public static class SubtaskRef {
+        private final Session owner;
+        private final long taskId;
+        private final long id;
+        private final String title;
+        private final int position;
+        private volatile boolean completed;
+
+        public SubtaskRef(Session owner, long taskId, long id, String title, int position) {
+            this.owner = owner;
+            this.taskId = taskId;
+            this.id = id;
+            this.title = title;
+            this.position = position;
+        }
+
+        public Session getOwner() {
+            return owner;
+        }
+
+        public long getTaskId() {
+            return taskId;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * Flip the completed flag
+         *
+         * @return The new value
+         */
+        public boolean toggle() {
+            completed = !completed;
+            return completed;
+        }
+    }
+
+    private final List<Session> sessions;
+    private final List<SubtaskRef> subtasks;
+
+    public Dataset(List<Session> sessions, List<SubtaskRef> subtasks) {
+        this.sessions = sessions;
+        this.subtasks = subtasks;
+    }
+
+    public List<Session> getSessions() {
+        return sessions;
+    }
+
+    public Session randomSession(Random random) {
+        return sessions.get(random.nextInt(sessions.size()));
+    }
+
+    public SubtaskRef randomSubtask(Random random) {
+        return subtasks.isEmpty() ? null : subtasks.get(random.nextInt(subtasks.size()));
+    }
+}
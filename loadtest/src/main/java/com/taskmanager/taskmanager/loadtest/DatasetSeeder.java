@@ -0,0 +1,136 @@
+package com.taskmanager.taskmanager.loadtest;
+
+import com.taskmanager.taskmanager.model.Comment;
+import com.taskmanager.taskmanager.model.Priority;
+import com.taskmanager.taskmanager.model.Subtask;
+import com.taskmanager.taskmanager.model.Task;
+import com.taskmanager.taskmanager.model.TaskStatus;
+import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.repository.SubtaskRepository;
+import com.taskmanager.taskmanager.repository.TaskRepository;
+import com.taskmanager.taskmanager.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes the load test dataset through the application's repositories, or picks up
+ * the users of an earlier run when seeding is turned off.
+ *
+ * Users are named loadtest-user-N and share one password, so they can log in.
+ */
+@Slf4j
+public class DatasetSeeder {
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final UserRepository userRepository;
+    private final TaskRepository taskRepository;
+    private final SubtaskRepository subtaskRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+
+    public DatasetSeeder(ApplicationContext context) {
+        this.userRepository = context.getBean(UserRepository.class);
+        this.taskRepository = context.getBean(TaskRepository.class);
+        this.subtaskRepository = context.getBean(SubtaskRepository.class);
+        this.passwordEncoder = context.getBean(PasswordEncoder.class);
+        this.transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    /**
+     * Seed the dataset, or load it if settings.seed is false
+     *
+     * @param settings The load test settings
+     * @return The users, tasks and subtasks to aim traffic at
+     */
+    public Dataset seed(LoadTestSettings settings) {
+        long started = System.nanoTime();
+        Random random = new Random(settings.getRandomSeed());
+        // Hashed once: BCrypt is deliberately slow
+        String passwordHash = passwordEncoder.encode(settings.getPassword());
+
+        List<Dataset.Session> sessions = new ArrayList<>();
+        List<Dataset.SubtaskRef> subtasks = new ArrayList<>();
+        for (int i = 0; i < settings.getUsers(); i++) {
+            String username = "loadtest-user-" + i;
+            Dataset.Session session = new Dataset.Session(username);
+            List<Task> tasks = settings.isSeed()
+                    ? transactionTemplate.execute(status -> createUser(username, passwordHash, settings, random))
+                    : loadTasks(username);
+            for (Task task : tasks) {
+                session.addTask(task.getId());
+                List<Subtask> taskSubtasks = settings.isSeed() ? task.getSubtasks() : subtaskRepository.findByTaskId(task.getId());
+                for (Subtask subtask : taskSubtasks) {
+                    subtasks.add(new Dataset.SubtaskRef(session, task.getId(), subtask.getId(), subtask.getTitle(), subtask.getPosition()));
+                }
+            }
+            if (!tasks.isEmpty()) {
+                sessions.add(session);
+            }
+        }
+
+        if (sessions.isEmpty()) {
+            throw new IllegalStateException("No load test users with tasks; run with loadtest.seed=true first");
+        }
+        log.info("{} dataset of {} users and {} subtasks in {} ms", settings.isSeed() ? "Seeded" : "Loaded",
+                sessions.size(), subtasks.size(), (System.nanoTime() - started) / 1_000_000);
+        return new Dataset(sessions, subtasks);
+    }
+
+    private List<Task> createUser(String username, String passwordHash, LoadTestSettings settings, Random random) {
+        User user = userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@loadtest.invalid")
+                .password(passwordHash)
+                .build());
+
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> tasks = new ArrayList<>(settings.getTasksPerUser());
+        for (int t = 0; t < settings.getTasksPerUser(); t++) {
+            Task task = Task.builder()
+                    .title("Task " + t + " of " + username)
+                    .description("Seeded task " + t)
+                    .status(STATUSES[random.nextInt(STATUSES.length)])
+                    .priority(PRIORITIES[random.nextInt(PRIORITIES.length)])
+                    .dueDate(today.plusDays(random.nextInt(60) - 30))
+                    .user(user)
+                    .build();
+            for (int s = 0; s < settings.getSubtasksPerTask(); s++) {
+                task.getSubtasks().add(Subtask.builder()
+                        .title("Subtask " + s)
+                        .completed(false)
+                        .position(s)
+                        .createdAt(now)
+                        .task(task)
+                        .build());
+            }
+            for (int c = 0; c < settings.getCommentsPerTask(); c++) {
+                task.getComments().add(Comment.builder()
+                        .content("Seeded comment " + c)
+                        .createdAt(now.minusMinutes(settings.getCommentsPerTask() - c))
+                        .task(task)
+                        .user(user)
+                        .build());
+            }
+            tasks.add(task);
+        }
+        return taskRepository.saveAll(tasks);
+    }
+
+    private List<Task> loadTasks(String username) {
+        return userRepository.findByUsername(username)
+                .map(user -> taskRepository.findByUserId(user.getId()))
+                .orElse(List.of());
+    }
+}
@@ -0,0 +1,48 @@
+package com.taskmanager.taskmanager.loadtest;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.logging.LoggingApplicationListener;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Adds properties below command line arguments, system properties and environment
+ * variables but above application.properties.
+ *
+ * Runs after the configuration files are loaded but before logging is initialized,
+ * so logging levels set here apply from the first line.
+ */
+public class DefaultProperties implements ApplicationListener<ApplicationEnvironmentPreparedEvent>, Ordered {
+
+    private final String name;
+    private final Function<ConfigurableEnvironment, Map<String, Object>> properties;
+
+    /**
+     * Create a new DefaultProperties
+     *
+     * @param name The name of the property source
+     * @param properties Builds the properties from the environment prepared so far
+     */
+    public DefaultProperties(String name, Function<ConfigurableEnvironment, Map<String, Object>> properties) {
+        this.name = name;
+        this.properties = properties;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        ConfigurableEnvironment environment = event.getEnvironment();
+        environment.getPropertySources().addAfter(StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME,
+                new MapPropertySource(name, properties.apply(environment)));
+    }
+
+    @Override
+    public int getOrder() {
+        return LoggingApplicationListener.DEFAULT_ORDER - 1;
+    }
+}
@@ -0,0 +1,179 @@
+package com.taskmanager.taskmanager.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator.
+ *
+ * Calls are started on a fixed schedule at the target rate, whether or not earlier
+ * calls have completed, and latency is measured from the scheduled start. A slow
+ * server therefore shows up as queueing in the percentiles instead of quietly
+ * lowering the offered load (coordinated omission). Calls that would exceed the
+ * in-flight limit are counted as dropped.
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * Outcomes of one operation during a phase
+     */
+    public static class OperationStats {
+        // Microseconds, up to one hour
+        private final Histogram latencies = new ConcurrentHistogram(TimeUnit.HOURS.toMicros(1), 3);
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        void recordSuccess(long latencyNanos, int status) {
+            successes.increment();
+            record(latencyNanos, status);
+        }
+
+        void recordError(long latencyNanos, int status) {
+            errors.increment();
+            record(latencyNanos, status);
+        }
+
+        void recordDropped() {
+            dropped.increment();
+        }
+
+        private void record(long latencyNanos, int status) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), latencies.getHighestTrackableValue()));
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+
+        public Histogram getLatencies() {
+            return latencies;
+        }
+
+        public long getSuccesses() {
+            return successes.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        public Map<Integer, LongAdder> getStatuses() {
+            return statuses;
+        }
+    }
+
+    /**
+     * Outcomes of a phase
+     */
+    public static class PhaseResult {
+        private final Map<Operation, OperationStats> stats;
+        private final double elapsedSeconds;
+
+        PhaseResult(Map<Operation, OperationStats> stats, double elapsedSeconds) {
+            this.stats = stats;
+            this.elapsedSeconds = elapsedSeconds;
+        }
+
+        public Map<Operation, OperationStats> getStats() {
+            return stats;
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedSeconds;
+        }
+    }
+
+    private final HttpClient client;
+    private final Workload workload;
+    private final int maxInFlight;
+
+    public LoadGenerator(HttpClient client, Workload workload, int maxInFlight) {
+        this.client = client;
+        this.workload = workload;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Offer load at a fixed rate for a while, then wait for outstanding calls
+     *
+     * @param name The name of the phase, for logging
+     * @param rate The target rate in calls per second
+     * @param durationSeconds How long to offer load
+     * @param random The random source
+     * @return The outcomes
+     */
+    public PhaseResult run(String name, double rate, int durationSeconds, Random random) {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+
+        log.info("{}: {} calls/s for {} s", name, rate, durationSeconds);
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * intervalNanos;
+            if (scheduled >= end) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Workload.Call call = workload.next(random);
+            OperationStats operationStats = stats.get(call.getOperation());
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                operationStats.recordDropped();
+                continue;
+            }
+
+            client.sendAsync(call.getRequest(), HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+                long latency = System.nanoTime() - scheduled;
+                try {
+                    if (error == null && response.statusCode() < 400) {
+                        call.succeeded(response);
+                        operationStats.recordSuccess(latency, response.statusCode());
+                    } else {
+                        // Status 0 stands for a connection error or timeout
+                        operationStats.recordError(latency, error == null ? response.statusCode() : 0);
+                    }
+                } catch (RuntimeException e) {
+                    operationStats.recordError(latency, response.statusCode());
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        if (inFlight.get() > 0) {
+            log.warn("{}: {} calls still outstanding after the drain timeout", name, inFlight.get());
+        }
+        return new PhaseResult(stats, (System.nanoTime() - start) / 1e9);
+    }
+}
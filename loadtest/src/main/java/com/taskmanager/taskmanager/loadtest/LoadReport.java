@@ -0,0 +1,151 @@
+package com.taskmanager.taskmanager.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-operation throughput and latency of the measured phase, checked against the thresholds
+ */
+public class LoadReport {
+
+    private final LoadTestSettings settings;
+    private final LoadGenerator.PhaseResult result;
+    private final List<String> failures = new ArrayList<>();
+
+    public LoadReport(LoadTestSettings settings, LoadGenerator.PhaseResult result) {
+        this.settings = settings;
+        this.result = result;
+        evaluate();
+    }
+
+    /**
+     * Check whether every threshold was met
+     *
+     * @return true if the run passed
+     */
+    public boolean passed() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * Print the results table and the threshold outcome
+     *
+     * @param out The stream to print to
+     */
+    public void print(PrintStream out) {
+        out.printf("%n%-16s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "calls", "errors", "dropped", "calls/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Operation, LoadGenerator.OperationStats> entry : result.getStats().entrySet()) {
+            LoadGenerator.OperationStats stats = entry.getValue();
+            long calls = stats.getSuccesses() + stats.getErrors();
+            if (calls + stats.getDropped() == 0) {
+                continue;
+            }
+            Histogram latencies = stats.getLatencies();
+            out.printf("%-16s %9d %8d %8d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    entry.getKey().getKey(), calls, stats.getErrors(), stats.getDropped(), calls / result.getElapsedSeconds(),
+                    millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 99.9),
+                    latencies.getMaxValue() / 1000.0);
+        }
+        out.printf("%ntotal: %.1f calls/s (target %.1f), error rate %.4f%n", throughput(), settings.getRate(), errorRate());
+        if (passed()) {
+            out.println("PASSED");
+        } else {
+            out.println("FAILED");
+            failures.forEach(failure -> out.println("  " + failure));
+        }
+    }
+
+    /**
+     * Write the results as JSON, for comparing runs
+     *
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, LoadGenerator.OperationStats> entry : result.getStats().entrySet()) {
+            LoadGenerator.OperationStats stats = entry.getValue();
+            Histogram latencies = stats.getLatencies();
+            Map<String, Long> statuses = new TreeMap<>();
+            stats.getStatuses().forEach((status, count) -> statuses.put(String.valueOf(status), count.sum()));
+
+            Map<String, Object> operation = new LinkedHashMap<>();
+            operation.put("calls", stats.getSuccesses() + stats.getErrors());
+            operation.put("errors", stats.getErrors());
+            operation.put("dropped", stats.getDropped());
+            operation.put("throughput", (stats.getSuccesses() + stats.getErrors()) / result.getElapsedSeconds());
+            operation.put("p50Millis", millis(latencies, 50));
+            operation.put("p90Millis", millis(latencies, 90));
+            operation.put("p99Millis", millis(latencies, 99));
+            operation.put("p999Millis", millis(latencies, 99.9));
+            operation.put("maxMillis", latencies.getMaxValue() / 1000.0);
+            operation.put("statuses", statuses);
+            operations.put(entry.getKey().getKey(), operation);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("targetRate", settings.getRate());
+        report.put("durationSeconds", result.getElapsedSeconds());
+        report.put("throughput", throughput());
+        report.put("errorRate", errorRate());
+        report.put("passed", passed());
+        report.put("failures", failures);
+        report.put("operations", operations);
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+    }
+
+    private void evaluate() {
+        if (settings.getMaxErrorRate() > 0 && errorRate() > settings.getMaxErrorRate()) {
+            failures.add(String.format("error rate %.4f exceeds %.4f", errorRate(), settings.getMaxErrorRate()));
+        }
+        if (settings.getMinThroughputRatio() > 0 && throughput() < settings.getRate() * settings.getMinThroughputRatio()) {
+            failures.add(String.format("throughput %.1f calls/s is below %.0f%% of the target %.1f",
+                    throughput(), settings.getMinThroughputRatio() * 100, settings.getRate()));
+        }
+        for (Map.Entry<Operation, LoadGenerator.OperationStats> entry : result.getStats().entrySet()) {
+            long limit = settings.getMaxP99MillisByOperation().getOrDefault(entry.getKey().getKey(), settings.getMaxP99Millis());
+            Histogram latencies = entry.getValue().getLatencies();
+            if (limit > 0 && latencies.getTotalCount() > 0 && millis(latencies, 99) > limit) {
+                failures.add(String.format("%s p99 %.1f ms exceeds %d ms", entry.getKey().getKey(), millis(latencies, 99), limit));
+            }
+        }
+    }
+
+    private double throughput() {
+        long calls = 0;
+        for (LoadGenerator.OperationStats stats : result.getStats().values()) {
+            calls += stats.getSuccesses() + stats.getErrors();
+        }
+        return calls / result.getElapsedSeconds();
+    }
+
+    private double errorRate() {
+        long calls = 0;
+        long failed = 0;
+        for (LoadGenerator.OperationStats stats : result.getStats().values()) {
+            calls += stats.getSuccesses() + stats.getErrors() + stats.getDropped();
+            failed += stats.getErrors() + stats.getDropped();
+        }
+        return calls == 0 ? 0 : (double) failed / calls;
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
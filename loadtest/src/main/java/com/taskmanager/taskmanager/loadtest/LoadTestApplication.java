@@ -0,0 +1,113 @@
+package com.taskmanager.taskmanager.loadtest;
+
+import com.taskmanager.taskmanager.TaskmanagerApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Boots the application on a random port, seeds a dataset and drives a weighted
+ * mix of API calls at a target rate, then reports per-operation throughput and
+ * latency percentiles and exits with status 1 if a threshold was missed.
+ *
+ * Settings are the loadtest.* properties of {@link LoadTestSettings}, passed like
+ * any Spring Boot property, e.g. --loadtest.rate=200. By default the application
+ * runs against an in-memory H2 database in PostgreSQL mode; with
+ * --loadtest.database=external it uses the spring.datasource.* settings instead,
+ * e.g. a local Postgres.
+ */
+@Slf4j
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        Path uploadDir = Files.createTempDirectory("loadtest-uploads");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TaskmanagerApplication.class)
+                .listeners(defaults(uploadDir))
+                .run(args);
+
+        int exitCode;
+        try {
+            exitCode = run(context);
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    private static int run(ConfigurableApplicationContext context) throws IOException, InterruptedException {
+        LoadTestSettings settings = Binder.get(context.getEnvironment())
+                .bindOrCreate("loadtest", LoadTestSettings.class);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        URI baseUri = URI.create("http://localhost:" + port);
+
+        Dataset dataset = new DatasetSeeder(context).seed(settings);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Workload workload = new Workload(baseUri, dataset, settings);
+        for (Dataset.Session session : dataset.getSessions()) {
+            workload.login(client, session);
+        }
+
+        LoadGenerator generator = new LoadGenerator(client, workload, settings.getMaxInFlight());
+        Random random = new Random(settings.getRandomSeed());
+        if (settings.getWarmupSeconds() > 0) {
+            generator.run("Warm-up", settings.getRate(), settings.getWarmupSeconds(), random);
+        }
+        LoadGenerator.PhaseResult result = generator.run("Measurement", settings.getRate(), settings.getDurationSeconds(), random);
+
+        LoadReport report = new LoadReport(settings, result);
+        report.print(System.out);
+        if (!settings.getReportFile().isBlank()) {
+            Path reportFile = Paths.get(settings.getReportFile());
+            report.write(reportFile);
+            log.info("Report written to {}", reportFile.toAbsolutePath());
+        }
+        return report.passed() ? 0 : 1;
+    }
+
+    /**
+     * Settings for running the application under load
+     */
+    private static DefaultProperties defaults(Path uploadDir) {
+        return new DefaultProperties("loadtest", environment -> {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("server.port", "0");
+            properties.put("file.upload-dir", uploadDir.toString());
+            // Signed URLs are only used within this process
+            properties.put("attachment.signed-url.secret", randomSecret());
+            properties.put("logging.level.root", "WARN");
+            properties.put("logging.level.com.taskmanager.taskmanager.loadtest", "INFO");
+            if (!"external".equals(environment.getProperty("loadtest.database"))) {
+                properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+                properties.put("spring.datasource.username", "sa");
+                properties.put("spring.datasource.password", "");
+                properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+                properties.put("spring.jpa.hibernate.ddl-auto", "create");
+            }
+            return properties;
+        });
+    }
+
+    private static String randomSecret() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return Base64.getEncoder().encodeToString(secret);
+    }
+}
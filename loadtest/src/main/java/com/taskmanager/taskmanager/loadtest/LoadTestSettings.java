@@ -0,0 +1,51 @@
+package com.taskmanager.taskmanager.loadtest;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test configuration, bound from the loadtest.* properties
+ */
+@Data
+public class LoadTestSettings {
+
+    // Dataset
+    private boolean seed = true;
+    private int users = 20;
+    private int tasksPerUser = 50;
+    private int subtasksPerTask = 3;
+    private int commentsPerTask = 2;
+    private String password = "loadtest-password";
+    private long randomSeed = 42;
+
+    // Traffic
+    private double rate = 100;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    private int maxInFlight = 512;
+    private int uploadSize = 16 * 1024;
+    private Map<String, Integer> mix = defaultMix();
+
+    // Pass/fail thresholds; a threshold of 0 is not checked
+    private double maxErrorRate = 0.01;
+    private long maxP99Millis = 1000;
+    private Map<String, Long> maxP99MillisByOperation = new LinkedHashMap<>();
+    private double minThroughputRatio = 0.95;
+
+    private String reportFile = "target/loadtest-report.json";
+
+    private static Map<String, Integer> defaultMix() {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        mix.put(Operation.LOGIN.getKey(), 2);
+        mix.put(Operation.LIST.getKey(), 30);
+        mix.put(Operation.DETAIL.getKey(), 30);
+        mix.put(Operation.CREATE.getKey(), 8);
+        mix.put(Operation.UPDATE.getKey(), 10);
+        mix.put(Operation.COMMENT.getKey(), 8);
+        mix.put(Operation.SUBTASK_TOGGLE.getKey(), 8);
+        mix.put(Operation.UPLOAD.getKey(), 4);
+        return mix;
+    }
+}
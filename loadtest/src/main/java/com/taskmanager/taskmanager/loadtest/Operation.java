@@ -0,0 +1,25 @@
+package com.taskmanager.taskmanager.loadtest;
+
+/**
+ * The API calls the load test mixes, named as in the loadtest.mix.* weights
+ */
+public enum Operation {
+    LOGIN("login"),
+    LIST("list"),
+    DETAIL("detail"),
+    CREATE("create"),
+    UPDATE("update"),
+    COMMENT("comment"),
+    SUBTASK_TOGGLE("subtask-toggle"),
+    UPLOAD("upload");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
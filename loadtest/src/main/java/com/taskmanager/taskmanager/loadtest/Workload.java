@@ -0,0 +1,210 @@
+package com.taskmanager.taskmanager.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Turns the weighted operation mix into concrete API calls against the dataset
+ */
+public class Workload {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final String[] STATUSES = {"TODO", "IN_PROGRESS", "COMPLETED"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH"};
+
+    /**
+     * A request to send, with what to do with a successful response
+     */
+    public static class Call {
+        private final Operation operation;
+        private final HttpRequest request;
+        private final Consumer<HttpResponse<byte[]>> onSuccess;
+
+        Call(Operation operation, HttpRequest request, Consumer<HttpResponse<byte[]>> onSuccess) {
+            this.operation = operation;
+            this.request = request;
+            this.onSuccess = onSuccess;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public HttpRequest getRequest() {
+            return request;
+        }
+
+        public void succeeded(HttpResponse<byte[]> response) {
+            onSuccess.accept(response);
+        }
+    }
+
+    private final URI baseUri;
+    private final Dataset dataset;
+    private final LoadTestSettings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    public Workload(URI baseUri, Dataset dataset, LoadTestSettings settings) {
+        this.baseUri = baseUri;
+        this.dataset = dataset;
+        this.settings = settings;
+
+        List<Operation> weighted = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Operation operation : Operation.values()) {
+            int weight = settings.getMix().getOrDefault(operation.getKey(), 0);
+            if (weight > 0) {
+                total += weight;
+                weighted.add(operation);
+                cumulative.add(total);
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix gives every operation a weight of 0");
+        }
+        this.operations = weighted.toArray(new Operation[0]);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Log a user in and keep the token for the calls made on their behalf
+     *
+     * @param client The HTTP client
+     * @param session The user
+     * @throws IOException If the login fails
+     * @throws InterruptedException If interrupted while waiting for the response
+     */
+    public void login(HttpClient client, Dataset.Session session) throws IOException, InterruptedException {
+        Call call = login(session);
+        HttpResponse<byte[]> response = client.send(call.getRequest(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Login of " + session.getUsername() + " failed with status " + response.statusCode());
+        }
+        call.succeeded(response);
+    }
+
+    /**
+     * Pick the next call according to the mix
+     *
+     * @param random The random source of the calling thread
+     * @return The call
+     */
+    public Call next(Random random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = 0;
+        while (pick >= cumulativeWeights[index]) {
+            index++;
+        }
+
+        Dataset.Session session = dataset.randomSession(random);
+        return switch (operations[index]) {
+            case LOGIN -> login(session);
+            case LIST -> call(Operation.LIST, session, request("/api/tasks").GET(), response -> { });
+            case DETAIL -> call(Operation.DETAIL, session, request("/api/tasks/" + session.randomTask(random)).GET(), response -> { });
+            case CREATE -> call(Operation.CREATE, session, request("/api/tasks").POST(json(task(random, "Created"))),
+                    response -> session.addTask(read(response).get("id").asLong()));
+            case UPDATE -> call(Operation.UPDATE, session, request("/api/tasks/" + session.randomTask(random))
+                    .PUT(json(task(random, "Updated"))), response -> { });
+            case COMMENT -> call(Operation.COMMENT, session, request("/api/tasks/" + session.randomTask(random) + "/comments")
+                    .POST(json(Map.of("content", "Load test comment " + random.nextInt(1_000_000)))), response -> { });
+            case SUBTASK_TOGGLE -> toggleSubtask(random, session);
+            case UPLOAD -> upload(random, session);
+        };
+    }
+
+    private Call login(Dataset.Session session) {
+        HttpRequest.Builder request = request("/api/auth/login")
+                .POST(json(Map.of("username", session.getUsername(), "password", settings.getPassword())));
+        return new Call(Operation.LOGIN, request.build(), response -> session.setToken(read(response).get("token").asText()));
+    }
+
+    private Call toggleSubtask(Random random, Dataset.Session fallback) {
+        Dataset.SubtaskRef subtask = dataset.randomSubtask(random);
+        if (subtask == null) {
+            return call(Operation.SUBTASK_TOGGLE, fallback, request("/api/tasks/" + fallback.randomTask(random) + "/subtasks").GET(),
+                    response -> { });
+        }
+        Map<String, Object> body = Map.of(
+                "title", subtask.getTitle(),
+                "completed", subtask.toggle(),
+                "position", subtask.getPosition());
+        return call(Operation.SUBTASK_TOGGLE, subtask.getOwner(),
+                request("/api/tasks/" + subtask.getTaskId() + "/subtasks/" + subtask.getId()).PUT(json(body)), response -> { });
+    }
+
+    private Call upload(Random random, Dataset.Session session) {
+        byte[] content = new byte[settings.getUploadSize()];
+        random.nextBytes(content);
+        String boundary = "loadtest" + Long.toHexString(random.nextLong());
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"loadtest.bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        HttpRequest.Builder request = request("/api/tasks/" + session.randomTask(random) + "/attachments")
+                .setHeader("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+        return call(Operation.UPLOAD, session, request, response -> { });
+    }
+
+    private Map<String, Object> task(Random random, String prefix) {
+        return Map.of(
+                "title", prefix + " task " + random.nextInt(1_000_000),
+                "description", "Written by the load test",
+                "status", STATUSES[random.nextInt(STATUSES.length)],
+                "priority", PRIORITIES[random.nextInt(PRIORITIES.length)],
+                "dueDate", LocalDate.now().plusDays(random.nextInt(30)).toString());
+    }
+
+    private Call call(Operation operation, Dataset.Session session, HttpRequest.Builder request,
+                      Consumer<HttpResponse<byte[]>> onSuccess) {
+        return new Call(operation, request.header("Authorization", "Bearer " + session.getToken()).build(), onSuccess);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode read(HttpResponse<byte[]> response) {
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
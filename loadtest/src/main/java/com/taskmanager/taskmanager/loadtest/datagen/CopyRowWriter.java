@@ -0,0 +1,120 @@
+package com.taskmanager.taskmanager.loadtest.datagen;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Streams rows into a table with a single COPY ... FROM STDIN, in PostgreSQL's text format.
+ *
+ * The whole table is one transaction, and the server parses rows as they arrive, so
+ * memory stays flat however many rows are written.
+ */
+class CopyRowWriter implements RowWriter {
+
+    private static final int FLUSH_CHARS = 1 << 16;
+
+    private final String table;
+    private final Connection connection;
+    private final CopyIn copyIn;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 4096);
+    private long rowCount;
+    private boolean finished;
+
+    CopyRowWriter(DataSource dataSource, String table, String... columns) throws SQLException {
+        this.table = table;
+        connection = dataSource.getConnection();
+        try {
+            connection.setAutoCommit(false);
+            copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN");
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append('\t');
+            }
+            append(values[i]);
+        }
+        buffer.append('\n');
+        rowCount++;
+        if (buffer.length() >= FLUSH_CHARS) {
+            flush();
+        }
+    }
+
+    @Override
+    public void finish() throws SQLException {
+        flush();
+        copyIn.endCopy();
+        connection.commit();
+        finished = true;
+    }
+
+    @Override
+    public String getTable() {
+        return table;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!finished) {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                connection.rollback();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    private void append(Object value) {
+        if (value == null) {
+            buffer.append("\\N");
+        } else if (value instanceof Boolean flag) {
+            buffer.append(flag ? 't' : 'f');
+        } else if (value instanceof Number) {
+            buffer.append(value);
+        } else if (value instanceof Enum<?> constant) {
+            buffer.append(constant.name());
+        } else {
+            // Dates and timestamps are ISO-8601, which PostgreSQL accepts as is
+            String text = value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\t' -> buffer.append("\\t");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    default -> buffer.append(c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package com.taskmanager.taskmanager.loadtest.datagen;
+
+import com.taskmanager.taskmanager.TaskmanagerApplication;
+import com.taskmanager.taskmanager.loadtest.DefaultProperties;
+import com.taskmanager.taskmanager.model.CollaboratorRole;
+import com.taskmanager.taskmanager.model.Priority;
+import com.taskmanager.taskmanager.model.RecurrencePattern;
+import com.taskmanager.taskmanager.model.Role;
+import com.taskmanager.taskmanager.model.TaskStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates a large synthetic dataset straight into the application's schema.
+ *
+ * The application is started without a web server so Hibernate creates or updates
+ * the schema against spring.datasource.*, then rows are streamed table by table with
+ * COPY on PostgreSQL, or batched inserts elsewhere, with explicit ids. Nothing is
+ * held in memory per row: every user and task draws from a random stream derived
+ * from the seed and its id, so tables are generated independently, in parallel,
+ * and the same profile always produces the same rows.
+ *
+ * Attachments are metadata only; their files are not written, so downloading them
+ * returns 404. The target tables must be empty.
+ */
+@Slf4j
+public class DatasetGenerator {
+
+    // Random stream per table, so adding a column to one table does not shift the others
+    private static final long TASK_STREAM = 1;
+    private static final long CATEGORY_STREAM = 2;
+    private static final long SUBTASK_STREAM = 3;
+    private static final long COMMENT_STREAM = 4;
+    private static final long COLLABORATOR_STREAM = 5;
+    private static final long ATTACHMENT_STREAM = 6;
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+    private static final CollaboratorRole[] ROLES = CollaboratorRole.values();
+    private static final String[][] FILE_TYPES = {
+            {"pdf", "application/pdf"},
+            {"png", "image/png"},
+            {"jpg", "image/jpeg"},
+            {"txt", "text/plain"},
+            {"docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"}
+    };
+
+    private static final String[] GENERATED_ID_TABLES = {
+            "users", "categories", "tasks", "subtasks", "comments", "task_collaborators", "attachments"
+    };
+
+    private final DataSource dataSource;
+    private final GeneratorProfile profile;
+    private final String passwordHash;
+    private final LocalDate baseDate;
+    private final LocalDateTime baseTime;
+    private final Zipf activity;
+    private final RecurrencePattern[] patterns;
+    private final int[] patternWeights;
+    private final int patternWeightTotal;
+
+    // Tasks of user rank u have ids taskOffsets[u] + 1 to taskOffsets[u + 1]
+    private long[] taskOffsets;
+    private boolean copy;
+
+    public DatasetGenerator(DataSource dataSource, GeneratorProfile profile, String passwordHash) {
+        if (profile.getUsers() < 1) {
+            throw new IllegalArgumentException("datagen.users must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.profile = profile;
+        this.passwordHash = passwordHash;
+        this.baseDate = profile.getBaseDate() != null ? profile.getBaseDate() : LocalDate.now();
+        this.baseTime = baseDate.atTime(12, 0);
+        this.activity = new Zipf(profile.getUsers(), profile.getTaskSkew());
+
+        List<Map.Entry<RecurrencePattern, Integer>> mix = profile.getRecurrenceMix().entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .toList();
+        patterns = new RecurrencePattern[mix.size()];
+        patternWeights = new int[mix.size()];
+        int total = 0;
+        for (int i = 0; i < mix.size(); i++) {
+            patterns[i] = mix.get(i).getKey();
+            patternWeights[i] = mix.get(i).getValue();
+            total += patternWeights[i];
+        }
+        patternWeightTotal = total;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TaskmanagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .listeners(defaults())
+                .run(args);
+        try {
+            GeneratorProfile profile = Binder.get(context.getEnvironment())
+                    .bindOrCreate("datagen", GeneratorProfile.class);
+            // Hashed once: BCrypt is deliberately slow
+            String passwordHash = context.getBean(PasswordEncoder.class).encode(profile.getPassword());
+            new DatasetGenerator(context.getBean(DataSource.class), profile, passwordHash).generate();
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Generate the dataset
+     *
+     * @return The number of rows written per table
+     * @throws SQLException If a table is not empty or the database rejects the rows
+     * @throws InterruptedException If interrupted while waiting for the writers
+     */
+    public Map<String, Long> generate() throws SQLException, InterruptedException {
+        long started = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            copy = useCopy(connection);
+            requireEmpty(connection);
+        }
+        layoutTasks();
+        log.info("Generating {} users and {} tasks with seed {} using {}", profile.getUsers(),
+                taskOffsets[profile.getUsers()], profile.getSeed(), copy ? "COPY" : "batched inserts");
+
+        // Parents before children, so foreign keys can be checked as rows arrive
+        Map<String, Long> rows = new LinkedHashMap<>();
+        rows.putAll(runAll(List.of(this::writeUsers)));
+        rows.putAll(runAll(List.of(this::writeCategories, this::writeTasks)));
+        rows.putAll(runAll(List.of(this::writeTaskCategories, this::writeSubtasks, this::writeComments,
+                this::writeCollaborators, this::writeAttachments)));
+
+        try (Connection connection = dataSource.getConnection()) {
+            resetIdentities(connection);
+        }
+
+        long total = rows.values().stream().mapToLong(Long::longValue).sum();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Generated {} rows in {} s ({} rows/s): {}", total, String.format("%.1f", seconds),
+                Math.round(total / seconds), rows);
+        return rows;
+    }
+
+    /**
+     * Spread the tasks over users by Zipf rank, capped per user
+     */
+    private void layoutTasks() {
+        int users = profile.getUsers();
+        taskOffsets = new long[users + 1];
+        for (int rank = 0; rank < users; rank++) {
+            long count = Math.min(profile.getMaxTasksPerUser(), Math.round(profile.getTasks() * activity.probability(rank)));
+            taskOffsets[rank + 1] = taskOffsets[rank] + count;
+        }
+    }
+
+    private Map<String, Long> writeUsers() throws SQLException {
+        try (RowWriter users = open("users", "id", "username", "password", "email", "role")) {
+            for (int rank = 0; rank < profile.getUsers(); rank++) {
+                String username = "loadtest-user-" + rank;
+                users.write(userId(rank), username, passwordHash, username + "@loadtest.invalid", Role.ROLE_USER);
+            }
+            return finish(users);
+        }
+    }
+
+    private Map<String, Long> writeCategories() throws SQLException {
+        try (RowWriter categories = open("categories", "id", "name", "description", "user_id")) {
+            for (int rank = 0; rank < profile.getUsers(); rank++) {
+                for (int i = 0; i < profile.getCategoriesPerUser(); i++) {
+                    categories.write(categoryId(rank, i), "Category " + i, null, userId(rank));
+                }
+            }
+            return finish(categories);
+        }
+    }
+
+    private Map<String, Long> writeTasks() throws SQLException {
+        try (RowWriter tasks = open("tasks", "id", "title", "description", "status", "priority", "due_date",
+                "reminder_date", "completed", "recurring", "recurrence_pattern", "recurrence_interval",
+                "recurrence_end_date", "parent_task_id", "user_id")) {
+            for (int rank = 0; rank < profile.getUsers(); rank++) {
+                SplittableRandom random = random(TASK_STREAM, rank);
+                long id = taskOffsets[rank] + 1;
+                long last = taskOffsets[rank + 1];
+                while (id <= last) {
+                    if (id < last && patterns.length > 0 && random.nextDouble() < profile.getRecurringRatio()) {
+                        id = writeSeries(tasks, random, rank, id, last);
+                    } else {
+                        TaskStatus status = STATUSES[random.nextInt(STATUSES.length)];
+                        LocalDate dueDate = baseDate.plusDays(random.nextInt(120) - 60);
+                        LocalDate reminderDate = random.nextInt(4) == 0 ? dueDate.minusDays(1) : null;
+                        tasks.write(id, "Task " + id, "Generated task " + id, status,
+                                PRIORITIES[random.nextInt(PRIORITIES.length)], dueDate, reminderDate,
+                                status == TaskStatus.COMPLETED, false, null, null, null, null, userId(rank));
+                        id++;
+                    }
+                }
+            }
+            return finish(tasks);
+        }
+    }
+
+    /**
+     * Write a recurring task and the instances created from it so far
+     *
+     * @return The next free task id
+     */
+    private long writeSeries(RowWriter tasks, SplittableRandom random, int rank, long rootId, long last) throws SQLException {
+        RecurrencePattern pattern = pickPattern(random);
+        int interval = pattern == RecurrencePattern.CUSTOM ? 3 : 1;
+        long instances = Math.min(last - rootId, 1 + random.nextInt(Math.max(1, 2 * profile.getSeriesLength() - 1)));
+        LocalDate start = baseDate.minusDays(random.nextInt(365));
+        Priority priority = PRIORITIES[random.nextInt(PRIORITIES.length)];
+
+        tasks.write(rootId, "Recurring task " + rootId, "Generated " + pattern.name().toLowerCase() + " series",
+                TaskStatus.TODO, priority, start, null, false, true, pattern, interval, null, null, userId(rank));
+        long id = rootId + 1;
+        for (int k = 1; k <= instances; k++) {
+            LocalDate dueDate = step(start, pattern, interval * k);
+            boolean done = dueDate.isBefore(baseDate);
+            tasks.write(id++, "Recurring task " + rootId, "Generated " + pattern.name().toLowerCase() + " series",
+                    done ? TaskStatus.COMPLETED : TaskStatus.TODO, priority, dueDate, null, done, false,
+                    null, null, null, rootId, userId(rank));
+        }
+        return id;
+    }
+
+    private Map<String, Long> writeTaskCategories() throws SQLException {
+        int perUser = profile.getCategoriesPerUser();
+        try (RowWriter taskCategories = open("task_categories", "task_id", "category_id")) {
+            if (perUser > 0) {
+                for (int rank = 0; rank < profile.getUsers(); rank++) {
+                    for (long taskId = taskOffsets[rank] + 1; taskId <= taskOffsets[rank + 1]; taskId++) {
+                        SplittableRandom random = random(CATEGORY_STREAM, taskId);
+                        int count = Math.min(perUser, random.nextInt(profile.getMaxCategoriesPerTask() + 1));
+                        int first = random.nextInt(perUser);
+                        for (int i = 0; i < count; i++) {
+                            taskCategories.write(taskId, categoryId(rank, (first + i) % perUser));
+                        }
+                    }
+                }
+            }
+            return finish(taskCategories);
+        }
+    }
+
+    private Map<String, Long> writeSubtasks() throws SQLException {
+        long id = 1;
+        try (RowWriter subtasks = open("subtasks", "id", "title", "description", "completed", "position",
+                "created_at", "completed_at", "task_id")) {
+            for (long taskId = 1; taskId <= taskCount(); taskId++) {
+                SplittableRandom random = random(SUBTASK_STREAM, taskId);
+                int count = random.nextInt(2 * profile.getSubtasksPerTask() + 1);
+                LocalDateTime createdAt = baseTime.minusDays(random.nextInt(90));
+                for (int position = 0; position < count; position++) {
+                    boolean completed = random.nextBoolean();
+                    subtasks.write(id++, "Subtask " + position, null, completed, position, createdAt,
+                            completed ? createdAt.plusHours(1 + random.nextInt(72)) : null, taskId);
+                }
+            }
+            return finish(subtasks);
+        }
+    }
+
+    private Map<String, Long> writeComments() throws SQLException {
+        // Geometric, so the mean is commentsPerTask and a few tasks get long threads
+        double continueProbability = profile.getCommentsPerTask() / (1 + profile.getCommentsPerTask());
+        long id = 1;
+        try (RowWriter comments = open("comments", "id", "content", "created_at", "updated_at", "task_id",
+                "user_id", "parent_id")) {
+            for (int rank = 0; rank < profile.getUsers(); rank++) {
+                for (long taskId = taskOffsets[rank] + 1; taskId <= taskOffsets[rank + 1]; taskId++) {
+                    SplittableRandom random = random(COMMENT_STREAM, taskId);
+                    int count = 0;
+                    while (count < profile.getMaxCommentsPerTask() && random.nextDouble() < continueProbability) {
+                        count++;
+                    }
+                    LocalDateTime createdAt = baseTime.minusMinutes(37L * count);
+                    Long previous = null;
+                    for (int i = 0; i < count; i++) {
+                        int author = random.nextBoolean() ? rank : activity.sample(random);
+                        Long parent = previous != null && random.nextDouble() < profile.getReplyRatio() ? previous : null;
+                        comments.write(id, "Comment " + i + " on task " + taskId, createdAt, null, taskId,
+                                userId(author), parent);
+                        previous = id++;
+                        createdAt = createdAt.plusMinutes(37);
+                    }
+                }
+            }
+            return finish(comments);
+        }
+    }
+
+    private Map<String, Long> writeCollaborators() throws SQLException {
+        int maxCollaborators = profile.getUsers() - 1;
+        long id = 1;
+        try (RowWriter collaborators = open("task_collaborators", "id", "task_id", "user_id", "role", "added_at",
+                "added_by_id")) {
+            for (int rank = 0; rank < profile.getUsers(); rank++) {
+                for (long taskId = taskOffsets[rank] + 1; taskId <= taskOffsets[rank + 1]; taskId++) {
+                    SplittableRandom random = random(COLLABORATOR_STREAM, taskId);
+                    double draw = random.nextDouble();
+                    int count;
+                    if (draw < profile.getHotTaskRatio()) {
+                        count = profile.getHotTaskCollaborators();
+                    } else if (draw < profile.getHotTaskRatio() + profile.getSharedRatio()) {
+                        count = 1 + random.nextInt(Math.max(1, 2 * profile.getCollaboratorsPerSharedTask() - 1));
+                    } else {
+                        continue;
+                    }
+
+                    Set<Integer> added = new HashSet<>();
+                    added.add(rank);
+                    LocalDateTime addedAt = baseTime.minusDays(random.nextInt(90));
+                    for (int i = 0; i < Math.min(count, maxCollaborators); i++) {
+                        int collaborator = activity.sample(random);
+                        // Probe for the next user not on the task yet, which always ends while some are left
+                        while (!added.add(collaborator)) {
+                            collaborator = (collaborator + 1) % profile.getUsers();
+                        }
+                        collaborators.write(id++, taskId, userId(collaborator), ROLES[random.nextInt(ROLES.length)],
+                                addedAt, userId(rank));
+                    }
+                }
+            }
+            return finish(collaborators);
+        }
+    }
+
+    private Map<String, Long> writeAttachments() throws SQLException {
+        long[] usedBytes = new long[profile.getUsers()];
+        long[] attachmentCounts = new long[profile.getUsers()];
+        long id = 1;
+        try (RowWriter attachments = open("attachments", "id", "file_name", "file_type", "file_path", "file_size",
+                "storage_codec", "stored_size", "content_hash", "thumbnail_type", "upload_date", "task_id", "user_id");
+             RowWriter storedFiles = open("stored_files", "content_hash", "storage_path", "size", "codec",
+                     "reference_count", "created_at")) {
+            for (int rank = 0; rank < profile.getUsers(); rank++) {
+                for (long taskId = taskOffsets[rank] + 1; taskId <= taskOffsets[rank + 1]; taskId++) {
+                    SplittableRandom random = random(ATTACHMENT_STREAM, taskId);
+                    if (random.nextDouble() >= profile.getAttachmentRatio()) {
+                        continue;
+                    }
+                    int count = 1 + random.nextInt(Math.max(1, 2 * profile.getAttachmentsPerTask() - 1));
+                    LocalDateTime uploadDate = baseTime.minusDays(random.nextInt(90));
+                    for (int i = 0; i < count; i++) {
+                        long size = Math.round(profile.getAttachmentMedianBytes() * Math.exp(profile.getAttachmentSizeSigma() * random.nextGaussian()));
+                        size = Math.max(1, Math.min(profile.getAttachmentMaxBytes(), size));
+                        String[] fileType = FILE_TYPES[random.nextInt(FILE_TYPES.length)];
+                        String contentHash = String.format("%016x%016x%016x%016x",
+                                random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong());
+                        String storagePath = contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + contentHash;
+
+                        attachments.write(id, "file-" + id + "." + fileType[0], fileType[1], storagePath, size,
+                                null, size, contentHash, null, uploadDate, taskId, userId(rank));
+                        storedFiles.write(contentHash, storagePath, size, null, 1, uploadDate);
+                        usedBytes[rank] += size;
+                        attachmentCounts[rank]++;
+                        id++;
+                    }
+                }
+            }
+
+            Map<String, Long> rows = new LinkedHashMap<>();
+            rows.putAll(finish(attachments));
+            rows.putAll(finish(storedFiles));
+            rows.putAll(writeStorageUsage(usedBytes, attachmentCounts));
+            return rows;
+        }
+    }
+
+    private Map<String, Long> writeStorageUsage(long[] usedBytes, long[] attachmentCounts) throws SQLException {
+        try (RowWriter usage = open("storage_usage", "user_id", "used_bytes", "attachment_count", "updated_at")) {
+            for (int rank = 0; rank < profile.getUsers(); rank++) {
+                if (attachmentCounts[rank] > 0) {
+                    usage.write(userId(rank), usedBytes[rank], attachmentCounts[rank], baseTime);
+                }
+            }
+            return finish(usage);
+        }
+    }
+
+    private Map<String, Long> runAll(List<Callable<Map<String, Long>>> writers) throws SQLException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(profile.getThreads(), writers.size())));
+        try {
+            List<Future<Map<String, Long>>> futures = new ArrayList<>();
+            for (Callable<Map<String, Long>> writer : writers) {
+                futures.add(executor.submit(writer));
+            }
+            Map<String, Long> rows = new LinkedHashMap<>();
+            for (Future<Map<String, Long>> future : futures) {
+                try {
+                    rows.putAll(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof SQLException sqlException) {
+                        throw sqlException;
+                    }
+                    throw new IllegalStateException("Failed to generate data", e.getCause());
+                }
+            }
+            return rows;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private RowWriter open(String table, String... columns) throws SQLException {
+        return RowWriter.open(dataSource, copy, profile.getBatchSize(), table, columns);
+    }
+
+    private static Map<String, Long> finish(RowWriter writer) throws SQLException {
+        writer.finish();
+        log.info("Wrote {} rows to {}", writer.getRowCount(), writer.getTable());
+        return Map.of(writer.getTable(), writer.getRowCount());
+    }
+
+    private boolean useCopy(Connection connection) throws SQLException {
+        boolean postgres = connection.isWrapperFor(PGConnection.class);
+        return switch (profile.getMethod()) {
+            case "copy" -> {
+                if (!postgres) {
+                    throw new IllegalStateException("datagen.method=copy needs PostgreSQL");
+                }
+                yield true;
+            }
+            case "batch" -> false;
+            case "auto" -> postgres;
+            default -> throw new IllegalArgumentException("Unknown datagen.method " + profile.getMethod() + "; use auto, copy or batch");
+        };
+    }
+
+    private static void requireEmpty(Connection connection) throws SQLException {
+        for (String table : List.of("users", "tasks")) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                result.next();
+                if (result.getLong(1) > 0) {
+                    throw new IllegalStateException("Table " + table + " is not empty; generate into an empty database");
+                }
+            }
+        }
+    }
+
+    /**
+     * Move identity columns past the explicit ids, so the application can insert again
+     */
+    private static void resetIdentities(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        try (Statement statement = connection.createStatement()) {
+            for (String table : GENERATED_ID_TABLES) {
+                if ("PostgreSQL".equals(product)) {
+                    statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), "
+                            + "COALESCE(MAX(id), 0) + 1, false) FROM " + table);
+                } else if ("H2".equals(product)) {
+                    long next;
+                    try (ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+                        result.next();
+                        next = result.getLong(1);
+                    }
+                    statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+                } else {
+                    log.warn("Cannot reset identity columns on {}; restart the id sequence of {} past MAX(id) before inserting", product, table);
+                }
+            }
+        }
+    }
+
+    private SplittableRandom random(long stream, long id) {
+        return new SplittableRandom(profile.getSeed() * 0x9E3779B97F4A7C15L + stream * 0xBF58476D1CE4E5B9L + id);
+    }
+
+    private RecurrencePattern pickPattern(SplittableRandom random) {
+        int draw = random.nextInt(patternWeightTotal);
+        for (int i = 0; i < patterns.length; i++) {
+            draw -= patternWeights[i];
+            if (draw < 0) {
+                return patterns[i];
+            }
+        }
+        return patterns[patterns.length - 1];
+    }
+
+    /**
+     * The due date of a series instance, as {@code RecurringTaskService} would calculate it
+     */
+    private static LocalDate step(LocalDate start, RecurrencePattern pattern, int intervals) {
+        return switch (pattern) {
+            case DAILY, CUSTOM -> start.plusDays(intervals);
+            case WEEKLY -> start.plusWeeks(intervals);
+            case BIWEEKLY -> start.plusWeeks(2L * intervals);
+            case MONTHLY -> start.plusMonths(intervals);
+            case YEARLY -> start.plusYears(intervals);
+        };
+    }
+
+    private long taskCount() {
+        return taskOffsets[profile.getUsers()];
+    }
+
+    private static long userId(int rank) {
+        return rank + 1L;
+    }
+
+    private long categoryId(int rank, int index) {
+        return (long) rank * profile.getCategoriesPerUser() + index + 1;
+    }
+
+    /**
+     * Settings for generating data
+     */
+    private static DefaultProperties defaults() {
+        return new DefaultProperties("datagen", environment -> {
+            Map<String, Object> properties = new HashMap<>();
+            // Bulk writes gain nothing from per-statement statistics
+            properties.put("query.stats.enabled", "false");
+            // Signed URLs are only used within this process
+            properties.put("attachment.signed-url.secret", randomSecret());
+            properties.put("logging.level.root", "WARN");
+            properties.put("logging.level.com.taskmanager.taskmanager.loadtest", "INFO");
+            return properties;
+        });
+    }
+
+    private static String randomSecret() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return Base64.getEncoder().encodeToString(secret);
+    }
+}
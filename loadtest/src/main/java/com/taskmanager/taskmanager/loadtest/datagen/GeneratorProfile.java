@@ -0,0 +1,76 @@
+package com.taskmanager.taskmanager.loadtest.datagen;
+
+import com.taskmanager.taskmanager.model.RecurrencePattern;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shape of a generated dataset, bound from the datagen.* properties.
+ *
+ * Counts marked as means are drawn per task; skews are Zipf exponents, where 0 is
+ * uniform and larger values concentrate more of the data on the first users.
+ */
+@Data
+public class GeneratorProfile {
+
+    // Identical seeds, profiles and base dates generate identical rows
+    private long seed = 42;
+    private LocalDate baseDate;
+
+    // Users are named loadtest-user-N, like the ones the load test seeds
+    private int users = 10_000;
+    private String password = "loadtest-password";
+
+    // Tasks are spread over users by Zipf rank: user 0 owns the most
+    private long tasks = 500_000;
+    private double taskSkew = 1.0;
+    private int maxTasksPerUser = 50_000;
+
+    private int categoriesPerUser = 5;
+    private int maxCategoriesPerTask = 2;
+
+    // Mean, drawn uniformly from 0 to twice the mean
+    private int subtasksPerTask = 3;
+
+    // Mean of a geometric distribution, so a few tasks have long threads
+    private double commentsPerTask = 2;
+    private int maxCommentsPerTask = 2_000;
+    // Chance that a comment replies to the one before it, which makes threads deep
+    private double replyRatio = 0.3;
+
+    // Share of task slots that start a recurring series, and the mean number of instances in a series
+    private double recurringRatio = 0.05;
+    private int seriesLength = 12;
+    private Map<RecurrencePattern, Integer> recurrenceMix = defaultRecurrenceMix();
+
+    // Collaborators are drawn with the same skew as task owners, so busy users share more
+    private double sharedRatio = 0.1;
+    private int collaboratorsPerSharedTask = 3;
+    private double hotTaskRatio = 0.0001;
+    private int hotTaskCollaborators = 200;
+
+    // Attachment metadata only; sizes are log-normal around the median
+    private double attachmentRatio = 0.1;
+    private int attachmentsPerTask = 2;
+    private long attachmentMedianBytes = 200 * 1024;
+    private double attachmentSizeSigma = 1.5;
+    private long attachmentMaxBytes = 10 * 1024 * 1024;
+
+    // Writing: copy (PostgreSQL only), batch, or auto to use copy when available
+    private String method = "auto";
+    private int batchSize = 1_000;
+    private int threads = 4;
+
+    private static Map<RecurrencePattern, Integer> defaultRecurrenceMix() {
+        Map<RecurrencePattern, Integer> mix = new LinkedHashMap<>();
+        mix.put(RecurrencePattern.DAILY, 20);
+        mix.put(RecurrencePattern.WEEKLY, 50);
+        mix.put(RecurrencePattern.BIWEEKLY, 10);
+        mix.put(RecurrencePattern.MONTHLY, 15);
+        mix.put(RecurrencePattern.YEARLY, 5);
+        return mix;
+    }
+}
@@ -0,0 +1,58 @@
+package com.taskmanager.taskmanager.loadtest.datagen;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Bulk writer for the rows of one table, on a connection of its own.
+ *
+ * Rows are only guaranteed to be stored once {@link #finish()} returns; closing an
+ * unfinished writer rolls back what it can.
+ */
+public interface RowWriter extends AutoCloseable {
+
+    /**
+     * Open a writer
+     *
+     * @param dataSource The database
+     * @param copy true to use the PostgreSQL COPY protocol, false for batched inserts
+     * @param batchSize Rows per insert batch and commit, when not using COPY
+     * @param table The table name
+     * @param columns The columns written, in the order values are passed to {@link #write}
+     * @return The writer
+     * @throws SQLException If the connection or statement cannot be opened
+     */
+    static RowWriter open(DataSource dataSource, boolean copy, int batchSize, String table, String... columns) throws SQLException {
+        return copy
+                ? new CopyRowWriter(dataSource, table, columns)
+                : new BatchRowWriter(dataSource, batchSize, table, columns);
+    }
+
+    /**
+     * Write a row
+     *
+     * @param values One value per column: null, a String, Number, Boolean, enum, LocalDate or LocalDateTime
+     * @throws SQLException If the database rejects the rows written so far
+     */
+    void write(Object... values) throws SQLException;
+
+    /**
+     * Flush and commit the remaining rows
+     *
+     * @throws SQLException If the database rejects the rows
+     */
+    void finish() throws SQLException;
+
+    /**
+     * @return The table written to
+     */
+    String getTable();
+
+    /**
+     * @return The number of rows written
+     */
+    long getRowCount();
+
+    @Override
+    void close() throws SQLException;
+}
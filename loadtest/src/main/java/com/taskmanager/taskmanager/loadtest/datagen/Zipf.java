@@ -0,0 +1,50 @@
+package com.taskmanager.taskmanager.loadtest.datagen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Zipf distribution over ranks 0 to n-1, where rank r has weight 1/(r+1)^s
+ */
+public class Zipf {
+
+    private final double[] cumulative;
+
+    public Zipf(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += weight(rank, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    /**
+     * Get the share of the total that falls on a rank
+     *
+     * @param rank The rank
+     * @return The probability of the rank
+     */
+    public double probability(int rank) {
+        return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+    }
+
+    /**
+     * Draw a rank
+     *
+     * @param random The source of randomness
+     * @return A rank, low ranks being the most likely
+     */
+    public int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    private static double weight(int rank, double exponent) {
+        return exponent == 0 ? 1 : Math.pow(rank + 1, -exponent);
+    }
+}
@@ -0,0 +1,63 @@
+package com.taskmanager.taskmanager.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+
+/**
+ * Bounded worker pools for background file processing.
+ *
+ * Queues are bounded so a burst of uploads cannot exhaust memory; work rejected
+ * by a full pool is picked up again on demand. Pool and queue sizes are published as
+ * executor.* gauges under the bean name, and rejections as taskmanager.executor.rejected.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor thumbnailExecutor(@Value("${thumbnail.worker-threads:2}") int workerThreads,
+                                                    @Value("${thumbnail.queue-capacity:100}") int queueCapacity,
+                                                    MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("thumbnail-");
+        executor.setRejectedExecutionHandler(countingRejections(meterRegistry, "thumbnailExecutor"));
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor fileOperationExecutor(@Value("${attachment.outbox.worker-threads:2}") int workerThreads,
+                                                        @Value("${attachment.outbox.queue-capacity:1000}") int queueCapacity,
+                                                        MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("file-op-");
+        executor.setRejectedExecutionHandler(countingRejections(meterRegistry, "fileOperationExecutor"));
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Reject like the default policy, counting each rejection
+     */
+    private static RejectedExecutionHandler countingRejections(MeterRegistry meterRegistry, String name) {
+        Counter rejections = Counter.builder("taskmanager.executor.rejected").tag("name", name).register(meterRegistry);
+        return (task, executor) -> {
+            rejections.increment();
+            throw new RejectedExecutionException("The " + name + " queue is full");
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.taskmanager.taskmanager.config;
+
+import com.taskmanager.taskmanager.monitoring.QueryStatistics;
+import com.taskmanager.taskmanager.monitoring.QueryStatisticsListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the DataSource in a JDBC proxy that records per-statement statistics.
+ *
+ * The proxy sees every statement, from Hibernate and JdbcTemplate alike, and
+ * replaces show-sql as the way to find out what the database is doing.
+ */
+@Configuration
+@ConditionalOnProperty(name = "query.stats.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatisticsConfig {
+
+    @Bean
+    public static BeanPostProcessor queryStatisticsDataSourcePostProcessor(ObjectProvider<QueryStatistics> statistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    QueryStatisticsListener listener = new QueryStatisticsListener(statistics.getObject());
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(listener)
+                            .proxyResultSet(listener)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package com.taskmanager.taskmanager.config;
+
+import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.service.StorageQuotaService;
+import com.taskmanager.taskmanager.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Refuses multipart uploads that cannot fit in the user's storage quota.
+ *
+ * Multipart requests are resolved lazily, so this runs before the body is read
+ * and spooled to disk. The declared request length also counts the multipart
+ * boundaries, part headers and other form fields, so an allowance for those is
+ * subtracted first: a file that might still fit is let through and checked
+ * exactly once it is received, as are requests without a declared length.
+ */
+@Component
+public class StorageQuotaInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private UserService userService;
+
+    // At least what a multipart request adds to the file it carries
+    @Value("${attachment.quota.multipart-overhead-bytes:65536}")
+    private long multipartOverheadBytes;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        long contentLength = request.getContentLengthLong();
+        if (!"POST".equals(request.getMethod()) || contentLength < 0 || request.getContentType() == null
+                || !request.getContentType().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)) {
+            return true;
+        }
+        long minFileSize = contentLength - multipartOverheadBytes;
+        if (minFileSize <= 0) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return true;
+        }
+        Optional<User> userOptional = userService.findUserByUsername(authentication.getName());
+        if (userOptional.isEmpty()) {
+            return true;
+        }
+
+        try {
+            storageQuotaService.checkQuota(userOptional.get().getId(), minFileSize);
+            return true;
+        } catch (StorageQuotaService.QuotaExceededException e) {
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            // Lets the client stop sending instead of the server draining the body
+            response.setHeader("Connection", "close");
+            response.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+            return false;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.taskmanager.taskmanager.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC interceptors.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private static final String[] ATTACHMENT_PATHS = {"/api/tasks/*/attachments", "/api/tasks/*/attachments/**", "/api/files/**"};
+
+    @Autowired
+    private StorageQuotaInterceptor storageQuotaInterceptor;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Replaces spring.jpa.open-in-view: attachment requests stream file content and
+        // must not hold a database connection for the whole request
+        OpenEntityManagerInViewInterceptor openEntityManagerInView = new OpenEntityManagerInViewInterceptor();
+        openEntityManagerInView.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(openEntityManagerInView).excludePathPatterns(ATTACHMENT_PATHS);
+
+        registry.addInterceptor(storageQuotaInterceptor).addPathPatterns("/api/tasks/*/attachments");
+    }
+}
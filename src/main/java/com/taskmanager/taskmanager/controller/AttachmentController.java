@@ -1,19 +1,27 @@
 package com.taskmanager.taskmanager.controller;
 
 import com.taskmanager.taskmanager.dto.AttachmentDto;
+import com.taskmanager.taskmanager.dto.SignedUrlDto;
+import com.taskmanager.taskmanager.dto.UploadSessionDto;
+import com.taskmanager.taskmanager.dto.UploadSessionRequest;
 import com.taskmanager.taskmanager.model.Attachment;
 import com.taskmanager.taskmanager.model.Task;
 import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.service.AttachmentArchiveService;
 import com.taskmanager.taskmanager.service.AttachmentService;
-import com.taskmanager.taskmanager.service.FileStorageService;
+import com.taskmanager.taskmanager.service.FileDownloadService;
+import com.taskmanager.taskmanager.service.SignedUrlService;
+import com.taskmanager.taskmanager.service.StorageQuotaService;
 import com.taskmanager.taskmanager.service.TaskService;
+import com.taskmanager.taskmanager.service.ThumbnailService;
+import com.taskmanager.taskmanager.service.UploadSessionService;
 import com.taskmanager.taskmanager.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,8 +29,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -42,7 +49,22 @@ public class AttachmentController {
     private UserService userService;
 
     @Autowired
-    private FileStorageService fileStorageService;
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private AttachmentArchiveService attachmentArchiveService;
+
+    @Autowired
+    private SignedUrlService signedUrlService;
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "private, max-age=31536000, immutable";
+    private static final String REVALIDATE_CACHE_CONTROL = "private, no-cache";
 
     @PostMapping
     public ResponseEntity<?> uploadAttachment(@PathVariable Long taskId,
@@ -74,10 +96,13 @@ public class AttachmentController {
                     .fileType(attachment.getFileType())
                     .fileSize(attachment.getFileSize())
                     .uploadDate(attachment.getUploadDate())
+                    .thumbnailAvailable(attachment.getThumbnailType() != null)
                     .taskId(task.getId())
                     .build();
             
             return ResponseEntity.status(HttpStatus.CREATED).body(attachmentDto);
+        } catch (StorageQuotaService.QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to upload file: " + e.getMessage()));
@@ -113,6 +138,7 @@ public class AttachmentController {
                         .fileType(attachment.getFileType())
                         .fileSize(attachment.getFileSize())
                         .uploadDate(attachment.getUploadDate())
+                        .thumbnailAvailable(attachment.getThumbnailType() != null)
                         .taskId(task.getId())
                         .build())
                 .collect(Collectors.toList());
@@ -120,9 +146,9 @@ public class AttachmentController {
         return ResponseEntity.ok(attachmentDtos);
     }
 
-    @GetMapping("/{attachmentId}")
-    public ResponseEntity<?> downloadAttachment(@PathVariable Long taskId,
-                                              @PathVariable Long attachmentId) {
+    @GetMapping("/archive")
+    public ResponseEntity<?> downloadArchive(@PathVariable Long taskId,
+                                             HttpServletResponse response) throws IOException {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
         
@@ -141,7 +167,184 @@ public class AttachmentController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You don't have permission to access this task"));
         }
         
-        Optional<Attachment> attachmentOptional = attachmentService.getAttachmentById(attachmentId);
+        List<Attachment> attachments = attachmentService.getAttachmentsByTaskId(taskId);
+        
+        // Streamed as it is assembled, so the length is not known up front
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("task-" + taskId + "-attachments.zip", StandardCharsets.UTF_8)
+                .build()
+                .toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE_CACHE_CONTROL);
+        attachmentArchiveService.writeArchive(attachments, response.getOutputStream());
+        
+        // The response has been written
+        return null;
+    }
+
+    @PostMapping("/uploads")
+    public ResponseEntity<?> createUploadSession(@PathVariable Long taskId,
+                                                 @RequestBody UploadSessionRequest uploadRequest) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        
+        Optional<User> userOptional = userService.findUserByUsername(username);
+        if (userOptional.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        Optional<Task> taskOptional = taskService.getTaskById(taskId);
+        if (taskOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Task task = taskOptional.get();
+        if (!task.getUser().getId().equals(userOptional.get().getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You don't have permission to access this task"));
+        }
+        
+        if (uploadRequest.getSize() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "File size is required"));
+        }
+        
+        try {
+            UploadSessionService.UploadSession session = uploadSessionService.createSession(task, userOptional.get(),
+                    uploadRequest.getFileName(), uploadRequest.getFileType(), uploadRequest.getSize());
+            return ResponseEntity.status(HttpStatus.CREATED).body(mapToUploadSessionDto(session));
+        } catch (StorageQuotaService.QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to start upload: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getUploadSession(@PathVariable Long taskId,
+                                              @PathVariable String uploadId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        
+        Optional<UploadSessionService.UploadSession> sessionOptional = uploadSessionService.getSession(uploadId, authentication.getName());
+        if (sessionOptional.isEmpty() || !sessionOptional.get().getTaskId().equals(taskId)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok(mapToUploadSessionDto(sessionOptional.get()));
+    }
+
+    /**
+     * Append a chunk to a resumable upload. The chunk is the raw request body.
+     */
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> uploadChunk(@PathVariable Long taskId,
+                                         @PathVariable String uploadId,
+                                         @RequestParam long offset,
+                                         HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        
+        // Chunks are checked against the session alone, with no database access
+        Optional<UploadSessionService.UploadSession> sessionOptional = uploadSessionService.getSession(uploadId, authentication.getName());
+        if (sessionOptional.isEmpty() || !sessionOptional.get().getTaskId().equals(taskId)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        UploadSessionService.UploadSession session = sessionOptional.get();
+        try {
+            uploadSessionService.appendChunk(session, offset, request.getInputStream());
+            return ResponseEntity.ok(mapToUploadSessionDto(session));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "offset", session.getOffset()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage(), "offset", session.getOffset()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to store chunk: " + e.getMessage(), "offset", session.getOffset()));
+        }
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable Long taskId,
+                                            @PathVariable String uploadId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        
+        Optional<User> userOptional = userService.findUserByUsername(username);
+        if (userOptional.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        Optional<UploadSessionService.UploadSession> sessionOptional = uploadSessionService.getSession(uploadId, username);
+        if (sessionOptional.isEmpty() || !sessionOptional.get().getTaskId().equals(taskId)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Optional<Task> taskOptional = taskService.getTaskById(taskId);
+        if (taskOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Task task = taskOptional.get();
+        if (!task.getUser().getId().equals(userOptional.get().getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You don't have permission to access this task"));
+        }
+        
+        try {
+            Attachment attachment = uploadSessionService.completeUpload(sessionOptional.get(), task, userOptional.get());
+            
+            AttachmentDto attachmentDto = AttachmentDto.builder()
+                    .id(attachment.getId())
+                    .fileName(attachment.getFileName())
+                    .fileType(attachment.getFileType())
+                    .fileSize(attachment.getFileSize())
+                    .uploadDate(attachment.getUploadDate())
+                    .thumbnailAvailable(attachment.getThumbnailType() != null)
+                    .taskId(task.getId())
+                    .build();
+            
+            return ResponseEntity.status(HttpStatus.CREATED).body(attachmentDto);
+        } catch (StorageQuotaService.QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to upload file: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> abortUpload(@PathVariable Long taskId,
+                                         @PathVariable String uploadId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        
+        Optional<UploadSessionService.UploadSession> sessionOptional = uploadSessionService.getSession(uploadId, authentication.getName());
+        if (sessionOptional.isEmpty() || !sessionOptional.get().getTaskId().equals(taskId)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        try {
+            uploadSessionService.abortSession(sessionOptional.get());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/{attachmentId}")
+    public ResponseEntity<?> downloadAttachment(@PathVariable Long taskId,
+                                              @PathVariable Long attachmentId,
+                                              HttpServletRequest request,
+                                              HttpServletResponse response) throws IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        
+        // One query loads the attachment with its task and owner; the JWT filter has already resolved the user
+        Optional<Attachment> attachmentOptional = attachmentService.getAttachmentWithTaskOwner(attachmentId);
         if (attachmentOptional.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
@@ -151,22 +354,119 @@ public class AttachmentController {
             return ResponseEntity.badRequest().body(Map.of("error", "Attachment does not belong to the specified task"));
         }
         
-        try {
-            Path filePath = fileStorageService.getFilePath(attachment.getFilePath());
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(attachment.getFileType()))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + attachment.getFileName() + "\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "File not found"));
-            }
-        } catch (MalformedURLException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to download file: " + e.getMessage()));
+        if (!attachment.getTask().getUser().getUsername().equals(username)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You don't have permission to access this task"));
+        }
+        
+        if (!fileDownloadService.serve(fileDownload(attachment), request, response)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "File not found"));
         }
+        
+        // The response has been written
+        return null;
+    }
+
+    @GetMapping("/{attachmentId}/thumbnail")
+    public ResponseEntity<?> getThumbnail(@PathVariable Long taskId,
+                                          @PathVariable Long attachmentId,
+                                          @RequestParam(defaultValue = "256") int size,
+                                          HttpServletRequest request,
+                                          HttpServletResponse response) throws IOException {
+        if (!ThumbnailService.SIZES.contains(size)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Thumbnail size must be one of " + ThumbnailService.SIZES));
+        }
+        
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        
+        Optional<Attachment> attachmentOptional = attachmentService.getAttachmentWithTaskOwner(attachmentId);
+        if (attachmentOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Attachment attachment = attachmentOptional.get();
+        if (!attachment.getTask().getId().equals(taskId)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Attachment does not belong to the specified task"));
+        }
+        
+        if (!attachment.getTask().getUser().getUsername().equals(username)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You don't have permission to access this task"));
+        }
+        
+        if (!ThumbnailService.isSupported(attachment.getFileType())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No thumbnail available for this attachment"));
+        }
+        
+        Optional<ThumbnailService.Thumbnail> thumbnailOptional = thumbnailService.getThumbnail(attachment, size);
+        if (thumbnailOptional.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No thumbnail available for this attachment"));
+        }
+        
+        if (!fileDownloadService.serve(thumbnailDownload(attachment, thumbnailOptional.get(), size), request, response)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "File not found"));
+        }
+        
+        return null;
+    }
+
+    @GetMapping("/signed-urls")
+    public ResponseEntity<?> getSignedUrls(@PathVariable Long taskId,
+                                           @RequestParam(required = false) Integer thumbnailSize) {
+        if (thumbnailSize != null && !ThumbnailService.SIZES.contains(thumbnailSize)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Thumbnail size must be one of " + ThumbnailService.SIZES));
+        }
+        
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        
+        Optional<User> userOptional = userService.findUserByUsername(username);
+        if (userOptional.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        Optional<Task> taskOptional = taskService.getTaskById(taskId);
+        if (taskOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        if (!taskOptional.get().getUser().getId().equals(userOptional.get().getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You don't have permission to access this task"));
+        }
+        
+        // One authorization for the whole task; the URLs are then fetched without touching the database
+        List<SignedUrlDto> signedUrls = attachmentService.getAttachmentsByTaskId(taskId).stream()
+                .map(attachment -> mapToSignedUrlDto(attachment, thumbnailSize))
+                .collect(Collectors.toList());
+        
+        return ResponseEntity.ok(signedUrls);
+    }
+
+    @GetMapping("/{attachmentId}/signed-url")
+    public ResponseEntity<?> getSignedUrl(@PathVariable Long taskId,
+                                          @PathVariable Long attachmentId,
+                                          @RequestParam(required = false) Integer thumbnailSize) {
+        if (thumbnailSize != null && !ThumbnailService.SIZES.contains(thumbnailSize)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Thumbnail size must be one of " + ThumbnailService.SIZES));
+        }
+        
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        
+        Optional<Attachment> attachmentOptional = attachmentService.getAttachmentWithTaskOwner(attachmentId);
+        if (attachmentOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Attachment attachment = attachmentOptional.get();
+        if (!attachment.getTask().getId().equals(taskId)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Attachment does not belong to the specified task"));
+        }
+        
+        if (!attachment.getTask().getUser().getUsername().equals(username)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You don't have permission to access this task"));
+        }
+        
+        return ResponseEntity.ok(mapToSignedUrlDto(attachment, thumbnailSize));
     }
 
     @DeleteMapping("/{attachmentId}")
@@ -208,4 +508,56 @@ public class AttachmentController {
                     .body(Map.of("error", "Failed to delete attachment"));
         }
     }
+
+    private FileDownloadService.Download fileDownload(Attachment attachment) {
+        // Content-addressed files never change, so their hash is a strong validator
+        return FileDownloadService.Download.builder()
+                .storagePath(attachment.getFilePath())
+                .contentType(attachment.getFileType())
+                .fileName(attachment.getFileName())
+                .etag(attachment.getContentHash())
+                .cacheControl(attachment.getContentHash() != null ? IMMUTABLE_CACHE_CONTROL : REVALIDATE_CACHE_CONTROL)
+                .contentEncoding(attachment.getStorageCodec())
+                .decodedLength(attachment.getFileSize())
+                .build();
+    }
+
+    private FileDownloadService.Download thumbnailDownload(Attachment attachment, ThumbnailService.Thumbnail thumbnail, int size) {
+        return FileDownloadService.Download.builder()
+                .storagePath(thumbnail.getStoragePath())
+                .contentType(thumbnail.getContentType())
+                .fileName(attachment.getFileName() + (thumbnail.getContentType().equals("image/png") ? ".png" : ".jpg"))
+                .etag(attachment.getContentHash() != null ? attachment.getContentHash() + "-" + size : null)
+                .cacheControl(IMMUTABLE_CACHE_CONTROL)
+                .inline(true)
+                .build();
+    }
+
+    private SignedUrlDto mapToSignedUrlDto(Attachment attachment, Integer thumbnailSize) {
+        SignedUrlService.SignedToken file = signedUrlService.sign(fileDownload(attachment));
+        // Only thumbnails that have been generated; the authorized thumbnail route generates missing ones
+        String thumbnailUrl = thumbnailSize == null ? null : thumbnailService.findThumbnail(attachment, thumbnailSize)
+                .map(thumbnail -> SignedDownloadController.PATH + signedUrlService.sign(
+                        thumbnailDownload(attachment, thumbnail, thumbnailSize)).getToken())
+                .orElse(null);
+        return SignedUrlDto.builder()
+                .attachmentId(attachment.getId())
+                .fileName(attachment.getFileName())
+                .url(SignedDownloadController.PATH + file.getToken())
+                .thumbnailUrl(thumbnailUrl)
+                .expiresAt(file.getExpiresAt())
+                .build();
+    }
+
+    private UploadSessionDto mapToUploadSessionDto(UploadSessionService.UploadSession session) {
+        return UploadSessionDto.builder()
+                .uploadId(session.getId())
+                .taskId(session.getTaskId())
+                .fileName(session.getFileName())
+                .fileType(session.getFileType())
+                .size(session.getSize())
+                .offset(session.getOffset())
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
 }
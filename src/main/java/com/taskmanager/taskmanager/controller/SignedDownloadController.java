@@ -0,0 +1,53 @@
+package com.taskmanager.taskmanager.controller;
+
+import com.taskmanager.taskmanager.service.FileDownloadService;
+import com.taskmanager.taskmanager.service.SignedUrlService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Serves files through signed URLs minted by {@link AttachmentController}.
+ *
+ * Requests are not authenticated: the token is the authorization, and checking it
+ * needs no database access.
+ */
+@RestController
+@RequestMapping(SignedDownloadController.PATH)
+public class SignedDownloadController {
+
+    public static final String PATH = "/api/files/";
+
+    @Autowired
+    private SignedUrlService signedUrlService;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @GetMapping("{token}")
+    public ResponseEntity<?> download(@PathVariable String token,
+                                      HttpServletRequest request,
+                                      HttpServletResponse response) throws IOException {
+        Optional<FileDownloadService.Download> download = signedUrlService.verify(token);
+        if (download.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Invalid or expired link"));
+        }
+
+        if (!fileDownloadService.serve(download.get(), request, response)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "File not found"));
+        }
+
+        // The response has been written
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.taskmanager.taskmanager.controller;
+
+import com.taskmanager.taskmanager.dto.StorageUsageDto;
+import com.taskmanager.taskmanager.service.StorageQuotaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/storage")
+public class StorageUsageController {
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @GetMapping("/usage")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<StorageUsageDto>> getTopConsumers(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(storageQuotaService.getTopConsumers(limit));
+    }
+}
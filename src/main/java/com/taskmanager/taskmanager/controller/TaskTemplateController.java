@@ -1,12 +1,15 @@
 package com.taskmanager.taskmanager.controller;
 
 import com.taskmanager.taskmanager.dto.TaskTemplateDto;
+import com.taskmanager.taskmanager.dto.TemplateBatchRequest;
+import com.taskmanager.taskmanager.dto.TemplateBatchResult;
 import com.taskmanager.taskmanager.model.Category;
 import com.taskmanager.taskmanager.model.Task;
 import com.taskmanager.taskmanager.model.TaskTemplate;
 import com.taskmanager.taskmanager.model.User;
 import com.taskmanager.taskmanager.service.CategoryService;
 import com.taskmanager.taskmanager.service.TaskTemplateService;
+import com.taskmanager.taskmanager.service.TemplateInstantiationPlan;
 import com.taskmanager.taskmanager.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -34,7 +37,10 @@ public class TaskTemplateController {
     private CategoryService categoryService;
 
     @GetMapping
-    public ResponseEntity<?> getTemplates() {
+    public ResponseEntity<?> getTemplates(@RequestParam(required = false) String afterName,
+                                          @RequestParam(required = false) Long afterId,
+                                          @RequestParam(defaultValue = "50") int limit,
+                                          @RequestParam(defaultValue = "false") boolean details) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
         
@@ -44,10 +50,12 @@ public class TaskTemplateController {
         }
         
         User user = userOptional.get();
-        List<TaskTemplate> templates = templateService.getTemplatesByUserId(user.getId());
-        List<TaskTemplateDto> templateDtos = templateService.convertToDtoList(templates);
+        List<TaskTemplate> templates = templateService.getTemplatePage(user.getId(), afterName, afterId, limit);
         
-        return ResponseEntity.ok(templateDtos);
+        if (details) {
+            return ResponseEntity.ok(templateService.convertToDtoList(templates));
+        }
+        return ResponseEntity.ok(templateService.convertToSummaryList(templates));
     }
 
     @GetMapping("/{id}")
@@ -110,10 +118,13 @@ public class TaskTemplateController {
             }
         }
         
-        TaskTemplate savedTemplate = templateService.createTemplate(template);
-        TaskTemplateDto responseDto = templateService.convertToDto(savedTemplate);
-        
-        return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
+        try {
+            TaskTemplate savedTemplate = templateService.createTemplate(template);
+            TaskTemplateDto responseDto = templateService.convertToDto(savedTemplate);
+            return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @PutMapping("/{id}")
@@ -158,10 +169,13 @@ public class TaskTemplateController {
             }
         }
         
-        TaskTemplate updatedTemplate = templateService.updateTemplate(template);
-        TaskTemplateDto responseDto = templateService.convertToDto(updatedTemplate);
-        
-        return ResponseEntity.ok(responseDto);
+        try {
+            TaskTemplate updatedTemplate = templateService.updateTemplate(template);
+            TaskTemplateDto responseDto = templateService.convertToDto(updatedTemplate);
+            return ResponseEntity.ok(responseDto);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -192,7 +206,8 @@ public class TaskTemplateController {
     }
 
     @PostMapping("/{id}/create-task")
-    public ResponseEntity<?> createTaskFromTemplate(@PathVariable Long id) {
+    public ResponseEntity<?> createTaskFromTemplate(@PathVariable Long id,
+                                                    @RequestBody(required = false) Map<String, String> variables) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
         
@@ -201,24 +216,61 @@ public class TaskTemplateController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        Optional<TaskTemplate> templateOptional = templateService.getTemplateById(id);
-        if (templateOptional.isEmpty()) {
+        Optional<TemplateInstantiationPlan> planOptional = templateService.getInstantiationPlan(id);
+        if (planOptional.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         
-        TaskTemplate template = templateOptional.get();
+        TemplateInstantiationPlan plan = planOptional.get();
         User user = userOptional.get();
         
         // Check if the user is the owner of the template
-        if (!template.getUser().getId().equals(user.getId())) {
+        if (!plan.getOwnerId().equals(user.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You don't have permission to use this template"));
         }
         
         try {
-            Task task = templateService.createTaskFromTemplate(id, user);
+            Task task = templateService.createTaskFromPlan(plan, user, variables);
             return ResponseEntity.status(HttpStatus.CREATED).body(task);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+
+    @PostMapping("/{id}/instantiate-batch")
+    public ResponseEntity<?> instantiateBatch(@PathVariable Long id, @RequestBody TemplateBatchRequest batchRequest) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        
+        Optional<User> userOptional = userService.findUserByUsername(username);
+        if (userOptional.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        Optional<TemplateInstantiationPlan> planOptional = templateService.getInstantiationPlan(id);
+        if (planOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        TemplateInstantiationPlan plan = planOptional.get();
+        User user = userOptional.get();
+        
+        // Check if the user is the owner of the template
+        if (!plan.getOwnerId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You don't have permission to use this template"));
+        }
+        
+        try {
+            List<Long> taskIds = templateService.createTasksFromPlan(plan, user, batchRequest.getCount(),
+                    batchRequest.getVariables(), batchRequest.getTaskVariables());
+            TemplateBatchResult result = TemplateBatchResult.builder()
+                    .templateId(id)
+                    .created(taskIds.size())
+                    .taskIds(taskIds)
+                    .build();
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
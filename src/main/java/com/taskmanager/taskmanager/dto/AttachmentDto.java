@@ -17,5 +17,6 @@ public class AttachmentDto {
     private String fileType;
     private Long fileSize;
     private LocalDateTime uploadDate;
+    private Boolean thumbnailAvailable;
     private Long taskId;
 }
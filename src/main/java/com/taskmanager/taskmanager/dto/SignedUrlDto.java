@@ -0,0 +1,20 @@
+package com.taskmanager.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignedUrlDto {
+    private Long attachmentId;
+    private String fileName;
+    private String url;
+    private String thumbnailUrl;
+    private Instant expiresAt;
+}
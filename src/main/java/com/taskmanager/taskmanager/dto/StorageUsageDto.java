@@ -0,0 +1,18 @@
+package com.taskmanager.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageUsageDto {
+    private Long userId;
+    private String username;
+    private Long usedBytes;
+    private Long attachmentCount;
+    private Long quotaBytes;
+}
@@ -0,0 +1,24 @@
+package com.taskmanager.taskmanager.dto;
+
+import com.taskmanager.taskmanager.model.Priority;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskTemplateSummaryDto {
+    private Long id;
+    private String name;
+    private String description;
+    private Priority defaultPriority;
+    private Integer defaultDueDateDays;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private long subtaskCount;
+}
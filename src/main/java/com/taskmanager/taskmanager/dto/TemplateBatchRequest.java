@@ -0,0 +1,19 @@
+package com.taskmanager.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateBatchRequest {
+    private int count;
+    private Map<String, String> variables;
+    private List<Map<String, String>> taskVariables;
+}
@@ -0,0 +1,18 @@
+package com.taskmanager.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateBatchResult {
+    private Long templateId;
+    private int created;
+    private List<Long> taskIds;
+}
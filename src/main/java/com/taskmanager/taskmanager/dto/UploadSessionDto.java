@@ -0,0 +1,22 @@
+package com.taskmanager.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDto {
+    private String uploadId;
+    private Long taskId;
+    private String fileName;
+    private String fileType;
+    private Long size;
+    private Long offset;
+    private LocalDateTime expiresAt;
+}
@@ -1,5 +1,6 @@
 package com.taskmanager.taskmanager.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,7 +14,11 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "attachments")
+@Table(name = "attachments", indexes = {
+    @Index(name = "idx_attachments_content_hash", columnList = "content_hash"),
+    @Index(name = "idx_attachments_file_path", columnList = "file_path"),
+    @Index(name = "idx_attachments_user_id", columnList = "user_id")
+})
 public class Attachment {
 
     @Id
@@ -29,12 +34,30 @@ public class Attachment {
     @Column(nullable = false)
     private String filePath;
 
+    // Size of the original, uncompressed content
     @Column
     private Long fileSize;
 
+    // Codec the stored file is compressed with, e.g. "gzip"; null if stored uncompressed
+    @Column(length = 16)
+    private String storageCodec;
+
+    // Size of the stored file on disk
+    @Column
+    private Long storedSize;
+
+    // SHA-256 of the content; null for files stored before content addressing
+    @Column(length = 64)
+    private String contentHash;
+
+    // Content type of the generated thumbnails; null until they have been generated
+    @Column(length = 32)
+    private String thumbnailType;
+
     @Column(nullable = false)
     private LocalDateTime uploadDate;
 
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "task_id")
     private Task task;
@@ -1,10 +1,13 @@
 package com.taskmanager.taskmanager.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -14,6 +17,7 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "categories")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categories")
 public class Category {
 
     @Id
@@ -30,6 +34,8 @@ public class Category {
     @JoinColumn(name = "user_id")
     private User user;
 
+    // Not cached: task_categories rows are also written with JDBC, see TaskBatchRepository
+    @JsonIgnore
     @ManyToMany(mappedBy = "categories")
     private List<Task> tasks;
 }
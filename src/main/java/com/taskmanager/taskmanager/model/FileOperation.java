@@ -0,0 +1,52 @@
+package com.taskmanager.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A file change recorded in the transaction that requires it and carried out once that transaction commits
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "file_operations", indexes = {
+    @Index(name = "idx_file_operations_next_attempt_at", columnList = "next_attempt_at"),
+    @Index(name = "idx_file_operations_storage_path", columnList = "storage_path")
+})
+public class FileOperation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private FileOperationType type;
+
+    @Column(nullable = false)
+    private String storagePath;
+
+    // Name of the staging file to place; only set for PLACE
+    @Column
+    private String stagingName;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Not picked up by the worker before this time
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,8 @@
+package com.taskmanager.taskmanager.model;
+
+public enum FileOperationType {
+    // Move a staged upload into storage
+    PLACE,
+    // Delete a stored file and its thumbnails, unless it is referenced again
+    DELETE
+}
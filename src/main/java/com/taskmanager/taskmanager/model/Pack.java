@@ -0,0 +1,44 @@
+package com.taskmanager.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An append-only file holding the content of many small stored files
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "packs")
+public class Pack {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Bytes appended so far, including entries that were deleted or moved since
+    @Column(nullable = false)
+    private long size;
+
+    // Bytes of the entries still indexed in this pack
+    @Column(nullable = false)
+    private long liveBytes;
+
+    // Full: no further entries are appended
+    @Column(nullable = false)
+    private boolean sealed;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set once compaction has moved every entry out; the file is deleted after a delay
+    @Column
+    private LocalDateTime retiredAt;
+}
@@ -0,0 +1,39 @@
+package com.taskmanager.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Location of a stored file's content within a pack
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "packed_files", indexes = {
+    @Index(name = "idx_packed_files_pack_id", columnList = "pack_id")
+})
+public class PackedFile {
+
+    @Id
+    private String storagePath;
+
+    @Column(nullable = false)
+    private Long packId;
+
+    @Column(name = "byte_offset", nullable = false)
+    private long offset;
+
+    // Size of the file as stored, i.e. after compression
+    @Column(nullable = false)
+    private long length;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,34 @@
+package com.taskmanager.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "storage_usage", indexes = {
+    @Index(name = "idx_storage_usage_used_bytes", columnList = "used_bytes")
+})
+public class StorageUsage {
+
+    // Not a foreign key, so deleting a user is not blocked; the row is dropped by reconciliation
+    @Id
+    private Long userId;
+
+    // Total original size of the user's attachments
+    @Column(nullable = false)
+    private long usedBytes;
+
+    @Column(nullable = false)
+    private long attachmentCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
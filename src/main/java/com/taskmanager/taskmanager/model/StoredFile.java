@@ -0,0 +1,40 @@
+package com.taskmanager.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "stored_files")
+public class StoredFile {
+
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private String storagePath;
+
+    // Size of the file on disk, after compression
+    @Column(nullable = false)
+    private Long size;
+
+    // Codec the file is stored with, e.g. "gzip"; null if stored uncompressed
+    @Column(length = 16)
+    private String codec;
+
+    // Number of attachments sharing this content
+    @Column(nullable = false)
+    private int referenceCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -16,7 +18,10 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "task_templates")
+@Table(name = "task_templates", indexes = {
+    @Index(name = "idx_task_templates_user_name", columnList = "user_id, name, id")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task-templates")
 public class TaskTemplate {
 
     @Id
@@ -52,6 +57,7 @@ public class TaskTemplate {
     private User user;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "template-category-ids")
     @JoinTable(
         name = "template_categories",
         joinColumns = @JoinColumn(name = "template_id"),
@@ -60,7 +66,9 @@ public class TaskTemplate {
     @Builder.Default
     private List<Category> categories = new ArrayList<>();
     
+    // Also evicted when a subtask is saved on its own, see hibernate.cache.auto_evict_collection_cache
     @OneToMany(mappedBy = "template", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "template-subtask-ids")
     @Builder.Default
     private List<TemplateSubtask> subtasks = new ArrayList<>();
 }
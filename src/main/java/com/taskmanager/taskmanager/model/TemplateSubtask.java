@@ -5,13 +5,18 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "template_subtasks")
+@Table(name = "template_subtasks", indexes = {
+    @Index(name = "idx_template_subtasks_template_position", columnList = "template_id, position")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "template-subtasks")
 public class TemplateSubtask {
 
     @Id
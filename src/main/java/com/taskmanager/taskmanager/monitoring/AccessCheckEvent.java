@@ -0,0 +1,30 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for checking a collaborator's role on a task
+ */
+@Name("taskmanager.AccessCheck")
+@Label("Access Check")
+@Category({"Taskmanager", "Security"})
+@Description("Check of whether a user has at least a role on a task")
+@StackTrace(false)
+public class AccessCheckEvent extends jdk.jfr.Event {
+
+    @Label("Task Id")
+    public long taskId;
+
+    @Label("User Id")
+    public long userId;
+
+    @Label("Minimum Role")
+    public String minimumRole;
+
+    @Label("Granted")
+    public boolean granted;
+}
@@ -0,0 +1,82 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Actuator endpoint at /actuator/jfr that records the application with Java Flight Recorder
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class FlightRecordingEndpoint {
+
+    private static final int STATUS_CONFLICT = 409;
+
+    @Autowired
+    private FlightRecordings flightRecordings;
+
+    /**
+     * Get the status of the latest recording
+     *
+     * @return The status, including the download name once the recording has stopped
+     */
+    @ReadOperation
+    public FlightRecordingStatus status() {
+        return flightRecordings.status();
+    }
+
+    /**
+     * Start a recording that stops by itself
+     *
+     * @param durationSeconds How long to record, 60 seconds by default
+     * @param settings default or profile, profile by default
+     * @return The status of the new recording, or 409 with the running one's status
+     * @throws IOException If the recording file cannot be created
+     */
+    @WriteOperation
+    public WebEndpointResponse<FlightRecordingStatus> start(@Nullable Long durationSeconds, @Nullable String settings)
+            throws IOException {
+        try {
+            return new WebEndpointResponse<>(flightRecordings.start(durationSeconds, settings));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(flightRecordings.status(), STATUS_CONFLICT);
+        }
+    }
+
+    /**
+     * Stop the running recording early
+     *
+     * @return The status of the recording
+     */
+    @DeleteOperation
+    public FlightRecordingStatus stop() {
+        return flightRecordings.stop();
+    }
+
+    /**
+     * Download a stopped recording, e.g. to open it in JDK Mission Control
+     *
+     * @param file The download name from the status
+     * @return The .jfr file, or 404 if there is no stopped recording of that name
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> download(@Selector String file) {
+        return flightRecordings.file(file)
+                .map(path -> new WebEndpointResponse<Resource>(new FileSystemResource(path)))
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+}
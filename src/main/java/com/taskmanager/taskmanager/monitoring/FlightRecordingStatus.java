@@ -0,0 +1,20 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * State of the on-demand flight recording
+ */
+@Value
+public class FlightRecordingStatus {
+    // NONE, RUNNING, or CLOSED once stopped and written
+    String state;
+    String settings;
+    Instant startTime;
+    long durationSeconds;
+    // Download name, set once the recording has stopped and been written
+    String file;
+    long sizeBytes;
+}
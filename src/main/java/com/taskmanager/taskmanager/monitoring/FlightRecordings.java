@@ -0,0 +1,153 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Starts and stops a time-boxed Java Flight Recorder recording on demand.
+ *
+ * Only one recording runs at a time. It stops by itself after its duration and is
+ * written to a temporary file, which is kept for download until the next recording
+ * starts or the application shuts down. While no recording runs, the application's
+ * own events cost next to nothing: their begin and commit calls are no-ops.
+ */
+@Slf4j
+@Component
+public class FlightRecordings {
+
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+
+    @Value("${jfr.default-duration-seconds:60}")
+    private long defaultDurationSeconds;
+
+    @Value("${jfr.max-duration-seconds:600}")
+    private long maxDurationSeconds;
+
+    private Recording recording;
+    private String settings;
+    private Path file;
+
+    /**
+     * Start a recording
+     *
+     * @param durationSeconds How long to record, or null for the default duration
+     * @param settings The JDK settings to record with, default or profile, or null for profile
+     * @return The status of the new recording
+     * @throws IllegalArgumentException If the duration or settings are not valid
+     * @throws IllegalStateException If a recording is already running
+     * @throws IOException If the recording file cannot be created
+     */
+    public synchronized FlightRecordingStatus start(Long durationSeconds, String settings) throws IOException {
+        long seconds = durationSeconds != null ? durationSeconds : defaultDurationSeconds;
+        if (seconds < 1 || seconds > maxDurationSeconds) {
+            throw new IllegalArgumentException("The duration must be between 1 and " + maxDurationSeconds + " seconds");
+        }
+        String settingsName = settings != null ? settings : "profile";
+        if (!SETTINGS.contains(settingsName)) {
+            throw new IllegalArgumentException("The settings must be one of " + SETTINGS);
+        }
+        if (isRunning()) {
+            throw new IllegalStateException("A recording is already running");
+        }
+
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (ParseException e) {
+            throw new IOException("Cannot read the " + settingsName + " settings", e);
+        }
+        discard();
+        Path destination = Files.createTempFile("taskmanager-", ".jfr");
+        Recording newRecording = new Recording(configuration);
+        newRecording.setName("taskmanager");
+        newRecording.setToDisk(true);
+        newRecording.setDuration(Duration.ofSeconds(seconds));
+        newRecording.setDestination(destination);
+        newRecording.start();
+
+        recording = newRecording;
+        this.settings = settingsName;
+        file = destination;
+        log.info("Started a {} second flight recording with {} settings", seconds, settingsName);
+        return status();
+    }
+
+    /**
+     * Stop the running recording early and write it for download
+     *
+     * @return The status of the recording
+     */
+    public synchronized FlightRecordingStatus stop() {
+        if (isRunning()) {
+            recording.stop();
+        }
+        return status();
+    }
+
+    /**
+     * Get the status of the latest recording
+     *
+     * @return The status, with state NONE if nothing has been recorded
+     */
+    public synchronized FlightRecordingStatus status() {
+        if (recording == null) {
+            return new FlightRecordingStatus("NONE", null, null, 0, null, 0);
+        }
+        boolean written = isWritten();
+        return new FlightRecordingStatus(
+                recording.getState().name(),
+                settings,
+                recording.getStartTime(),
+                recording.getDuration().toSeconds(),
+                written ? file.getFileName().toString() : null,
+                written ? file.toFile().length() : 0);
+    }
+
+    /**
+     * Get the file of the latest recording, once it has stopped
+     *
+     * @param name The download name from {@link #status()}
+     * @return The file, or empty if no stopped recording has that name
+     */
+    public synchronized Optional<Path> file(String name) {
+        if (recording == null || !isWritten() || !file.getFileName().toString().equals(name)) {
+            return Optional.empty();
+        }
+        return Optional.of(file);
+    }
+
+    @PreDestroy
+    public synchronized void discard() throws IOException {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        if (file != null) {
+            Files.deleteIfExists(file);
+            file = null;
+        }
+    }
+
+    private boolean isRunning() {
+        return recording != null
+                && (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED);
+    }
+
+    private boolean isWritten() {
+        return (recording.getState() == RecordingState.STOPPED || recording.getState() == RecordingState.CLOSED)
+                && Files.exists(file);
+    }
+}
@@ -0,0 +1,21 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for verifying a request's JWT and loading its user
+ */
+@Name("taskmanager.JwtAuthentication")
+@Label("JWT Authentication")
+@Category({"Taskmanager", "Security"})
+@Description("Verification of a bearer token and loading of its user")
+@StackTrace(false)
+public class JwtAuthenticationEvent extends jdk.jfr.Event {
+
+    @Label("Authenticated")
+    public boolean authenticated;
+}
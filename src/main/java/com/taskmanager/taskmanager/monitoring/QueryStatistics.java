@@ -0,0 +1,139 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Latency histograms and row counts per SQL fingerprint, fed by {@link QueryStatisticsListener}.
+ *
+ * The number of fingerprints is capped so that statements built with inline
+ * values cannot grow the map without bound; once the cap is reached, new
+ * statements are counted under a single overflow entry.
+ */
+@Slf4j
+@Component
+public class QueryStatistics {
+
+    static final String OVERFLOW = "(other statements)";
+
+    @Value("${query.stats.max-fingerprints:1000}")
+    private int maxFingerprints;
+
+    @Value("${query.stats.slow-threshold-ms:500}")
+    private long slowThresholdMillis;
+
+    private final ConcurrentMap<String, Entry> byFingerprint = new ConcurrentHashMap<>();
+
+    // Statements as sent to the driver, so repeated executions skip normalization
+    private final ConcurrentMap<String, Entry> bySql = new ConcurrentHashMap<>();
+
+    /**
+     * Get the entry that executions of a statement are recorded in
+     *
+     * @param sql The SQL as sent to the driver
+     * @return The entry of the statement's fingerprint
+     */
+    public Entry entry(String sql) {
+        Entry entry = bySql.get(sql);
+        if (entry != null) {
+            return entry;
+        }
+        String fingerprint = SqlFingerprint.of(sql);
+        entry = byFingerprint.get(fingerprint);
+        if (entry == null) {
+            entry = byFingerprint.computeIfAbsent(byFingerprint.size() < maxFingerprints ? fingerprint : OVERFLOW, Entry::new);
+        }
+        if (bySql.size() < maxFingerprints * 4) {
+            bySql.put(sql, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Record one execution of a statement, logging it if it was slow
+     *
+     * @param entry The entry of the statement
+     * @param nanos How long the driver took to execute it
+     * @param updatedRows The rows it updated, or 0 for queries, whose rows are counted as they are read
+     * @param parameterCount The number of bind parameters, which are never logged
+     */
+    public void recordExecution(Entry entry, long nanos, long updatedRows, int parameterCount) {
+        entry.latency.record(nanos);
+        entry.rows.add(updatedRows);
+        long millis = nanos / 1_000_000;
+        if (millis >= slowThresholdMillis) {
+            log.warn("Slow query took {} ms ({} bind parameters redacted): {}", millis, parameterCount, entry.fingerprint);
+        }
+    }
+
+    /**
+     * Get the statements that took the most time in total
+     *
+     * @param limit The maximum number of statements
+     * @return Statistics of the statements, most total time first
+     */
+    public List<QueryStats> top(int limit) {
+        return byFingerprint.values().stream()
+                .map(Entry::snapshot)
+                .sorted(Comparator.comparingDouble(QueryStats::getTotalMillis).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Discard all statistics
+     */
+    public void reset() {
+        bySql.clear();
+        byFingerprint.clear();
+    }
+
+    /**
+     * Counters of one fingerprint, updated without locks from any thread
+     */
+    public static class Entry {
+
+        private final String fingerprint;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * Count rows read from a result set of this statement
+         *
+         * @param count The number of rows
+         */
+        public void addRows(long count) {
+            rows.add(count);
+        }
+
+        QueryStats snapshot() {
+            long calls = latency.getCount();
+            return new QueryStats(
+                    fingerprint,
+                    calls,
+                    millis(latency.getTotalNanos()),
+                    calls == 0 ? 0 : millis(latency.getTotalNanos() / calls),
+                    millis(latency.percentileNanos(0.5)),
+                    millis(latency.percentileNanos(0.95)),
+                    millis(latency.percentileNanos(0.99)),
+                    millis(latency.getMaxNanos()),
+                    rows.sum());
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 1_000.0) / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint at /actuator/queries listing the SQL statements that took the most time
+ */
+@Component
+@Endpoint(id = "queries")
+public class QueryStatisticsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    @Autowired
+    private QueryStatistics queryStatistics;
+
+    /**
+     * Get the statements that took the most time in total
+     *
+     * @param limit The maximum number of statements, 20 by default
+     * @return Statistics of the statements, most total time first
+     */
+    @ReadOperation
+    public List<QueryStats> queries(@Nullable Integer limit) {
+        return queryStatistics.top(limit != null ? limit : DEFAULT_LIMIT);
+    }
+
+    /**
+     * Discard all statistics, e.g. before measuring a load test
+     */
+    @DeleteOperation
+    public void reset() {
+        queryStatistics.reset();
+    }
+}
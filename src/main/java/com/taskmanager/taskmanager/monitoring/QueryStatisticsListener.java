@@ -0,0 +1,132 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+import net.ttddyy.dsproxy.proxy.SimpleResultSetProxyLogic;
+
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Feeds every statement executed through the proxied DataSource into {@link QueryStatistics},
+ * and into the {@link RequestTiming} of the request running it.
+ *
+ * Latency is the time the driver takes to execute the statement. Rows of a query
+ * are counted as they are read, by proxying its result set: the result set is
+ * created while the statement executes, so it is tied to the statement running
+ * on the same thread.
+ */
+public class QueryStatisticsListener implements QueryExecutionListener, ResultSetProxyLogicFactory {
+
+    private final QueryStatistics statistics;
+
+    // One mutable holder per thread, so recording allocates nothing
+    private final ThreadLocal<Execution> current = ThreadLocal.withInitial(Execution::new);
+
+    public QueryStatisticsListener(QueryStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        Execution execution = current.get();
+        execution.entry = statistics.entry(queryInfoList.get(0).getQuery());
+        execution.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Execution execution = current.get();
+        if (execution.entry == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - execution.startNanos;
+        RequestTiming.recordSql(nanos);
+        statistics.recordExecution(execution.entry, nanos, updatedRows(execInfo.getResult()), parameterCount(queryInfoList));
+        execution.entry = null;
+    }
+
+    @Override
+    public ResultSetProxyLogic create(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+        return new RowCountingLogic(new SimpleResultSetProxyLogic(resultSet, connectionInfo, proxyConfig), current.get().entry);
+    }
+
+    private static long updatedRows(Object result) {
+        if (result instanceof Number count) {
+            return Math.max(count.longValue(), 0);
+        }
+        long rows = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                rows += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                rows += Math.max(count, 0);
+            }
+        }
+        return rows;
+    }
+
+    private static int parameterCount(List<QueryInfo> queryInfoList) {
+        int count = 0;
+        for (QueryInfo queryInfo : queryInfoList) {
+            for (var parameters : queryInfo.getParametersList()) {
+                count += parameters.size();
+            }
+        }
+        return count;
+    }
+
+    private static class Execution {
+        QueryStatistics.Entry entry;
+        long startNanos;
+    }
+
+    /**
+     * Counts the rows read from one result set and adds them to its statement when it is exhausted or closed
+     */
+    private static class RowCountingLogic implements ResultSetProxyLogic {
+
+        private final ResultSetProxyLogic delegate;
+        private QueryStatistics.Entry entry;
+        private long rows;
+
+        RowCountingLogic(ResultSetProxyLogic delegate, QueryStatistics.Entry entry) {
+            this.delegate = delegate;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = delegate.invoke(proxy, method, args);
+            if (entry != null) {
+                String name = method.getName();
+                if ("next".equals(name)) {
+                    if (Boolean.TRUE.equals(result)) {
+                        rows++;
+                    } else {
+                        flush();
+                    }
+                } else if ("close".equals(name)) {
+                    flush();
+                }
+            }
+            return result;
+        }
+
+        private void flush() {
+            entry.addRows(rows);
+            entry = null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import lombok.Value;
+
+/**
+ * Statistics of one SQL fingerprint; percentiles are upper bounds accurate to a factor of two
+ */
+@Value
+public class QueryStats {
+    String fingerprint;
+    long calls;
+    double totalMillis;
+    double meanMillis;
+    double p50Millis;
+    double p95Millis;
+    double p99Millis;
+    double maxMillis;
+    long rows;
+}
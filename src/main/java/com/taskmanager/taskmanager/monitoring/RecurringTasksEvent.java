@@ -0,0 +1,27 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one run of the recurring task job
+ */
+@Name("taskmanager.RecurringTasks")
+@Label("Recurring Tasks Job")
+@Category({"Taskmanager", "Tasks"})
+@Description("One run of the job creating instances of recurring tasks")
+@StackTrace(false)
+public class RecurringTasksEvent extends jdk.jfr.Event {
+
+    @Label("Due Tasks")
+    public int due;
+
+    @Label("Created Instances")
+    public int created;
+
+    @Label("Ended Tasks")
+    public int ended;
+}
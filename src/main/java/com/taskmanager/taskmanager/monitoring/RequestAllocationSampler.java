@@ -0,0 +1,96 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records the bytes allocated by a sample of the HTTP server requests as taskmanager.request.allocation.
+ *
+ * The JVM counts the bytes each thread allocates, so a request's allocation is the
+ * difference between its thread's count when it starts and when it ends. Work the
+ * request hands to other threads, e.g. thumbnails or async downloads, is not
+ * included, and requests that end on another thread are skipped, as are actuator requests.
+ */
+@Component
+public class RequestAllocationSampler implements ObservationHandler<ServerRequestObservationContext> {
+
+    private static final String START = RequestAllocationSampler.class.getName() + ".start";
+
+    private static final double MIN_EXPECTED_BYTES = 1024;
+    private static final double MAX_EXPECTED_BYTES = 4L * 1024 * 1024 * 1024;
+
+    private final com.sun.management.ThreadMXBean threads = allocationCountingThreads();
+
+    @Value("${allocation.sample-rate:0.1}")
+    private double sampleRate;
+
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return threads != null && sampleRate > 0 && context instanceof ServerRequestObservationContext;
+    }
+
+    @Override
+    public void onStart(ServerRequestObservationContext context) {
+        if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            context.put(START, new Start(Thread.currentThread().getId(), threads.getCurrentThreadAllocatedBytes()));
+        }
+    }
+
+    @Override
+    public void onStop(ServerRequestObservationContext context) {
+        Start start = context.get(START);
+        if (start == null || start.threadId != Thread.currentThread().getId()
+                || context.getCarrier().getRequestURI().startsWith("/actuator")) {
+            return;
+        }
+        long bytes = threads.getCurrentThreadAllocatedBytes() - start.allocatedBytes;
+        String uri = context.getPathPattern() != null ? context.getPathPattern() : "UNKNOWN";
+        DistributionSummary.builder("taskmanager.request.allocation")
+                .description("Bytes allocated by the thread serving a sampled request")
+                .baseUnit("bytes")
+                // Bounds the histogram buckets to what a request plausibly allocates
+                .minimumExpectedValue(MIN_EXPECTED_BYTES)
+                .maximumExpectedValue(MAX_EXPECTED_BYTES)
+                .tag("method", context.getCarrier().getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCountingThreads() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean counting && counting.isThreadAllocatedMemorySupported()
+                && counting.isThreadAllocatedMemoryEnabled()) {
+            return counting;
+        }
+        return null;
+    }
+
+    /**
+     * The thread serving a sampled request and its allocation count when the request started
+     */
+    private static class Start {
+
+        final long threadId;
+        final long allocatedBytes;
+
+        Start(long threadId, long allocatedBytes) {
+            this.threadId = threadId;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
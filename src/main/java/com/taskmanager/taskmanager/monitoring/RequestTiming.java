@@ -0,0 +1,165 @@
+package com.taskmanager.taskmanager.monitoring;
+
+/**
+ * Accumulates where the time of the current request goes, for the Server-Timing header.
+ *
+ * Each thread reuses one accumulator, reset when a request starts, so recording
+ * allocates nothing. Outside a timed request, e.g. on scheduler threads or while
+ * the server timing filter is disabled, recording does nothing. SQL statements
+ * run inside a phase, e.g. the user lookup, count towards both that phase and the
+ * database; the application time is what remains once each is counted once.
+ */
+public final class RequestTiming {
+
+    /**
+     * Timed parts of a request other than SQL
+     */
+    public enum Phase {
+        AUTH, USER, JSON
+    }
+
+    private static final ThreadLocal<RequestTiming> CURRENT = ThreadLocal.withInitial(RequestTiming::new);
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private boolean active;
+    private long startNanos;
+    private long endNanos;
+    private final long[] phaseNanos = new long[PHASES.length];
+    private final long[] phaseSqlStart = new long[PHASES.length];
+    private long sqlNanos;
+    private long sqlCount;
+    private long nestedSqlNanos;
+
+    private RequestTiming() {
+    }
+
+    /**
+     * Start timing a request on the current thread
+     *
+     * @return The thread's accumulator, reset
+     */
+    static RequestTiming start() {
+        RequestTiming timing = CURRENT.get();
+        timing.active = true;
+        timing.startNanos = System.nanoTime();
+        timing.endNanos = 0;
+        for (int i = 0; i < timing.phaseNanos.length; i++) {
+            timing.phaseNanos[i] = 0;
+            timing.phaseSqlStart[i] = 0;
+        }
+        timing.sqlNanos = 0;
+        timing.sqlCount = 0;
+        timing.nestedSqlNanos = 0;
+        return timing;
+    }
+
+    /**
+     * Start a phase of the current request
+     *
+     * @param phase The phase
+     * @return The start time to pass to {@link #endPhase}
+     */
+    public static long beginPhase(Phase phase) {
+        RequestTiming timing = CURRENT.get();
+        if (timing.active) {
+            timing.phaseSqlStart[phase.ordinal()] = timing.sqlNanos;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * End a phase of the current request; a phase that throws is simply not counted
+     *
+     * @param phase The phase
+     * @param startNanos The start time from {@link #beginPhase}
+     */
+    public static void endPhase(Phase phase, long startNanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing.active) {
+            timing.phaseNanos[phase.ordinal()] += System.nanoTime() - startNanos;
+            timing.nestedSqlNanos += timing.sqlNanos - timing.phaseSqlStart[phase.ordinal()];
+        }
+    }
+
+    /**
+     * Count a SQL statement of the current request
+     *
+     * @param nanos How long the driver took to execute it
+     */
+    public static void recordSql(long nanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing.active) {
+            timing.sqlNanos += nanos;
+            timing.sqlCount++;
+        }
+    }
+
+    /**
+     * Stop the clock of the request; phases still running are not counted
+     */
+    void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Stop recording on the current thread
+     */
+    void finish() {
+        active = false;
+    }
+
+    long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    long getSqlNanos() {
+        return sqlNanos;
+    }
+
+    long getSqlCount() {
+        return sqlCount;
+    }
+
+    /**
+     * Get the time of the request so far, or until it was stopped
+     */
+    long getTotalNanos() {
+        return (endNanos != 0 ? endNanos : System.nanoTime()) - startNanos;
+    }
+
+    /**
+     * Get the time spent in neither a phase nor SQL, i.e. in controllers and services
+     */
+    long getAppNanos() {
+        long counted = sqlNanos - nestedSqlNanos;
+        for (long nanos : phaseNanos) {
+            counted += nanos;
+        }
+        return Math.max(getTotalNanos() - counted, 0);
+    }
+
+    /**
+     * Format the accumulated timings as a Server-Timing header value, in milliseconds
+     */
+    String toHeader() {
+        StringBuilder header = new StringBuilder(160);
+        metric(header, "auth", getPhaseNanos(Phase.AUTH), "JWT verification");
+        metric(header, "user", getPhaseNanos(Phase.USER), "User lookup");
+        metric(header, "db", sqlNanos, sqlCount + (sqlCount == 1 ? " query" : " queries"));
+        metric(header, "app", getAppNanos(), "Application");
+        metric(header, "json", getPhaseNanos(Phase.JSON), "JSON serialization");
+        metric(header, "total", getTotalNanos(), null);
+        return header.toString();
+    }
+
+    private static void metric(StringBuilder header, String name, long nanos, String description) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(Math.round(nanos / 10_000.0) / 100.0);
+        if (description != null) {
+            header.append(";desc=\"").append(description).append('"');
+        }
+    }
+}
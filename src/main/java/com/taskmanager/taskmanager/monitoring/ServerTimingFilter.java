@@ -0,0 +1,128 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Adds a Server-Timing header breaking down where the time of each request went.
+ *
+ * The header is set just before the body is written, so it covers everything up to
+ * that point: authentication, the user lookup, SQL, the application and, since the
+ * JSON converter serializes into a buffer first, serialization. A sample of the
+ * requests is also logged as one key=value line with the complete timings.
+ */
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final String HEADER = "Server-Timing";
+
+    private final double logSampleRate;
+
+    public ServerTimingFilter(double logSampleRate) {
+        this.logSampleRate = logSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start();
+        ServerTimingResponse timedResponse = new ServerTimingResponse(response, timing);
+        try {
+            chain.doFilter(request, timedResponse);
+        } finally {
+            timing.stop();
+            timedResponse.addHeader();
+            if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+                log(request, response, timing);
+            }
+            timing.finish();
+        }
+    }
+
+    private static void log(HttpServletRequest request, HttpServletResponse response, RequestTiming timing) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        log.info("method={} path={} status={} total_ms={} auth_ms={} user_ms={} db_ms={} db_queries={} app_ms={} json_ms={}",
+                request.getMethod(),
+                pattern != null ? pattern : request.getRequestURI(),
+                response.getStatus(),
+                millis(timing.getTotalNanos()),
+                millis(timing.getPhaseNanos(RequestTiming.Phase.AUTH)),
+                millis(timing.getPhaseNanos(RequestTiming.Phase.USER)),
+                millis(timing.getSqlNanos()),
+                timing.getSqlCount(),
+                millis(timing.getAppNanos()),
+                millis(timing.getPhaseNanos(RequestTiming.Phase.JSON)));
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    /**
+     * Sets the Server-Timing header once, when the body is about to be written or at the end of the request
+     */
+    private static class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTiming timing;
+        private boolean headerAdded;
+
+        ServerTimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addHeader();
+            super.sendRedirect(location);
+        }
+
+        void addHeader() {
+            if (!headerAdded && !isCommitted()) {
+                setHeader(HEADER, timing.toHeader());
+            }
+            headerAdded = true;
+        }
+    }
+}
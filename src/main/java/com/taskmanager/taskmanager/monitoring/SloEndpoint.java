@@ -0,0 +1,29 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint at /actuator/slo with the error budget burn rates of the API's objectives
+ */
+@Component
+@Endpoint(id = "slo")
+public class SloEndpoint {
+
+    @Autowired
+    private SloMonitor sloMonitor;
+
+    /**
+     * Evaluate the objectives now
+     *
+     * @return The status of each objective
+     */
+    @ReadOperation
+    public List<SloStatus> slo() {
+        return sloMonitor.evaluate();
+    }
+}
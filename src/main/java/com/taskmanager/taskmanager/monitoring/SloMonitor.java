@@ -0,0 +1,202 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Evaluates the API's service level objectives.
+ *
+ * It observes the same HTTP server requests as the http.server.requests timers,
+ * actuator endpoints excepted, and counts them as they complete, so the result does
+ * not depend on how a meter registry windows its histograms. Every sample interval
+ * the cumulative counts are recorded; the error budget burn rate over a window is
+ * the share of bad requests since the sample at the start of the window, divided by
+ * the share the objective allows. A burn rate of 1 spends the budget exactly over
+ * the SLO period.
+ *
+ * Alerts follow the multi-window scheme: page when both the 1 hour and 5 minute
+ * burn rates exceed 14.4 (2% of a 30 day budget in an hour), raise a ticket when
+ * both the 6 hour and 30 minute burn rates exceed 6.
+ */
+@Component
+public class SloMonitor implements ObservationHandler<ServerRequestObservationContext> {
+
+    private static final String START_NANOS = SloMonitor.class.getName() + ".start";
+
+    private static final Duration[] WINDOWS = {
+            Duration.ofMinutes(5), Duration.ofMinutes(30), Duration.ofHours(1), Duration.ofHours(6)
+    };
+
+    private static final double PAGE_BURN_RATE = 14.4;
+    private static final double TICKET_BURN_RATE = 6;
+
+    @Value("${slo.latency.threshold-ms:500}")
+    private long latencyThresholdMillis;
+
+    @Value("${slo.latency.objective:0.99}")
+    private double latencyObjective;
+
+    @Value("${slo.availability.objective:0.999}")
+    private double availabilityObjective;
+
+    @Value("${slo.sample-interval-ms:60000}")
+    private long sampleIntervalMillis;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    // Oldest first; written by the scheduler, read by the endpoint
+    private final Deque<Totals> samples = new ArrayDeque<>();
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof ServerRequestObservationContext;
+    }
+
+    @Override
+    public void onStart(ServerRequestObservationContext context) {
+        context.put(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void onStop(ServerRequestObservationContext context) {
+        Long startNanos = context.get(START_NANOS);
+        if (startNanos == null || context.getCarrier().getRequestURI().startsWith("/actuator")) {
+            return;
+        }
+        HttpServletResponse response = context.getResponse();
+        record(System.nanoTime() - startNanos,
+                context.getError() != null || (response != null && response.getStatus() >= 500));
+    }
+
+    /**
+     * Count a completed request
+     *
+     * @param nanos How long the request took
+     * @param serverError Whether it failed with a server error
+     */
+    void record(long nanos, boolean serverError) {
+        requests.increment();
+        if (nanos > latencyThresholdMillis * 1_000_000) {
+            slow.increment();
+        }
+        if (serverError) {
+            failed.increment();
+        }
+    }
+
+    /**
+     * Record the current request counts, dropping samples older than the longest window
+     */
+    @Scheduled(fixedRateString = "${slo.sample-interval-ms:60000}")
+    public void sample() {
+        Totals totals = totals();
+        // One interval of slack keeps a baseline at or before the start of the longest window
+        long oldest = totals.time - WINDOWS[WINDOWS.length - 1].toMillis() - sampleIntervalMillis;
+        synchronized (samples) {
+            samples.addLast(totals);
+            while (samples.getFirst().time < oldest) {
+                samples.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Evaluate every objective over every window
+     *
+     * @return The status of the latency and availability objectives
+     */
+    public List<SloStatus> evaluate() {
+        Totals now = totals();
+        List<Totals> history;
+        synchronized (samples) {
+            history = new ArrayList<>(samples);
+        }
+        return List.of(
+                status("latency", "Requests served within " + latencyThresholdMillis + " ms", latencyObjective,
+                        now, history, t -> t.slow),
+                status("availability", "Requests served without a server error", availabilityObjective,
+                        now, history, t -> t.failed));
+    }
+
+    private SloStatus status(String name, String description, double objective, Totals now, List<Totals> history,
+                             ToLongFunction<Totals> bad) {
+        List<SloStatus.Window> windows = new ArrayList<>();
+        for (Duration window : WINDOWS) {
+            Totals baseline = baseline(history, now, now.time - window.toMillis());
+            long requests = now.requests - baseline.requests;
+            long badRequests = bad.applyAsLong(now) - bad.applyAsLong(baseline);
+            double errorRatio = requests == 0 ? 0 : (double) badRequests / requests;
+            windows.add(new SloStatus.Window(
+                    window.toString(),
+                    Duration.ofMillis(now.time - baseline.time).toSeconds(),
+                    requests,
+                    badRequests,
+                    errorRatio,
+                    errorRatio / (1 - objective)));
+        }
+        String alert = "ok";
+        if (windows.get(2).getBurnRate() > PAGE_BURN_RATE && windows.get(0).getBurnRate() > PAGE_BURN_RATE) {
+            alert = "page";
+        } else if (windows.get(3).getBurnRate() > TICKET_BURN_RATE && windows.get(1).getBurnRate() > TICKET_BURN_RATE) {
+            alert = "ticket";
+        }
+        return new SloStatus(name, description, objective, alert, windows);
+    }
+
+    /**
+     * Get the newest sample taken at or before a time, or the oldest one if the history is shorter than that
+     */
+    private static Totals baseline(List<Totals> history, Totals now, long time) {
+        if (history.isEmpty()) {
+            return now;
+        }
+        Totals baseline = history.get(0);
+        for (Totals sample : history) {
+            if (sample.time > time) {
+                break;
+            }
+            baseline = sample;
+        }
+        return baseline;
+    }
+
+    private Totals totals() {
+        return new Totals(clock.millis(), requests.sum(), slow.sum(), failed.sum());
+    }
+
+    /**
+     * Cumulative request counts at a point in time
+     */
+    private static class Totals {
+
+        final long time;
+        final long requests;
+        final long slow;
+        final long failed;
+
+        Totals(long time, long requests, long slow, long failed) {
+            this.time = time;
+            this.requests = requests;
+            this.slow = slow;
+            this.failed = failed;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Error budget burn rates of one service level objective
+ */
+@Value
+public class SloStatus {
+    String name;
+    String description;
+    double objective;
+    // ok, ticket or page
+    String alert;
+    List<Window> windows;
+
+    @Value
+    public static class Window {
+        String window;
+        // Shorter than the window while the application has not been up that long
+        long coveredSeconds;
+        long requests;
+        long badRequests;
+        double errorRatio;
+        double burnRate;
+    }
+}
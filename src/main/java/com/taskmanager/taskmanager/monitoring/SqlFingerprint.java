@@ -0,0 +1,36 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL statements so that executions of the same statement share a fingerprint.
+ *
+ * Literals become placeholders, IN lists of any length collapse to one entry and
+ * whitespace is collapsed. The fingerprint never contains the values a statement
+ * was run with, so it is safe to log and to expose.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/|--[^\\n]*", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.$])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin \\(\\?(?: ?, ?\\?)+\\)");
+
+    private SqlFingerprint() {
+    }
+
+    /**
+     * Get the fingerprint of a statement
+     *
+     * @param sql The SQL as sent to the driver
+     * @return The normalized statement
+     */
+    public static String of(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = COMMENT.matcher(normalized).replaceAll(" ");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return IN_LIST.matcher(normalized).replaceAll("in (?...)");
+    }
+}
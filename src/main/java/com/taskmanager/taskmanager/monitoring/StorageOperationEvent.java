@@ -0,0 +1,31 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for staging, writing or opening a file in storage
+ */
+@Name("taskmanager.StorageOperation")
+@Label("Storage Operation")
+@Category({"Taskmanager", "Storage"})
+@Description("Staging, writing or opening a file in storage")
+public class StorageOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Storage Path")
+    public String storagePath;
+
+    @Label("Size")
+    @Description("Size of the file or byte range, 0 if not known when the operation started")
+    @DataAmount
+    public long size;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,22 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for creating, updating or deleting a task; Hibernate's own events show the flush
+ */
+@Name("taskmanager.TaskWrite")
+@Label("Task Write")
+@Category({"Taskmanager", "Tasks"})
+@Description("Creation, update or deletion of a task")
+public class TaskWriteEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Task Id")
+    public long taskId;
+}
@@ -0,0 +1,48 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.FastByteArrayOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Jackson converter that times response serialization for {@link RequestTiming}.
+ *
+ * Serializing straight into the response would commit it before the time is known,
+ * so the body is serialized into a buffer first, then written in one go.
+ */
+public class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = RequestTiming.beginPhase(RequestTiming.Phase.JSON);
+        FastByteArrayOutputStream buffer = new FastByteArrayOutputStream(1024);
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return buffer;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        RequestTiming.endPhase(RequestTiming.Phase.JSON, start);
+        if (outputMessage.getHeaders().getContentLength() < 0) {
+            outputMessage.getHeaders().setContentLength(buffer.size());
+        }
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
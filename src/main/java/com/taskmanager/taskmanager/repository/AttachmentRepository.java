@@ -2,12 +2,43 @@ package com.taskmanager.taskmanager.repository;
 
 import com.taskmanager.taskmanager.model.Attachment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
     List<Attachment> findByTaskId(Long taskId);
     List<Attachment> findByUserId(Long userId);
+
+    @Query("SELECT a FROM Attachment a JOIN FETCH a.task t JOIN FETCH t.user WHERE a.id = :id")
+    Optional<Attachment> findWithTaskOwnerById(@Param("id") Long id);
+
+    boolean existsByFilePath(String filePath);
+
+    long countByUserId(Long userId);
+
+    @Query("SELECT COALESCE(SUM(a.fileSize), 0) FROM Attachment a WHERE a.user.id = :userId")
+    long sumFileSizeByUserId(@Param("userId") Long userId);
+
+    // A page of the distinct paths after a given one, sorted by code point to match the storage listing.
+    // Seeks an index only if the database collation is C or file_path COLLATE "C" is indexed.
+    @Query(value = "SELECT DISTINCT file_path COLLATE \"C\" FROM attachments WHERE file_path COLLATE \"C\" > :after "
+            + "ORDER BY 1 LIMIT :limit", nativeQuery = true)
+    List<String> findFilePathsAfter(@Param("after") String after, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.thumbnailType = :thumbnailType WHERE a.contentHash = :contentHash")
+    int updateThumbnailTypeByContentHash(@Param("contentHash") String contentHash, @Param("thumbnailType") String thumbnailType);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.thumbnailType = :thumbnailType WHERE a.id = :id")
+    int updateThumbnailType(@Param("id") Long id, @Param("thumbnailType") String thumbnailType);
 }
@@ -1,6 +1,7 @@
 package com.taskmanager.taskmanager.repository;
 
 import com.taskmanager.taskmanager.model.Comment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +12,7 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByTaskIdOrderByCreatedAtDesc(Long taskId);
     List<Comment> findByTaskIdAndParentCommentIsNullOrderByCreatedAtDesc(Long taskId);
     List<Comment> findByParentCommentIdOrderByCreatedAtAsc(Long parentId);
+
+    @EntityGraph(attributePaths = "user")
+    List<Comment> findWithUserByTaskIdOrderByCreatedAtAsc(Long taskId);
 }
@@ -0,0 +1,37 @@
+package com.taskmanager.taskmanager.repository;
+
+import com.taskmanager.taskmanager.model.FileOperation;
+import com.taskmanager.taskmanager.model.FileOperationType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FileOperationRepository extends JpaRepository<FileOperation, Long> {
+
+    boolean existsByTypeAndStoragePath(FileOperationType type, String storagePath);
+
+    @Query("SELECT o.id FROM FileOperation o WHERE o.nextAttemptAt <= :now ORDER BY o.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Takes a due operation for one attempt; 0 if another worker took it first
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileOperation o SET o.nextAttemptAt = :leaseUntil WHERE o.id = :id AND o.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileOperation o SET o.attempts = o.attempts + 1, o.nextAttemptAt = :nextAttemptAt, o.lastError = :lastError "
+            + "WHERE o.id = :id")
+    int recordFailure(@Param("id") Long id,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("lastError") String lastError);
+}
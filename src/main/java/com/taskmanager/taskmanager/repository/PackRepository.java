@@ -0,0 +1,44 @@
+package com.taskmanager.taskmanager.repository;
+
+import com.taskmanager.taskmanager.model.Pack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PackRepository extends JpaRepository<Pack, Long> {
+
+    Optional<Pack> findFirstBySealedFalseAndRetiredAtIsNullOrderByIdDesc();
+
+    @Modifying
+    @Query("UPDATE Pack p SET p.size = CASE WHEN p.size < :end THEN :end ELSE p.size END, "
+            + "p.liveBytes = p.liveBytes + :liveBytes WHERE p.id = :id")
+    int recordAppend(@Param("id") Long id, @Param("end") long end, @Param("liveBytes") long liveBytes);
+
+    @Modifying
+    @Query("UPDATE Pack p SET p.liveBytes = p.liveBytes - :bytes WHERE p.id = :id")
+    int releaseBytes(@Param("id") Long id, @Param("bytes") long bytes);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Pack p SET p.sealed = true WHERE p.id = :id")
+    int seal(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Pack p SET p.retiredAt = :retiredAt WHERE p.id = :id")
+    int retire(@Param("id") Long id, @Param("retiredAt") LocalDateTime retiredAt);
+
+    @Query("SELECT p FROM Pack p WHERE p.sealed = true AND p.retiredAt IS NULL "
+            + "AND CAST(p.size - p.liveBytes AS double) >= :minDeadRatio * CAST(p.size AS double) ORDER BY p.id")
+    List<Pack> findCompactionCandidates(@Param("minDeadRatio") double minDeadRatio);
+
+    List<Pack> findByRetiredAtBefore(LocalDateTime cutoff);
+}
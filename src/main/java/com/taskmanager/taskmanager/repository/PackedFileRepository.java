@@ -0,0 +1,34 @@
+package com.taskmanager.taskmanager.repository;
+
+import com.taskmanager.taskmanager.model.PackedFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PackedFileRepository extends JpaRepository<PackedFile, String> {
+
+    List<PackedFile> findByPackIdOrderByOffset(Long packId);
+
+    long countByPackId(Long packId);
+
+    // Packed files are not in the storage listing, so orphans are found by joining the index with the attachments
+    @Query("SELECT f.storagePath FROM PackedFile f WHERE f.createdAt < :cutoff "
+            + "AND NOT EXISTS (SELECT 1 FROM Attachment a WHERE a.filePath = f.storagePath)")
+    List<String> findUnreferencedPaths(@Param("cutoff") LocalDateTime cutoff);
+
+    // Moves an entry copied by compaction; 0 if it was deleted or replaced meanwhile
+    @Modifying
+    @Query("UPDATE PackedFile f SET f.packId = :newPackId, f.offset = :newOffset "
+            + "WHERE f.storagePath = :storagePath AND f.packId = :packId AND f.offset = :offset")
+    int relocate(@Param("storagePath") String storagePath,
+                 @Param("packId") Long packId,
+                 @Param("offset") long offset,
+                 @Param("newPackId") Long newPackId,
+                 @Param("newOffset") long newOffset);
+}
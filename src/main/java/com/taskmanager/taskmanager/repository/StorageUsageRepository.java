@@ -0,0 +1,72 @@
+package com.taskmanager.taskmanager.repository;
+
+import com.taskmanager.taskmanager.model.StorageUsage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, Long> {
+
+    @Modifying
+    @Query("UPDATE StorageUsage s SET s.usedBytes = s.usedBytes + :bytes, s.attachmentCount = s.attachmentCount + :count, "
+            + "s.updatedAt = :updatedAt WHERE s.userId = :userId")
+    int addUsage(@Param("userId") Long userId,
+                 @Param("bytes") long bytes,
+                 @Param("count") long count,
+                 @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("UPDATE StorageUsage s SET s.usedBytes = s.usedBytes + :bytes, s.attachmentCount = s.attachmentCount + :count, "
+            + "s.updatedAt = :updatedAt WHERE s.userId = :userId AND s.usedBytes + :bytes <= :quota")
+    int addUsageWithinQuota(@Param("userId") Long userId,
+                            @Param("bytes") long bytes,
+                            @Param("count") long count,
+                            @Param("quota") long quota,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Native statements invalidate every cached region unless they name the tables they write
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "storage_usage"))
+    @Modifying
+    @Query(value = "INSERT INTO storage_usage (user_id, used_bytes, attachment_count, updated_at) "
+            + "VALUES (:userId, 0, 0, :updatedAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StorageUsage s WHERE s.userId = :userId")
+    Optional<StorageUsage> findForUpdate(@Param("userId") Long userId);
+
+    interface Consumer {
+        Long getUserId();
+        String getUsername();
+        long getUsedBytes();
+        long getAttachmentCount();
+    }
+
+    @Query("SELECT s.userId AS userId, u.username AS username, s.usedBytes AS usedBytes, s.attachmentCount AS attachmentCount "
+            + "FROM StorageUsage s JOIN User u ON u.id = s.userId ORDER BY s.usedBytes DESC")
+    List<Consumer> findTopConsumers(Pageable pageable);
+
+    // Users whose counters differ from their attachments, including users without a counter yet
+    @Query(value = "SELECT s.user_id FROM storage_usage s "
+            + "LEFT JOIN (SELECT user_id, SUM(COALESCE(file_size, 0)) AS used_bytes, COUNT(*) AS attachment_count "
+            + "FROM attachments GROUP BY user_id) a ON a.user_id = s.user_id "
+            + "WHERE COALESCE(a.used_bytes, 0) <> s.used_bytes OR COALESCE(a.attachment_count, 0) <> s.attachment_count "
+            + "UNION "
+            + "SELECT DISTINCT a.user_id FROM attachments a "
+            + "WHERE a.user_id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM storage_usage s WHERE s.user_id = a.user_id)",
+            nativeQuery = true)
+    List<Long> findUsersWithDrift();
+}
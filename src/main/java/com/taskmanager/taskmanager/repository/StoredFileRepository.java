@@ -0,0 +1,57 @@
+package com.taskmanager.taskmanager.repository;
+
+import com.taskmanager.taskmanager.model.StoredFile;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.referenceCount = f.referenceCount + 1 WHERE f.contentHash = :contentHash")
+    int incrementReferenceCount(@Param("contentHash") String contentHash);
+
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.referenceCount = f.referenceCount - 1 WHERE f.contentHash = :contentHash")
+    int decrementReferenceCount(@Param("contentHash") String contentHash);
+
+    @Modifying
+    @Query("DELETE FROM StoredFile f WHERE f.contentHash = :contentHash AND f.referenceCount <= 0")
+    int deleteIfUnreferenced(@Param("contentHash") String contentHash);
+
+    @Modifying
+    @Query("DELETE FROM StoredFile f WHERE f.contentHash = :contentHash")
+    int deleteByContentHash(@Param("contentHash") String contentHash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM StoredFile f WHERE f.contentHash = :contentHash")
+    Optional<StoredFile> findForUpdate(@Param("contentHash") String contentHash);
+
+    // Native statements invalidate every cached region unless they name the tables they write
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stored_files"))
+    @Modifying
+    @Query(value = "INSERT INTO stored_files (content_hash, storage_path, size, codec, reference_count, created_at) "
+            + "VALUES (:contentHash, :storagePath, :size, :codec, 1, :createdAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("contentHash") String contentHash,
+                       @Param("storagePath") String storagePath,
+                       @Param("size") long size,
+                       @Param("codec") String codec,
+                       @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.codec = :codec, f.size = :size WHERE f.contentHash = :contentHash")
+    int updateEncoding(@Param("contentHash") String contentHash,
+                       @Param("codec") String codec,
+                       @Param("size") long size);
+}
@@ -10,4 +10,5 @@ import java.util.List;
 public interface SubtaskRepository extends JpaRepository<Subtask, Long> {
     List<Subtask> findByTaskId(Long taskId);
     List<Subtask> findByTaskIdOrderByPositionAsc(Long taskId);
+    long countByTaskId(Long taskId);
 }
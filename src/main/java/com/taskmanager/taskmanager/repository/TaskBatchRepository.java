@@ -0,0 +1,147 @@
+package com.taskmanager.taskmanager.repository;
+
+import com.taskmanager.taskmanager.model.TaskStatus;
+import com.taskmanager.taskmanager.service.TemplateInstantiationPlan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch writer for bulk task creation.
+ *
+ * Task IDs use IDENTITY generation, which disables Hibernate's insert batching,
+ * so bulk paths write tasks, category links and subtasks through JDBC batches
+ * instead. Writes join the surrounding JPA transaction.
+ */
+@Repository
+public class TaskBatchRepository {
+
+    private static final String INSERT_TASK =
+            "INSERT INTO tasks (title, description, status, priority, due_date, completed, recurring, user_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_TASK_CATEGORY =
+            "INSERT INTO task_categories (task_id, category_id) VALUES (?, ?)";
+
+    private static final String INSERT_SUBTASK =
+            "INSERT INTO subtasks (title, description, completed, position, created_at, task_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${task.batch.jdbc-batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Create tasks, with their categories and subtasks, from a template plan
+     *
+     * @param plan The compiled template plan
+     * @param userId The ID of the user owning the new tasks
+     * @param dueDate The due date of the new tasks
+     * @param titles The rendered title of each task
+     * @param descriptions The rendered description of each task
+     * @return The IDs of the created tasks, in insertion order
+     */
+    public List<Long> insertTasksFromPlan(TemplateInstantiationPlan plan, Long userId, LocalDate dueDate,
+                                          List<String> titles, List<String> descriptions) {
+        Date sqlDueDate = Date.valueOf(dueDate);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        int count = titles.size();
+
+        List<Long> taskIds = new ArrayList<>(count);
+        for (int offset = 0; offset < count; offset += batchSize) {
+            insertTasks(plan, userId, sqlDueDate, titles, descriptions, offset, Math.min(batchSize, count - offset), taskIds);
+        }
+
+        List<Long> categoryIds = plan.getCategoryIds();
+        if (!categoryIds.isEmpty()) {
+            executeInChunks(INSERT_TASK_CATEGORY, taskIds.size() * categoryIds.size(), (ps, i) -> {
+                ps.setLong(1, taskIds.get(i / categoryIds.size()));
+                ps.setLong(2, categoryIds.get(i % categoryIds.size()));
+            });
+        }
+
+        List<TemplateInstantiationPlan.SubtaskSpec> subtasks = plan.getSubtasks();
+        if (!subtasks.isEmpty()) {
+            executeInChunks(INSERT_SUBTASK, taskIds.size() * subtasks.size(), (ps, i) -> {
+                TemplateInstantiationPlan.SubtaskSpec spec = subtasks.get(i % subtasks.size());
+                ps.setString(1, spec.getTitle());
+                ps.setString(2, spec.getDescription());
+                ps.setBoolean(3, false);
+                ps.setInt(4, spec.getPosition());
+                ps.setTimestamp(5, createdAt);
+                ps.setLong(6, taskIds.get(i / subtasks.size()));
+            });
+        }
+
+        return taskIds;
+    }
+
+    private void insertTasks(TemplateInstantiationPlan plan, Long userId, Date dueDate, List<String> titles,
+                             List<String> descriptions, int offset, int size, List<Long> taskIds) {
+        KeyHolder keyHolder = new GeneratedKeyHolder(new ArrayList<>(size));
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_TASK, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, titles.get(offset + i));
+                        ps.setString(2, descriptions.get(offset + i));
+                        ps.setString(3, TaskStatus.TODO.name());
+                        ps.setString(4, plan.getPriority().name());
+                        ps.setDate(5, dueDate);
+                        ps.setBoolean(6, false);
+                        ps.setBoolean(7, false);
+                        ps.setLong(8, userId);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                },
+                keyHolder);
+
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            taskIds.add(((Number) keys.values().iterator().next()).longValue());
+        }
+    }
+
+    private void executeInChunks(String sql, int total, RowSetter rowSetter) {
+        for (int offset = 0; offset < total; offset += batchSize) {
+            int chunkOffset = offset;
+            int chunkSize = Math.min(batchSize, total - offset);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    rowSetter.setValues(ps, chunkOffset + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return chunkSize;
+                }
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void setValues(PreparedStatement ps, int row) throws SQLException;
+    }
+}
@@ -1,6 +1,7 @@
 package com.taskmanager.taskmanager.repository;
 
 import com.taskmanager.taskmanager.model.TaskCollaborator;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,6 +12,9 @@ import java.util.Optional;
 public interface TaskCollaboratorRepository extends JpaRepository<TaskCollaborator, Long> {
     List<TaskCollaborator> findByTaskId(Long taskId);
     List<TaskCollaborator> findByUserId(Long userId);
+
+    @EntityGraph(attributePaths = "task")
+    List<TaskCollaborator> findWithTaskByUserId(Long userId);
     Optional<TaskCollaborator> findByTaskIdAndUserId(Long taskId, Long userId);
     boolean existsByTaskIdAndUserId(Long taskId, Long userId);
 }
@@ -1,13 +1,37 @@
 package com.taskmanager.taskmanager.repository;
 
 import com.taskmanager.taskmanager.model.TaskTemplate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TaskTemplateRepository extends JpaRepository<TaskTemplate, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<TaskTemplate> findByUserId(Long userId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<TaskTemplate> findByUserIdOrderByNameAsc(Long userId);
+
+    @Query("SELECT t FROM TaskTemplate t WHERE t.user.id = :userId ORDER BY t.name ASC, t.id ASC")
+    List<TaskTemplate> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT t FROM TaskTemplate t WHERE t.user.id = :userId "
+            + "AND (t.name > :afterName OR (t.name = :afterName AND t.id > :afterId)) "
+            + "ORDER BY t.name ASC, t.id ASC")
+    List<TaskTemplate> findPageByUserIdAfter(@Param("userId") Long userId,
+                                             @Param("afterName") String afterName,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Query("SELECT t.id, c.id FROM TaskTemplate t JOIN t.categories c WHERE t.id IN :templateIds")
+    List<Object[]> findCategoryIdsByTemplateIds(@Param("templateIds") Collection<Long> templateIds);
 }
@@ -1,13 +1,30 @@
 package com.taskmanager.taskmanager.repository;
 
 import com.taskmanager.taskmanager.model.TemplateSubtask;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TemplateSubtaskRepository extends JpaRepository<TemplateSubtask, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<TemplateSubtask> findByTemplateId(Long templateId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<TemplateSubtask> findByTemplateIdOrderByPositionAsc(Long templateId);
+
+    long countByTemplateId(Long templateId);
+
+    @Query("SELECT s FROM TemplateSubtask s WHERE s.template.id IN :templateIds ORDER BY s.template.id ASC, s.position ASC")
+    List<TemplateSubtask> findByTemplateIds(@Param("templateIds") Collection<Long> templateIds);
+
+    @Query("SELECT s.template.id, COUNT(s) FROM TemplateSubtask s WHERE s.template.id IN :templateIds GROUP BY s.template.id")
+    List<Object[]> countByTemplateIds(@Param("templateIds") Collection<Long> templateIds);
 }
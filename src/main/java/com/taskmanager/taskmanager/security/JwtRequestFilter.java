@@ -1,5 +1,7 @@
 package com.taskmanager.taskmanager.security;
 
+import com.taskmanager.taskmanager.monitoring.JwtAuthenticationEvent;
+import com.taskmanager.taskmanager.monitoring.RequestTiming;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -31,18 +33,13 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         try {
             String jwt = parseJwt(request);
             if (jwt != null) {
-                String username = jwtUtil.extractUsername(jwt);
-
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                    if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
-
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    }
+                // Also committed when the token is rejected, so failed verifications show up in a recording
+                JwtAuthenticationEvent event = new JwtAuthenticationEvent();
+                event.begin();
+                try {
+                    event.authenticated = authenticate(jwt, request);
+                } finally {
+                    event.commit();
                 }
             }
         } catch (Exception e) {
@@ -52,6 +49,37 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         chain.doFilter(request, response);
     }
 
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Signed downloads are authorized by their token; loading the user would cost a query per file
+        return request.getRequestURI().startsWith(request.getContextPath() + "/api/files/");
+    }
+
+    private boolean authenticate(String jwt, HttpServletRequest request) {
+        long start = RequestTiming.beginPhase(RequestTiming.Phase.AUTH);
+        String username = jwtUtil.extractUsername(jwt);
+        RequestTiming.endPhase(RequestTiming.Phase.AUTH, start);
+
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            start = RequestTiming.beginPhase(RequestTiming.Phase.USER);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            RequestTiming.endPhase(RequestTiming.Phase.USER, start);
+
+            start = RequestTiming.beginPhase(RequestTiming.Phase.AUTH);
+            boolean valid = jwtUtil.validateToken(jwt, userDetails.getUsername());
+            RequestTiming.endPhase(RequestTiming.Phase.AUTH, start);
+            if (valid) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
+
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                return true;
+            }
+        }
+        return false;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
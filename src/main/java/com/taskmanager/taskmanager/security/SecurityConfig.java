@@ -34,7 +34,10 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable) // Disable CSRF
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll() // Permit auth endpoints
+                        .requestMatchers("/api/files/**").permitAll() // Signed download URLs carry their own authorization
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll() // Permit Swagger UI
+                        .requestMatchers("/actuator/health/**").authenticated()
+                        .requestMatchers("/actuator/**").hasAuthority("ROLE_ADMIN") // Metrics and SQL statistics are for admins only
                         .anyRequest().authenticated() // Secure all other endpoints
                 )
                 .sessionManagement(session -> session
@@ -0,0 +1,113 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.Attachment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ZIP archives of attachments, assembled while they are written to the client.
+ *
+ * Each file is read from storage, decoded if it is compressed at rest, and copied
+ * into the archive through one fixed-size buffer, so memory use does not grow with
+ * the archive and nothing is written to disk. Formats that are already compressed
+ * are written at compression level 0 instead of being deflated again.
+ */
+@Slf4j
+@Service
+public class AttachmentArchiveService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${attachment.archive.compression-level:6}")
+    private int compressionLevel;
+
+    @Value("${attachment.archive.stored-content-types:image/jpeg,image/png,image/gif,image/webp,image/avif,image/heic,audio/*,video/*,application/zip,application/gzip,application/x-gzip,application/x-7z-compressed,application/x-rar-compressed,application/x-bzip2,application/x-xz,application/zstd,application/pdf,application/vnd.openxmlformats-officedocument.*,application/vnd.oasis.opendocument.*}")
+    private String[] storedContentTypes;
+
+    /**
+     * Write attachments as a ZIP archive
+     *
+     * Files missing from storage are left out. The stream is flushed but not closed.
+     *
+     * @param attachments The attachments to include
+     * @param out The stream to write the archive to
+     * @throws IOException If an error occurs while reading a file or writing the archive
+     */
+    public void writeArchive(List<Attachment> attachments, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE), StandardCharsets.UTF_8);
+        Set<String> entryNames = new HashSet<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        for (Attachment attachment : attachments) {
+            InputStream content;
+            try {
+                content = FileStorageService.decode(fileStorageService.openStored(attachment.getFilePath(), 0, -1),
+                        attachment.getStorageCodec());
+            } catch (NoSuchFileException e) {
+                log.warn("Leaving missing file {} of attachment {} out of the archive", attachment.getFilePath(), attachment.getId());
+                continue;
+            }
+
+            try (content) {
+                ZipEntry entry = new ZipEntry(entryName(attachment, entryNames));
+                if (attachment.getUploadDate() != null) {
+                    entry.setTimeLocal(attachment.getUploadDate());
+                }
+                // Applies from the next entry on; the method stays DEFLATED so no CRC is needed up front
+                zip.setLevel(isCompressed(attachment.getFileType()) ? Deflater.NO_COMPRESSION : compressionLevel);
+                zip.putNextEntry(entry);
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                }
+                zip.closeEntry();
+            }
+        }
+
+        zip.finish();
+        zip.flush();
+    }
+
+    private boolean isCompressed(String contentType) {
+        return FileStorageService.matchesContentType(contentType, storedContentTypes);
+    }
+
+    /**
+     * A flat, unique entry name for an attachment: "name.ext", then "name (1).ext" and so on
+     */
+    private static String entryName(Attachment attachment, Set<String> entryNames) {
+        String fileName = attachment.getFileName() == null ? "" : attachment.getFileName().replaceAll("[/\\\\\\p{Cntrl}]", "_").trim();
+        if (fileName.isEmpty() || fileName.equals(".") || fileName.equals("..")) {
+            fileName = "attachment-" + attachment.getId();
+        }
+
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String extension = dot > 0 ? fileName.substring(dot) : "";
+        String name = fileName;
+        // Compared case-insensitively so the archive extracts cleanly on case-insensitive filesystems
+        for (int i = 1; !entryNames.add(name.toLowerCase(Locale.ROOT)); i++) {
+            name = base + " (" + i + ")" + extension;
+        }
+        return name;
+    }
+}
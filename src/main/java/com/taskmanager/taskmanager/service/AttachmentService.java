@@ -1,12 +1,18 @@
 package com.taskmanager.taskmanager.service;
 
 import com.taskmanager.taskmanager.model.Attachment;
+import com.taskmanager.taskmanager.model.StoredFile;
 import com.taskmanager.taskmanager.model.Task;
 import com.taskmanager.taskmanager.model.User;
 import com.taskmanager.taskmanager.repository.AttachmentRepository;
+import com.taskmanager.taskmanager.repository.StoredFileRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -14,7 +20,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+@Slf4j
 @Service
+@Timed("taskmanager.service")
 public class AttachmentService {
 
     @Autowired
@@ -23,6 +31,21 @@ public class AttachmentService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private FileOperationService fileOperationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     /**
      * Save an attachment for a task
      * 
@@ -31,22 +54,71 @@ public class AttachmentService {
      * @param user The user uploading the file
      * @return The saved attachment
      * @throws IOException If an error occurs during file storage
+     * @throws StorageQuotaService.QuotaExceededException If the file would take the user over their storage quota
      */
-    @Transactional
     public Attachment saveAttachment(MultipartFile file, Task task, User user) throws IOException {
-        String fileName = fileStorageService.storeFile(file);
-        
-        Attachment attachment = Attachment.builder()
-                .fileName(file.getOriginalFilename())
-                .fileType(file.getContentType())
-                .filePath(fileName)
-                .fileSize(file.getSize())
-                .uploadDate(LocalDateTime.now())
-                .task(task)
-                .user(user)
-                .build();
+        boolean compress = fileStorageService.isCompressible(file.getContentType(), file.getSize());
+        FileStorageService.StagedFile stagedFile = fileStorageService.stage(file.getInputStream(), compress);
+        return saveStagedAttachment(stagedFile, file.getOriginalFilename(), file.getContentType(), task, user);
+    }
+    
+    /**
+     * Save an attachment whose content has already been written to staging
+     * 
+     * Only the metadata is written in a transaction. Once it commits the staged file
+     * is moved into storage, or discarded if identical content is already stored; if
+     * saving fails it is discarded.
+     * 
+     * @param stagedFile The staged content
+     * @param fileName The original name of the file
+     * @param fileType The content type of the file
+     * @param task The task to attach the file to
+     * @param user The user uploading the file
+     * @return The saved attachment
+     * @throws IOException If an error occurs during file storage
+     * @throws StorageQuotaService.QuotaExceededException If the file would take the user over their storage quota
+     */
+    public Attachment saveStagedAttachment(FileStorageService.StagedFile stagedFile, String fileName, String fileType,
+                                           Task task, User user) throws IOException {
+        return saveStagedAttachment(stagedFile, fileName, fileType, task, user, true);
+    }
+    
+    /**
+     * Save an attachment whose content has already been written to staging, optionally keeping the staged file if saving fails
+     * 
+     * @param stagedFile The staged content
+     * @param fileName The original name of the file
+     * @param fileType The content type of the file
+     * @param task The task to attach the file to
+     * @param user The user uploading the file
+     * @param discardOnFailure Whether to discard the staged file if saving fails; false lets the caller retry the save
+     * @return The saved attachment
+     * @throws IOException If an error occurs during file storage
+     * @throws StorageQuotaService.QuotaExceededException If the file would take the user over their storage quota
+     */
+    public Attachment saveStagedAttachment(FileStorageService.StagedFile stagedFile, String fileName, String fileType,
+                                           Task task, User user, boolean discardOnFailure) throws IOException {
+        SavedAttachment saved;
+        try {
+            // Checked before the transaction, so it does no storage I/O
+            boolean stored = fileStorageService.exists(fileStorageService.getStoragePath(stagedFile.getContentHash()));
+            saved = new TransactionTemplate(transactionManager).execute(status ->
+                    insertAttachment(stagedFile, stored, fileName, fileType, task, user));
+        } catch (IOException | RuntimeException e) {
+            if (discardOnFailure) {
+                fileStorageService.discard(stagedFile);
+            }
+            throw e;
+        }
         
-        return attachmentRepository.save(attachment);
+        if (saved.getPlaceOperationId() == null) {
+            fileStorageService.discard(stagedFile);
+        } else if (!fileOperationService.execute(saved.getPlaceOperationId())) {
+            // Committed: the outbox retries the move, until then the content reads as missing
+            log.warn("Attachment {} saved, but its file is not in place yet", saved.getAttachment().getId());
+        }
+        thumbnailService.scheduleThumbnails(saved.getAttachment());
+        return saved.getAttachment();
     }
     
     /**
@@ -69,19 +141,126 @@ public class AttachmentService {
         return attachmentRepository.findById(attachmentId);
     }
     
+    /**
+     * Get an attachment by ID together with its task and the task's owner
+     * 
+     * Lets download paths check access with a single query.
+     * 
+     * @param attachmentId The ID of the attachment
+     * @return The attachment, if found
+     */
+    public Optional<Attachment> getAttachmentWithTaskOwner(Long attachmentId) {
+        return attachmentRepository.findWithTaskOwnerById(attachmentId);
+    }
+    
     /**
      * Delete an attachment
      * 
+     * The stored file is removed after commit, and only when no other attachment references the same content.
+     * 
      * @param attachment The attachment to delete
      * @return true if the attachment was deleted successfully, false otherwise
      */
     @Transactional
     public boolean deleteAttachment(Attachment attachment) {
-        boolean fileDeleted = fileStorageService.deleteFile(attachment.getFilePath());
-        if (fileDeleted) {
-            attachmentRepository.delete(attachment);
-            return true;
+        attachmentRepository.delete(attachment);
+        releaseUsage(attachment);
+        if (attachment.getContentHash() == null) {
+            // Stored before content addressing: the file belongs to this attachment alone
+            fileOperationService.recordDelete(attachment.getFilePath());
+        } else {
+            releaseReference(attachment.getContentHash(), attachment.getFilePath());
+        }
+        return true;
+    }
+
+    private SavedAttachment insertAttachment(FileStorageService.StagedFile stagedFile, boolean stored, String fileName,
+                                             String fileType, Task task, User user) {
+        // Charged first, so an upload over quota is refused before anything else is written
+        storageQuotaService.recordUpload(user.getId(), stagedFile.getSize());
+        
+        Attachment.AttachmentBuilder attachment = Attachment.builder()
+                .fileName(fileName)
+                .fileType(fileType)
+                .fileSize(stagedFile.getSize())
+                .contentHash(stagedFile.getContentHash())
+                .uploadDate(LocalDateTime.now())
+                .task(task)
+                .user(user);
+        Long placeOperationId = acquireReference(stagedFile, stored, attachment);
+        return new SavedAttachment(attachmentRepository.save(attachment.build()), placeOperationId);
+    }
+
+    /**
+     * Add a reference to stored content, and record placing the staged file if the content is not stored yet
+     * 
+     * When the content is already stored, or about to be placed by an earlier upload,
+     * the existing file, with the codec it was stored with, is shared.
+     * 
+     * @param stagedFile The staged upload
+     * @param stored Whether the content was found in storage before the transaction started
+     * @param attachment The attachment to fill in the storage location of
+     * @return The ID of the operation placing the staged file, or null if the staged file is not needed
+     */
+    private Long acquireReference(FileStorageService.StagedFile stagedFile, boolean stored,
+                                  Attachment.AttachmentBuilder attachment) {
+        String contentHash = stagedFile.getContentHash();
+        String storagePath = fileStorageService.getStoragePath(contentHash);
+        attachment.filePath(storagePath)
+                .storageCodec(stagedFile.getCodec())
+                .storedSize(stagedFile.getStoredSize());
+        
+        // The stored_files row lock orders this upload after a concurrent delete of the last reference to the same content
+        if (storedFileRepository.incrementReferenceCount(contentHash) == 0) {
+            if (storedFileRepository.insertIfAbsent(contentHash, storagePath, stagedFile.getStoredSize(),
+                    stagedFile.getCodec(), LocalDateTime.now()) > 0) {
+                // Newly registered: replaces any file left behind by an earlier failed upload
+                return fileOperationService.recordPlace(fileStorageService.getStagingName(stagedFile), storagePath);
+            }
+            // Registered concurrently by another upload of the same content
+            storedFileRepository.incrementReferenceCount(contentHash);
+        }
+        
+        StoredFile storedFile = storedFileRepository.findById(contentHash)
+                .orElseThrow(() -> new IllegalStateException("Stored file not found: " + contentHash));
+        if (!stored && !fileOperationService.isPlacementPending(storedFile.getStoragePath())) {
+            // Registered but missing from storage: this upload restores it
+            storedFileRepository.updateEncoding(contentHash, stagedFile.getCodec(), stagedFile.getStoredSize());
+            return fileOperationService.recordPlace(fileStorageService.getStagingName(stagedFile), storagePath);
+        }
+        
+        attachment.filePath(storedFile.getStoragePath())
+                .storageCodec(storedFile.getCodec())
+                .storedSize(storedFile.getSize());
+        return null;
+    }
+
+    private void releaseUsage(Attachment attachment) {
+        if (attachment.getUser() != null) {
+            storageQuotaService.recordDelete(attachment.getUser().getId(),
+                    attachment.getFileSize() != null ? attachment.getFileSize() : 0);
+        }
+    }
+
+    /**
+     * Drop a reference to stored content, deleting the file after commit when it was the last one
+     * 
+     * @param contentHash The SHA-256 of the content
+     * @param storagePath The storage path of the content
+     */
+    private void releaseReference(String contentHash, String storagePath) {
+        storedFileRepository.decrementReferenceCount(contentHash);
+        if (storedFileRepository.deleteIfUnreferenced(contentHash) > 0) {
+            fileOperationService.recordDelete(storagePath);
         }
-        return false;
+    }
+
+    /**
+     * A committed attachment and the operation that moves its file into place, if any
+     */
+    @lombok.Value
+    private static class SavedAttachment {
+        Attachment attachment;
+        Long placeOperationId;
     }
 }
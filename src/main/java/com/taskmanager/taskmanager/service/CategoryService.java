@@ -2,18 +2,24 @@ package com.taskmanager.taskmanager.service;
 
 import com.taskmanager.taskmanager.model.Category;
 import com.taskmanager.taskmanager.repository.CategoryRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("taskmanager.service")
 public class CategoryService {
 
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private TemplatePlanCache templatePlanCache;
+
     public List<Category> getCategoriesByUserId(Long userId) {
         return categoryRepository.findByUserId(userId);
     }
@@ -22,6 +28,10 @@ public class CategoryService {
         return categoryRepository.findById(id);
     }
 
+    public List<Category> getCategoriesByIds(List<Long> ids) {
+        return categoryRepository.findAllById(ids);
+    }
+
     public Category createCategory(Category category) {
         return categoryRepository.save(category);
     }
@@ -30,7 +40,10 @@ public class CategoryService {
         return categoryRepository.save(category);
     }
 
+    @Transactional
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        // Compiled template plans hold category IDs
+        templatePlanCache.invalidateAll();
     }
 }
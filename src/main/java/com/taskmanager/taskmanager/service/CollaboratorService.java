@@ -5,7 +5,9 @@ import com.taskmanager.taskmanager.model.CollaboratorRole;
 import com.taskmanager.taskmanager.model.Task;
 import com.taskmanager.taskmanager.model.TaskCollaborator;
 import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.monitoring.AccessCheckEvent;
 import com.taskmanager.taskmanager.repository.TaskCollaboratorRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,6 +18,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("taskmanager.service")
 public class CollaboratorService {
 
     @Autowired
@@ -67,10 +70,10 @@ public class CollaboratorService {
      * Get all tasks that a user is a collaborator on
      * 
      * @param userId The ID of the user
-     * @return A list of collaborators
+     * @return A list of collaborators, with their tasks loaded
      */
     public List<TaskCollaborator> getCollaborationsByUserId(Long userId) {
-        return collaboratorRepository.findByUserId(userId);
+        return collaboratorRepository.findWithTaskByUserId(userId);
     }
 
     /**
@@ -127,6 +130,20 @@ public class CollaboratorService {
      * @return true if the user has the required role or higher, false otherwise
      */
     public boolean hasRole(Long taskId, Long userId, CollaboratorRole minimumRole) {
+        AccessCheckEvent event = new AccessCheckEvent();
+        event.begin();
+        boolean granted = checkRole(taskId, userId, minimumRole);
+        if (event.shouldCommit()) {
+            event.taskId = taskId;
+            event.userId = userId;
+            event.minimumRole = minimumRole.name();
+            event.granted = granted;
+            event.commit();
+        }
+        return granted;
+    }
+
+    private boolean checkRole(Long taskId, Long userId, CollaboratorRole minimumRole) {
         Optional<TaskCollaborator> collaboratorOptional = getCollaborator(taskId, userId);
         if (collaboratorOptional.isEmpty()) {
             return false;
@@ -5,17 +5,22 @@ import com.taskmanager.taskmanager.model.Comment;
 import com.taskmanager.taskmanager.model.Task;
 import com.taskmanager.taskmanager.model.User;
 import com.taskmanager.taskmanager.repository.CommentRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("taskmanager.service")
 public class CommentService {
 
     @Autowired
@@ -102,9 +107,27 @@ public class CommentService {
      * @return A list of comment DTOs with nested replies
      */
     public List<CommentDto> getCommentsWithReplies(Long taskId) {
-        List<Comment> topLevelComments = getTopLevelCommentsByTaskId(taskId);
+        // One query for the whole thread; replies are grouped under their parents in memory
+        List<Comment> comments = commentRepository.findWithUserByTaskIdOrderByCreatedAtAsc(taskId);
+        List<Comment> topLevelComments = new ArrayList<>();
+        Map<Long, List<CommentDto>> repliesByParentId = new HashMap<>();
+        for (Comment comment : comments) {
+            if (comment.getParentComment() == null) {
+                topLevelComments.add(comment);
+            } else {
+                repliesByParentId.computeIfAbsent(comment.getParentComment().getId(), id -> new ArrayList<>())
+                        .add(convertToDto(comment, false));
+            }
+        }
+        
+        // Newest threads first, replies oldest first
+        Collections.reverse(topLevelComments);
         return topLevelComments.stream()
-                .map(comment -> convertToDto(comment, true))
+                .map(comment -> {
+                    CommentDto dto = convertToDto(comment, false);
+                    dto.setReplies(repliesByParentId.getOrDefault(comment.getId(), new ArrayList<>()));
+                    return dto;
+                })
                 .collect(Collectors.toList());
     }
     
@@ -0,0 +1,371 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.storage.StorageObject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Serves stored files with HTTP range, validator and conditional request support.
+ *
+ * Bodies of locally stored files never pass through heap buffers: on Tomcat
+ * connectors that support it the transfer is handed to the connector's sendfile,
+ * otherwise it goes through {@link FileChannel#transferTo}. Files in remote storage
+ * are streamed range by range from the backend. Files stored compressed are sent as-is with
+ * {@code Content-Encoding} to clients that accept it and decoded on the fly for the rest.
+ */
+@Service
+public class FileDownloadService {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Below this size a plain channel transfer is cheaper than handing off to sendfile
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private static final int MAX_RANGES = 16;
+
+    /**
+     * Describes a file to serve
+     */
+    @Value
+    @Builder(toBuilder = true)
+    public static class Download {
+        String storagePath;
+        String contentType;
+        String fileName;
+        // Strong validator for immutable content, or null to derive a weak one from size and modification time
+        String etag;
+        String cacheControl;
+        boolean inline;
+        // Codec the file is stored with, or null; served as Content-Encoding to clients that accept it
+        String contentEncoding;
+        // Size of the decoded content, used when decoding for clients that do not accept the encoding
+        Long decodedLength;
+    }
+
+    private static final class Range {
+        private final long start;
+        private final long end;
+
+        private Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private long length() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * Write a file to the response, honouring Range, If-Range, If-None-Match and If-Modified-Since
+     *
+     * @param download The file to serve
+     * @param request The current request
+     * @param response The current response
+     * @return false if the file does not exist and nothing was written, true otherwise
+     * @throws IOException If an error occurs while reading the file or writing the response
+     */
+    public boolean serve(Download download, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Found once and read from where it was found
+        Optional<FileStorageService.StoredFile> found = fileStorageService.find(download.getStoragePath());
+        if (found.isEmpty()) {
+            return false;
+        }
+        FileStorageService.StoredFile storedFile = found.get();
+        StorageObject stored = storedFile.getMetadata();
+        // Zero-copy transfers need the file on local disk
+        Path localPath = storedFile.getLocalPath();
+
+        String encoding = download.getContentEncoding();
+        boolean decode = encoding != null && !acceptsEncoding(request, encoding);
+
+        long length = stored.getSize();
+        // HTTP dates have second precision
+        long lastModified = stored.getLastModified().toEpochMilli() / 1000 * 1000;
+        String etag;
+        if (download.getEtag() != null) {
+            // Each encoding is a separate representation and needs its own validator
+            etag = "\"" + download.getEtag() + (encoding != null && !decode ? "-" + encoding : "") + "\"";
+        } else {
+            etag = "W/\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        }
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, decode ? "none" : "bytes");
+        if (encoding != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (download.getCacheControl() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, download.getCacheControl());
+        }
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        ContentDisposition disposition = (download.isInline() ? ContentDisposition.inline() : ContentDisposition.attachment())
+                .filename(download.getFileName(), StandardCharsets.UTF_8)
+                .build();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+
+        boolean headRequest = "HEAD".equals(request.getMethod());
+
+        if (decode) {
+            // Decoded on the fly, so ranges cannot be served without inflating the skipped prefix
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(download.getContentType());
+            if (download.getDecodedLength() != null) {
+                response.setContentLengthLong(download.getDecodedLength());
+            }
+            if (!headRequest) {
+                try (InputStream in = FileStorageService.decode(fileStorageService.openStored(storedFile, 0, -1), encoding)) {
+                    in.transferTo(response.getOutputStream());
+                }
+            }
+            return true;
+        }
+
+        if (encoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+
+        List<Range> ranges = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isRangeApplicable(request, etag, lastModified)) {
+            ranges = parseRanges(rangeHeader, length);
+            if (ranges != null && ranges.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return true;
+            }
+        }
+
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(download.getContentType());
+            response.setContentLengthLong(length);
+            if (!headRequest) {
+                transfer(storedFile, 0, length, request, response);
+            }
+            return true;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            Range range = ranges.get(0);
+            response.setContentType(download.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start + "-" + range.end + "/" + length);
+            response.setContentLengthLong(range.length());
+            if (!headRequest) {
+                transfer(storedFile, range.start, range.length(), request, response);
+            }
+            return true;
+        }
+
+        String boundary = UUID.randomUUID().toString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        if (headRequest) {
+            return true;
+        }
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        try (FileChannel file = localPath != null ? FileChannel.open(localPath, StandardOpenOption.READ) : null) {
+            for (Range range : ranges) {
+                String partHeader = "\r\n--" + boundary + "\r\n"
+                        + HttpHeaders.CONTENT_TYPE + ": " + download.getContentType() + "\r\n"
+                        + HttpHeaders.CONTENT_RANGE + ": bytes " + range.start + "-" + range.end + "/" + length + "\r\n\r\n";
+                out.write(partHeader.getBytes(StandardCharsets.ISO_8859_1));
+                if (file != null) {
+                    transferFully(file, range.start, range.length(), channel);
+                } else {
+                    try (InputStream in = fileStorageService.openStored(storedFile, range.start, range.length())) {
+                        in.transferTo(out);
+                    }
+                }
+            }
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        return true;
+    }
+
+    private static boolean acceptsEncoding(HttpServletRequest request, String encoding) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        if (headers == null) {
+            return false;
+        }
+
+        while (headers.hasMoreElements()) {
+            for (String token : headers.nextElement().split(",")) {
+                String[] parts = token.split(";");
+                String coding = parts[0].trim();
+                if (!coding.equalsIgnoreCase(encoding) && !coding.equalsIgnoreCase("x-" + encoding) && !coding.equals("*")) {
+                    continue;
+                }
+                boolean rejected = false;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            rejected = Double.parseDouble(parameter.substring(2)) <= 0;
+                        } catch (NumberFormatException e) {
+                            rejected = true;
+                        }
+                    }
+                }
+                if (!rejected) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesWeakly(ifNoneMatch, etag);
+        }
+
+        long ifModifiedSince = parseDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    private static boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range requires a strong comparison
+            return !etag.startsWith("W/") && ifRange.equals(etag);
+        }
+
+        long date = parseDateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && date == lastModified;
+    }
+
+    private static boolean matchesWeakly(String header, String etag) {
+        String opaqueTag = stripWeakPrefix(etag);
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || stripWeakPrefix(candidate).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static long parseDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parse a Range header
+     *
+     * @return The satisfiable ranges, an empty list if none is satisfiable, or null if the
+     *         header should be ignored and the full content served
+     */
+    private static List<Range> parseRanges(String rangeHeader, long length) {
+        List<HttpRange> httpRanges;
+        try {
+            httpRanges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (httpRanges.isEmpty() || httpRanges.size() > MAX_RANGES) {
+            return null;
+        }
+
+        List<Range> ranges = new ArrayList<>(httpRanges.size());
+        for (HttpRange httpRange : httpRanges) {
+            long start = httpRange.getRangeStart(length);
+            long end = httpRange.getRangeEnd(length);
+            // Ranges starting past the end of the file are unsatisfiable
+            if (start < length && start <= end) {
+                ranges.add(new Range(start, end));
+            }
+        }
+        return ranges;
+    }
+
+    private void transfer(FileStorageService.StoredFile storedFile, long start, long count, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        Path localPath = storedFile.getLocalPath();
+        if (localPath == null) {
+            // Remote or packed: stream the requested range straight through
+            try (InputStream in = fileStorageService.openStored(storedFile, start, count)) {
+                in.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        // Zero-copy transfers bypass openStored, so their bytes are counted here
+        fileStorageService.recordRead(count);
+        if (count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // The connector writes the file with sendfile once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, localPath.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(localPath, StandardOpenOption.READ)) {
+            transferFully(file, start, count, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private static void transferFully(FileChannel file, long start, long count, WritableByteChannel target) throws IOException {
+        long position = start;
+        long remaining = count;
+        while (remaining > 0) {
+            long transferred = file.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+}
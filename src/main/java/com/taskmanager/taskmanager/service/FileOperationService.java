@@ -0,0 +1,270 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.FileOperation;
+import com.taskmanager.taskmanager.model.FileOperationType;
+import com.taskmanager.taskmanager.repository.AttachmentRepository;
+import com.taskmanager.taskmanager.repository.FileOperationRepository;
+import com.taskmanager.taskmanager.repository.StoredFileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Outbox of file changes that belong to attachment transactions.
+ *
+ * Placing and deleting files is recorded as a file_operations row in the same
+ * transaction as the metadata change, and carried out only once it commits: a
+ * rollback leaves no orphaned files and no rows pointing at deleted files, and no
+ * database connection is held during storage I/O. Operations are retried with
+ * exponential backoff until they succeed; a freshly recorded operation is leased
+ * to the committing request or the after-commit worker, so the poller only picks
+ * it up if that attempt fails or the process dies.
+ */
+@Slf4j
+@Service
+public class FileOperationService {
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private FileOperationRepository fileOperationRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("fileOperationExecutor")
+    private TaskExecutor fileOperationExecutor;
+
+    @Value("${attachment.outbox.lease-ms:60000}")
+    private long leaseMillis;
+
+    @Value("${attachment.outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMillis;
+
+    @Value("${attachment.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMillis;
+
+    @Value("${attachment.outbox.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * Record moving a staged upload into storage
+     *
+     * The caller carries it out with {@link #execute(Long)} after its transaction
+     * commits; the staged file then belongs to the operation.
+     *
+     * @param stagingName The name of the staging file, see {@link FileStorageService#getStagingName}
+     * @param storagePath The storage path to place it at
+     * @return The ID of the operation
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Long recordPlace(String stagingName, String storagePath) {
+        return record(FileOperationType.PLACE, storagePath, stagingName).getId();
+    }
+
+    /**
+     * Record deleting a stored file and its thumbnails, carried out in the background after commit
+     *
+     * The file is kept if an attachment references it again by the time the operation runs.
+     *
+     * @param storagePath The storage path of the file
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDelete(String storagePath) {
+        Long id = record(FileOperationType.DELETE, storagePath, null).getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(id);
+            }
+        });
+    }
+
+    /**
+     * Check whether a file is waiting to be placed at a storage path
+     *
+     * @param storagePath The storage path
+     * @return true if a committed upload has not been moved into place yet
+     */
+    public boolean isPlacementPending(String storagePath) {
+        return fileOperationRepository.existsByTypeAndStoragePath(FileOperationType.PLACE, storagePath);
+    }
+
+    /**
+     * Carry out a recorded operation and remove it, or schedule a retry if it fails
+     *
+     * Must not be called in a transaction.
+     *
+     * @param id The ID of the operation
+     * @return true if the operation is done, or no longer exists
+     */
+    public boolean execute(Long id) {
+        FileOperation operation = fileOperationRepository.findById(id).orElse(null);
+        if (operation == null) {
+            return true;
+        }
+
+        try {
+            switch (operation.getType()) {
+                case PLACE -> place(operation);
+                case DELETE -> delete(operation.getStoragePath());
+            }
+            fileOperationRepository.deleteById(id);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            int attempts = operation.getAttempts() + 1;
+            long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempts - 1, 30));
+            log.warn("File operation {} {} {} failed (attempt {}), retrying in {} ms", id, operation.getType(),
+                    operation.getStoragePath(), attempts, backoff, e);
+            String error = String.valueOf(e.getMessage());
+            fileOperationRepository.recordFailure(id, LocalDateTime.now().plusNanos(backoff * 1_000_000),
+                    error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            return false;
+        }
+    }
+
+    /**
+     * Retry operations whose lease or backoff has expired
+     *
+     * @return The number of operations completed
+     */
+    @Scheduled(initialDelayString = "${attachment.outbox.poll-interval-ms:10000}",
+            fixedDelayString = "${attachment.outbox.poll-interval-ms:10000}")
+    public int processDue() {
+        int completed = 0;
+        List<Long> ids;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            ids = fileOperationRepository.findDueIds(now, PageRequest.of(0, batchSize));
+            for (Long id : ids) {
+                // Claimed one at a time, so several instances can share the outbox
+                if (fileOperationRepository.claim(id, now, now.plusNanos(leaseMillis * 1_000_000)) > 0 && execute(id)) {
+                    completed++;
+                }
+            }
+        } while (ids.size() == batchSize);
+        return completed;
+    }
+
+    /**
+     * Delete a stored file found without a referencing attachment, unless one has appeared since
+     *
+     * For content-addressed files the stored_files row is locked, or claimed if it does
+     * not exist, so an upload of the same content either commits first and keeps the
+     * file or waits and stores it again after the delete.
+     *
+     * @param storagePath The storage path of the file to delete
+     * @param ownerPath The storage path of the original file, which differs from storagePath for thumbnails
+     * @return true if the file was deleted
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean deleteOrphanedFile(String storagePath, String ownerPath) {
+        // Deleted before commit, while the row lock still holds off uploads of the same content
+        return !isReferenced(ownerPath) && fileStorageService.deleteFile(storagePath);
+    }
+
+    private FileOperation record(FileOperationType type, String storagePath, String stagingName) {
+        LocalDateTime now = LocalDateTime.now();
+        return fileOperationRepository.save(FileOperation.builder()
+                .type(type)
+                .storagePath(storagePath)
+                .stagingName(stagingName)
+                .nextAttemptAt(now.plusNanos(leaseMillis * 1_000_000))
+                .createdAt(now)
+                .build());
+    }
+
+    private void place(FileOperation operation) throws IOException {
+        if (!fileStorageService.place(operation.getStagingName(), operation.getStoragePath())) {
+            // Placed by an earlier attempt that failed to remove the operation, or lost with the staging directory
+            if (!fileStorageService.exists(operation.getStoragePath())) {
+                log.error("Staged file {} for {} is gone; the next upload of the same content restores it",
+                        operation.getStagingName(), operation.getStoragePath());
+            }
+        }
+    }
+
+    private void delete(String storagePath) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (isReferenced(storagePath)) {
+                return;
+            }
+            if (!fileStorageService.deleteFile(storagePath)) {
+                throw new IllegalStateException("Failed to delete " + storagePath);
+            }
+            thumbnailService.deleteThumbnails(storagePath);
+        });
+    }
+
+    /**
+     * Check under the stored_files row lock whether an attachment references a stored file
+     *
+     * When it does not, the stored_files row is removed, leaving the file to be deleted
+     * before the transaction commits.
+     */
+    private boolean isReferenced(String ownerPath) {
+        String contentHash = ownerPath.substring(ownerPath.lastIndexOf('/') + 1);
+        boolean contentAddressed = CONTENT_HASH.matcher(contentHash).matches()
+                && ownerPath.equals(fileStorageService.getStoragePath(contentHash));
+        boolean claimed = false;
+        if (contentAddressed && storedFileRepository.findForUpdate(contentHash).isEmpty()) {
+            if (storedFileRepository.insertIfAbsent(contentHash, ownerPath, 0, null, LocalDateTime.now()) == 0) {
+                // Registered by an upload that committed in the meantime
+                return true;
+            }
+            claimed = true;
+        }
+
+        if (attachmentRepository.existsByFilePath(ownerPath)) {
+            if (claimed) {
+                storedFileRepository.deleteByContentHash(contentHash);
+            }
+            return true;
+        }
+
+        if (contentAddressed) {
+            storedFileRepository.deleteByContentHash(contentHash);
+        }
+        return false;
+    }
+
+    private void submit(Long id) {
+        try {
+            fileOperationExecutor.execute(() -> execute(id));
+        } catch (TaskRejectedException e) {
+            // Queue is full: the poller runs it once the lease expires
+        }
+    }
+}
@@ -1,72 +1,703 @@
 package com.taskmanager.taskmanager.service;
 
+import com.taskmanager.taskmanager.model.PackedFile;
+import com.taskmanager.taskmanager.monitoring.StorageOperationEvent;
+import com.taskmanager.taskmanager.storage.StorageBackend;
+import com.taskmanager.taskmanager.storage.StorageObject;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Content-addressed file storage.
+ *
+ * Files are named by the SHA-256 of their content and sharded into two levels of
+ * hash-prefix directories ({@code ab/cd/abcd...}), so identical uploads share one
+ * file and no directory grows beyond a few hundred entries. Uploads are first
+ * staged in a local temporary file while the hash is computed, then handed to the
+ * configured {@link StorageBackend}: the filesystem backend renames the file into
+ * place, the S3 backend uploads it.
+ *
+ * Compressible content types are gzip-compressed while they are staged. The hash
+ * always covers the uncompressed content, so compressed and uncompressed uploads of
+ * the same bytes still share one file, stored with whichever codec came first.
+ *
+ * Small files are appended to pack files by {@link PackStorageService} instead; the
+ * storage path stays the same and is resolved through the pack index on read.
+ */
 @Service
 public class FileStorageService {
 
+    public static final String CODEC_GZIP = "gzip";
+
+    private static final String STAGING_DIR = ".staging";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private PackStorageService packStorageService;
+
+    // The global registry records nothing until a registry is added to it, as in unit tests
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
 
+    // Local directory uploads are hashed and compressed in before they are stored; on the
+    // filesystem backend it must be on the same volume as the upload directory
+    @Value("${file.staging-dir:}")
+    private String stagingDir;
+
+    @Value("${file.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${file.compression.level:6}")
+    private int compressionLevel;
+
+    @Value("${file.compression.min-size:1024}")
+    private long compressionMinSize;
+
+    @Value("${file.compression.content-types:text/*,application/json,application/xml,application/javascript,application/x-ndjson,application/csv,application/sql,application/x-yaml,image/svg+xml}")
+    private String[] compressibleContentTypes;
+
+    /**
+     * A file that has been written and hashed but not yet moved into content-addressed storage
+     */
+    public static final class StagedFile {
+        private final Path tempPath;
+        private final String contentHash;
+        private final long size;
+        private final long storedSize;
+        private final String codec;
+
+        private StagedFile(Path tempPath, String contentHash, long size, long storedSize, String codec) {
+            this.tempPath = tempPath;
+            this.contentHash = contentHash;
+            this.size = size;
+            this.storedSize = storedSize;
+            this.codec = codec;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        /**
+         * @return The size of the uncompressed content
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return The size of the file on disk
+         */
+        public long getStoredSize() {
+            return storedSize;
+        }
+
+        /**
+         * @return The codec the file is stored with, or null if it is stored uncompressed
+         */
+        public String getCodec() {
+            return codec;
+        }
+    }
+
+    /**
+     * A stored file found once for serving: its metadata and where to read it from
+     */
+    public static final class StoredFile {
+        private final String storagePath;
+        private final StorageObject metadata;
+        private final PackedFile packed;
+        private final Path localPath;
+
+        private StoredFile(String storagePath, StorageObject metadata, PackedFile packed, Path localPath) {
+            this.storagePath = storagePath;
+            this.metadata = metadata;
+            this.packed = packed;
+            this.localPath = localPath;
+        }
+
+        public StorageObject getMetadata() {
+            return metadata;
+        }
+
+        /**
+         * @return The local file, for zero-copy transfers, or null if the file is remote or packed
+         */
+        public Path getLocalPath() {
+            return localPath;
+        }
+    }
+
     /**
-     * Store a file in the file system
+     * Stream content into a staging file, computing its SHA-256 on the way
      * 
-     * @param file The file to store
-     * @return The path where the file is stored
+     * @param inputStream The content to store
+     * @return The staged file
      * @throws IOException If an error occurs during file storage
      */
-    public String storeFile(MultipartFile file) throws IOException {
-        // Create the upload directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-        Files.createDirectories(uploadPath);
+    public StagedFile stage(InputStream inputStream) throws IOException {
+        return stage(inputStream, false);
+    }
+
+    /**
+     * Stream content into a staging file, computing its SHA-256 and optionally compressing it on the way
+     * 
+     * Content that does not shrink when compressed is stored uncompressed.
+     * 
+     * @param inputStream The content to store
+     * @param compress Whether to compress the content, see {@link #isCompressible}
+     * @return The staged file
+     * @throws IOException If an error occurs during file storage
+     */
+    public StagedFile stage(InputStream inputStream, boolean compress) throws IOException {
+        StagedFile stagedFile = measure("stage", null, 0, () -> stageFile(inputStream, compress));
+        countBytes("stage", stagedFile.getSize());
+        return stagedFile;
+    }
+
+    private StagedFile stageFile(InputStream inputStream, boolean compress) throws IOException {
+        Path tempPath = createStagingFile();
+        
+        MessageDigest digest = newDigest();
+        long size = 0;
+        try {
+            try (InputStream in = inputStream; OutputStream out = openStagingOutput(tempPath, compress)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+            
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            long storedSize = Files.size(tempPath);
+            if (compress && storedSize >= size) {
+                // Incompressible despite its content type: keep the original bytes
+                Path rawPath = createStagingFile();
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(tempPath), BUFFER_SIZE)) {
+                    Files.copy(in, rawPath, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tempPath);
+                }
+                return new StagedFile(rawPath, contentHash, size, size, null);
+            }
+            
+            return new StagedFile(tempPath, contentHash, size, storedSize, compress ? CODEC_GZIP : null);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+    }
+
+    /**
+     * Check whether content should be compressed at rest
+     * 
+     * @param contentType The content type of the upload
+     * @param size The size of the upload, or -1 if unknown
+     * @return true if the content type is compressible and the upload is large enough to benefit
+     */
+    public boolean isCompressible(String contentType, long size) {
+        if (!compressionEnabled || contentType == null || (size >= 0 && size < compressionMinSize)) {
+            return false;
+        }
+        
+        return matchesContentType(contentType, compressibleContentTypes);
+    }
+    
+    /**
+     * Check a content type against a list of types, which may end in a {@code *} wildcard such as {@code text/*}
+     * 
+     * @param contentType The content type, possibly with parameters
+     * @param patterns The types to match
+     * @return true if the base type matches any of the patterns
+     */
+    static boolean matchesContentType(String contentType, String[] patterns) {
+        if (contentType == null) {
+            return false;
+        }
         
-        // Generate a unique file name to prevent conflicts
-        String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
-        String fileExtension = "";
-        if (originalFileName.contains(".")) {
-            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+        String baseType = contentType.split(";", 2)[0].trim().toLowerCase();
+        for (String pattern : patterns) {
+            pattern = pattern.trim();
+            if (pattern.endsWith("*") ? baseType.startsWith(pattern.substring(0, pattern.length() - 1)) : baseType.equals(pattern)) {
+                return true;
+            }
         }
-        String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
+        return false;
+    }
+
+    /**
+     * Wrap a stream of stored bytes so it yields the original content
+     * 
+     * @param storedContent The file content as stored
+     * @param codec The codec the file is stored with, or null
+     * @return The decoded content
+     * @throws IOException If the codec header cannot be read
+     */
+    public static InputStream decode(InputStream storedContent, String codec) throws IOException {
+        if (codec == null) {
+            return storedContent;
+        }
+        if (CODEC_GZIP.equals(codec)) {
+            return new GZIPInputStream(storedContent, BUFFER_SIZE);
+        }
+        throw new IOException("Unknown storage codec: " + codec);
+    }
+
+    private OutputStream openStagingOutput(Path tempPath, boolean compress) throws IOException {
+        OutputStream out = Files.newOutputStream(tempPath);
+        if (!compress) {
+            return out;
+        }
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                def.setLevel(compressionLevel);
+            }
+        };
+    }
+
+    /**
+     * Create an empty staging file that content can be appended to incrementally
+     * 
+     * @return The path of the new staging file
+     * @throws IOException If the file cannot be created
+     */
+    public Path createStagingFile() throws IOException {
+        Path stagingPath = getStagingPath();
+        Files.createDirectories(stagingPath);
+        return Files.createFile(stagingPath.resolve(UUID.randomUUID().toString()));
+    }
+
+    /**
+     * Wrap a staging file whose content hash has been computed by the caller
+     * 
+     * @param tempPath The staging file, as returned by {@link #createStagingFile()}
+     * @param contentHash The SHA-256 of the file content, as lowercase hex
+     * @param size The size of the file in bytes
+     * @return The staged file
+     */
+    public StagedFile stagedFile(Path tempPath, String contentHash, long size) {
+        return new StagedFile(tempPath, contentHash, size, size, null);
+    }
+
+    /**
+     * Store a staged file at its content-addressed location, or drop it if identical content is already stored
+     * 
+     * @param stagedFile The staged file
+     * @return The storage path of the content
+     * @throws IOException If an error occurs during file storage
+     */
+    public String commit(StagedFile stagedFile) throws IOException {
+        String storagePath = getStoragePath(stagedFile.getContentHash());
         
-        // Copy the file to the upload directory
-        Path targetLocation = uploadPath.resolve(uniqueFileName);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        if (exists(storagePath)) {
+            Files.deleteIfExists(stagedFile.tempPath);
+        } else {
+            putFile(storagePath, stagedFile.tempPath, stagedFile.getStoredSize());
+        }
         
-        return uniqueFileName;
+        return storagePath;
+    }
+
+    /**
+     * Store a staged file at its content-addressed location, replacing any file already there
+     * 
+     * Used when the content is newly registered, so a file left behind by an earlier
+     * failed upload, possibly stored with another codec, cannot be mistaken for it.
+     * 
+     * @param stagedFile The staged file
+     * @return The storage path of the content
+     * @throws IOException If an error occurs during file storage
+     */
+    public String replace(StagedFile stagedFile) throws IOException {
+        String storagePath = getStoragePath(stagedFile.getContentHash());
+        putFile(storagePath, stagedFile.tempPath, stagedFile.getStoredSize());
+        return storagePath;
+    }
+
+    /**
+     * Get the name a staged file can be placed by after it has been handed over
+     * 
+     * @param stagedFile The staged file
+     * @return The name of the file in the staging directory
+     */
+    public String getStagingName(StagedFile stagedFile) {
+        return stagedFile.tempPath.getFileName().toString();
+    }
+
+    /**
+     * Store a staging file at a storage path, replacing any file already there
+     * 
+     * @param stagingName The name of the staging file, see {@link #getStagingName(StagedFile)}
+     * @param storagePath The storage path to store it at
+     * @return false if the staging file no longer exists
+     * @throws IOException If an error occurs during file storage
+     */
+    public boolean place(String stagingName, String storagePath) throws IOException {
+        Path tempPath = getStagingPath().resolve(stagingName).normalize();
+        if (!tempPath.getParent().equals(getStagingPath()) || !Files.exists(tempPath)) {
+            return false;
+        }
+        
+        long size = Files.size(tempPath);
+        if (packStorageService != null && packStorageService.accepts(storagePath, size)) {
+            measure("write", storagePath, size, () -> {
+                packStorageService.append(storagePath, tempPath);
+                return null;
+            });
+            countBytes("write", size);
+            Files.delete(tempPath);
+            // A file of its own, left behind by an earlier failed upload, would shadow nothing but waste space
+            storageBackend.delete(storagePath);
+            return true;
+        }
+        putFile(storagePath, tempPath, size);
+        return true;
+    }
+
+    /**
+     * Remove a staged file that will not be committed
+     * 
+     * @param stagedFile The staged file
+     */
+    public void discard(StagedFile stagedFile) {
+        try {
+            Files.deleteIfExists(stagedFile.tempPath);
+        } catch (IOException e) {
+            // Left for the staging directory cleanup
+        }
+    }
+
+    /**
+     * Get the sharded storage path for a content hash
+     * 
+     * @param contentHash The SHA-256 of the content, as lowercase hex
+     * @return The storage path, relative to the upload directory
+     */
+    public String getStoragePath(String contentHash) {
+        return contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + contentHash;
     }
     
     /**
-     * Delete a file from the file system
+     * Store content at a storage path, replacing any file already there
+     * 
+     * @param storagePath The storage path
+     * @param content The content
+     * @param length The content length in bytes
+     * @throws IOException If an error occurs during file storage
+     */
+    public void store(String storagePath, InputStream content, long length) throws IOException {
+        measure("write", storagePath, length, () -> {
+            storageBackend.put(storagePath, content, length);
+            return null;
+        });
+        countBytes("write", length);
+    }
+
+    /**
+     * Open a stored file, or a byte range of it, as stored (i.e. still compressed)
+     * 
+     * @param storagePath The storage path
+     * @param offset The first byte to read
+     * @param length The number of bytes to read, or -1 to read to the end
+     * @return The content
+     * @throws java.nio.file.NoSuchFileException If the file does not exist
+     * @throws IOException If the file cannot be read
+     */
+    public InputStream openStored(String storagePath, long offset, long length) throws IOException {
+        InputStream content = measure("open", storagePath, Math.max(length, 0), () -> {
+            Optional<PackedFile> packed = locatePacked(storagePath);
+            if (packed.isPresent()) {
+                return packStorageService.open(packed.get(), offset, length);
+            }
+            return storageBackend.get(storagePath, offset, length);
+        });
+        return new ReadCountingInputStream(content);
+    }
+
+    /**
+     * Open a file found by {@link #find}, or a byte range of it, as stored, without looking it up again
+     *
+     * @param file The file
+     * @param offset The first byte to read
+     * @param length The number of bytes to read, or -1 to read to the end
+     * @return The content
+     * @throws java.nio.file.NoSuchFileException If the file no longer exists
+     * @throws IOException If the file cannot be read
+     */
+    public InputStream openStored(StoredFile file, long offset, long length) throws IOException {
+        InputStream content = measure("open", file.storagePath, Math.max(length, 0), () -> file.packed != null
+                ? packStorageService.open(file.packed, offset, length)
+                : storageBackend.get(file.storagePath, offset, length));
+        return new ReadCountingInputStream(content);
+    }
+
+    /**
+     * Count bytes read from storage without going through {@link #openStored}, e.g. by a zero-copy transfer
+     * 
+     * @param bytes The number of bytes read
+     */
+    public void recordRead(long bytes) {
+        countBytes("read", bytes);
+    }
+
+    /**
+     * Get the size and modification time of a stored file
      * 
-     * @param fileName The name of the file to delete
-     * @return true if the file was deleted successfully, false otherwise
+     * @param storagePath The storage path
+     * @return The file metadata, or empty if the file does not exist
+     * @throws IOException If the storage backend cannot be reached
+     */
+    public Optional<StorageObject> stat(String storagePath) throws IOException {
+        return find(storagePath).map(StoredFile::getMetadata);
+    }
+
+    /**
+     * Find a stored file for serving
+     *
+     * A file is looked for on its own first: files above the packing threshold, which
+     * are most of the bytes served, are then found without a query of the pack index.
+     * Content-addressed files hold the same bytes wherever they are stored.
+     *
+     * @param storagePath The storage path
+     * @return The file, or empty if it does not exist
+     * @throws IOException If the storage backend cannot be reached
      */
-    public boolean deleteFile(String fileName) {
+    public Optional<StoredFile> find(String storagePath) throws IOException {
+        Optional<StorageObject> standalone = storageBackend.stat(storagePath);
+        if (standalone.isPresent()) {
+            return Optional.of(new StoredFile(storagePath, standalone.get(), null,
+                    storageBackend.getLocalPath(storagePath).orElse(null)));
+        }
+        Optional<PackedFile> packed = locatePacked(storagePath);
+        return packed.map(entry -> new StoredFile(storagePath, packStorageService.stat(entry), entry, null));
+    }
+
+    /**
+     * Check whether a file is stored
+     * 
+     * @param storagePath The storage path
+     * @return true if the file exists
+     * @throws IOException If the storage backend cannot be reached
+     */
+    public boolean exists(String storagePath) throws IOException {
+        return findPacked(storagePath).isPresent() || storageBackend.stat(storagePath).isPresent();
+    }
+
+    /**
+     * Get the local file backing a stored file, for zero-copy transfers
+     * 
+     * @param storagePath The storage path
+     * @return The local path, or empty if files are not stored on the local filesystem or the file is packed
+     */
+    public Optional<Path> getLocalPath(String storagePath) {
+        if (locatePacked(storagePath).isPresent()) {
+            return Optional.empty();
+        }
+        return storageBackend.getLocalPath(storagePath);
+    }
+    
+    /**
+     * List all stored files in {@link StorageBackend#KEY_ORDER}, excluding the staging directory and packs
+     * 
+     * @return The stored files; the stream must be closed
+     * @throws IOException If the storage backend cannot be reached
+     */
+    public Stream<StorageObject> listStored() throws IOException {
+        return storageBackend.list().filter(object -> !object.getKey().startsWith(STAGING_DIR + "/")
+                && !object.getKey().startsWith(PackStorageService.PACK_DIR + "/"));
+    }
+    
+    /**
+     * Delete staging files last written before a cutoff, left behind by interrupted uploads
+     * 
+     * @param cutoff Files modified before this instant are deleted
+     * @return The number of bytes freed
+     * @throws IOException If the staging directory cannot be listed
+     */
+    public long deleteStaleStagingFiles(Instant cutoff) throws IOException {
+        Path stagingPath = getStagingPath();
+        if (!Files.isDirectory(stagingPath)) {
+            return 0;
+        }
+        
+        long freed = 0;
+        try (Stream<Path> files = Files.list(stagingPath)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                        long size = Files.size(file);
+                        if (Files.deleteIfExists(file)) {
+                            freed += size;
+                        }
+                    }
+                } catch (IOException e) {
+                    // Removed concurrently or not deletable; retried on the next run
+                }
+            }
+        }
+        return freed;
+    }
+    
+    /**
+     * Delete a stored file
+     * 
+     * @param storagePath The storage path of the file to delete
+     * @return true if the file is gone, false if it could not be deleted
+     */
+    public boolean deleteFile(String storagePath) {
         try {
-            Path filePath = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(fileName);
-            return Files.deleteIfExists(filePath);
+            if (packStorageService != null) {
+                packStorageService.delete(storagePath);
+            }
+            storageBackend.delete(storagePath);
+            return true;
         } catch (IOException e) {
             return false;
         }
     }
-    
+
+    private Optional<PackedFile> findPacked(String storagePath) {
+        return packStorageService != null ? packStorageService.find(storagePath) : Optional.empty();
+    }
+
+    // Reads go through the location cache; exists() does not, since uploads rely on it
+    private Optional<PackedFile> locatePacked(String storagePath) {
+        return packStorageService != null ? packStorageService.locate(storagePath) : Optional.empty();
+    }
+
+    private void putFile(String storagePath, Path file, long size) throws IOException {
+        measure("write", storagePath, size, () -> {
+            storageBackend.putFile(storagePath, file);
+            return null;
+        });
+        countBytes("write", size);
+    }
+
     /**
-     * Get the path to a file
+     * Time a storage operation, tagged with whether it succeeded, and emit it as a flight recorder event
+     *
+     * @param storagePath The storage path, or null when staging
+     * @param size The size in bytes, or 0 if not known up front
+     */
+    private <T> T measure(String operation, String storagePath, long size, StorageCall<T> call) throws IOException {
+        StorageOperationEvent event = new StorageOperationEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.run();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("taskmanager.storage.operations", "operation", operation, "outcome", outcome));
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.storagePath = storagePath;
+                event.size = size;
+                event.succeeded = "success".equals(outcome);
+                event.commit();
+            }
+        }
+    }
+
+    private void countBytes(String operation, long bytes) {
+        meterRegistry.counter("taskmanager.storage.bytes", "operation", operation).increment(bytes);
+    }
+
+    @FunctionalInterface
+    private interface StorageCall<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Adds the bytes read from stored content to the read counter when it is closed
+     */
+    private class ReadCountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        ReadCountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                recordRead(count);
+                count = 0;
+            }
+        }
+    }
+
+    private Path getStagingPath() {
+        if (stagingDir != null && !stagingDir.isBlank()) {
+            return Paths.get(stagingDir).toAbsolutePath().normalize();
+        }
+        return Paths.get(uploadDir).toAbsolutePath().normalize().resolve(STAGING_DIR);
+    }
+
+    /**
+     * Create a digest for computing content hashes
      * 
-     * @param fileName The name of the file
-     * @return The path to the file
+     * @return A new SHA-256 digest
      */
-    public Path getFilePath(String fileName) {
-        return Paths.get(uploadDir).toAbsolutePath().normalize().resolve(fileName);
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -0,0 +1,589 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.Pack;
+import com.taskmanager.taskmanager.model.PackedFile;
+import com.taskmanager.taskmanager.repository.PackRepository;
+import com.taskmanager.taskmanager.repository.PackedFileRepository;
+import com.taskmanager.taskmanager.storage.StorageObject;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Pack files for small stored files.
+ *
+ * Content up to a size threshold is appended to large append-only pack files
+ * instead of getting a file of its own, which keeps millions of screenshots and
+ * text snippets from turning into millions of inodes. The packed_files table maps a
+ * storage path to its (pack, offset, length); callers keep using storage paths and
+ * never see the difference. Sealed packs are read through read-only memory mappings
+ * that are shared by all readers, so reading a small file costs no open or close.
+ * The current pack still grows, so it is read with positional reads on a shared
+ * channel instead of being mapped again each time a read passes its end.
+ *
+ * Deleting a file only drops its index row. A background compaction copies the
+ * live entries of packs that are mostly dead into the current pack, and deletes
+ * the old file once readers that looked up the old location have finished.
+ * Packing needs local files to map, so it is only used with the filesystem backend.
+ */
+@Slf4j
+@Service
+public class PackStorageService {
+
+    public static final String PACK_DIR = ".packs";
+
+    // Only content-addressed files are packed; thumbnails and legacy files never are
+    private static final Pattern PACKABLE_PATH = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}");
+
+    private static final int MAX_CACHED_LOCATIONS = 100_000;
+
+    @Autowired
+    private PackRepository packRepository;
+
+    @Autowired
+    private PackedFileRepository packedFileRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${file.storage.backend:filesystem}")
+    private String storageBackend;
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${file.pack.enabled:true}")
+    private boolean enabled;
+
+    // Stored size up to which files are packed
+    @Value("${file.pack.max-file-size:65536}")
+    private long maxFileSize;
+
+    // Size at which a pack is sealed and a new one started; at most 2 GB so it can be mapped at once
+    @Value("${file.pack.target-size:268435456}")
+    private long targetSize;
+
+    @Value("${file.pack.compaction.min-dead-ratio:0.5}")
+    private double minDeadRatio;
+
+    // How long a compacted pack is kept for reads that looked up their location before it moved
+    @Value("${file.pack.compaction.retire-delay-ms:600000}")
+    private long retireDelayMillis;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    // Sealed packs, mapped once at their final size
+    private final Map<Long, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+
+    // Packs that were still being appended to when first read
+    private final Map<Long, FileChannel> channels = new ConcurrentHashMap<>();
+
+    // Recently looked up locations. Content-addressed files hold the same bytes wherever
+    // they are packed, and a location is cached for less than the retire delay, so a
+    // cached location always points at a pack that still exists.
+    private final Map<String, CachedLocation> locations = new ConcurrentHashMap<>();
+
+    // Guarded by appendLock
+    private Pack currentPack;
+
+    /**
+     * Outcome of a compaction run
+     */
+    @lombok.Value
+    public static class CompactionResult {
+        int packsCompacted;
+        long bytesMoved;
+        int packsDeleted;
+    }
+
+    private static final class Appended {
+        private final Pack pack;
+        private final long offset;
+
+        private Appended(Pack pack, long offset) {
+            this.pack = pack;
+            this.offset = offset;
+        }
+    }
+
+    private static final class CachedLocation {
+        private final PackedFile entry;
+        private final long loadedAt;
+
+        private CachedLocation(PackedFile entry, long loadedAt) {
+            this.entry = entry;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Check whether a file is packed rather than stored on its own
+     *
+     * @param storagePath The storage path of the file
+     * @param storedSize The size of the file as stored
+     * @return true if the file belongs in a pack
+     */
+    public boolean accepts(String storagePath, long storedSize) {
+        return isEnabled() && storedSize <= maxFileSize && PACKABLE_PATH.matcher(storagePath).matches();
+    }
+
+    /**
+     * Look up where a file is packed
+     *
+     * @param storagePath The storage path of the file
+     * @return The location, or empty if the file is not packed
+     */
+    public Optional<PackedFile> find(String storagePath) {
+        if (!isEnabled() || !PACKABLE_PATH.matcher(storagePath).matches()) {
+            return Optional.empty();
+        }
+        return packedFileRepository.findById(storagePath);
+    }
+
+    /**
+     * Look up where a file is packed in order to read it, from the location cache if possible
+     *
+     * Locations are cached for half the retire delay, so repeated reads of a packed
+     * file do not query the index. A file deleted by another instance can still be
+     * read until its location expires, so this must not be used to decide whether
+     * content needs to be stored.
+     *
+     * @param storagePath The storage path of the file
+     * @return The location, or empty if the file is not packed
+     */
+    public Optional<PackedFile> locate(String storagePath) {
+        if (!isEnabled() || !PACKABLE_PATH.matcher(storagePath).matches()) {
+            return Optional.empty();
+        }
+
+        long now = System.nanoTime();
+        CachedLocation cached = locations.get(storagePath);
+        if (cached != null && now - cached.loadedAt < retireDelayMillis * 500_000) {
+            return Optional.of(cached.entry);
+        }
+
+        Optional<PackedFile> entry = packedFileRepository.findById(storagePath);
+        if (entry.isPresent()) {
+            if (locations.size() >= MAX_CACHED_LOCATIONS) {
+                locations.clear();
+            }
+            locations.put(storagePath, new CachedLocation(entry.get(), now));
+        } else {
+            locations.remove(storagePath);
+        }
+        return entry;
+    }
+
+    /**
+     * Get the metadata of a packed file
+     *
+     * @param entry The location of the file
+     * @return The metadata
+     */
+    public StorageObject stat(PackedFile entry) {
+        return new StorageObject(entry.getStoragePath(), entry.getLength(),
+                entry.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Read a packed file, or a byte range of it, from the pack
+     *
+     * @param entry The location of the file
+     * @param offset The first byte to read
+     * @param length The number of bytes to read, or -1 to read to the end
+     * @return The content
+     * @throws IOException If the pack cannot be read
+     */
+    public InputStream open(PackedFile entry, long offset, long length) throws IOException {
+        long end = entry.getOffset() + entry.getLength();
+        long start = entry.getOffset() + Math.min(offset, entry.getLength());
+        long count = length < 0 ? end - start : Math.min(length, end - start);
+        return new BufferInputStream(read(entry.getPackId(), start, (int) count));
+    }
+
+    /**
+     * Append a file to the current pack and index it under a storage path, replacing any entry there
+     *
+     * @param storagePath The storage path of the file
+     * @param file The local file holding the content, which is left in place
+     * @throws IOException If the pack cannot be written
+     */
+    public void append(String storagePath, Path file) throws IOException {
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+        appendLock.lock();
+        try {
+            Appended appended = writeToCurrentPack(content);
+            Pack pack = appended.pack;
+            long offset = appended.offset;
+            long length = content.limit();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                packedFileRepository.findById(storagePath)
+                        .ifPresent(previous -> packRepository.releaseBytes(previous.getPackId(), previous.getLength()));
+                packedFileRepository.save(PackedFile.builder()
+                        .storagePath(storagePath)
+                        .packId(pack.getId())
+                        .offset(offset)
+                        .length(length)
+                        .createdAt(LocalDateTime.now())
+                        .build());
+                packRepository.recordAppend(pack.getId(), offset + length, length);
+            });
+            locations.remove(storagePath);
+            sealIfFull(pack, offset + length);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Remove a file from its pack; the space is reclaimed by compaction
+     *
+     * Joins the caller's transaction, if any.
+     *
+     * @param storagePath The storage path of the file
+     * @return true if the file was packed
+     */
+    public boolean delete(String storagePath) {
+        if (!isEnabled() || !PACKABLE_PATH.matcher(storagePath).matches()) {
+            return false;
+        }
+        boolean deleted = Boolean.TRUE.equals(new TransactionTemplate(transactionManager).execute(status -> {
+            Optional<PackedFile> entry = packedFileRepository.findById(storagePath);
+            entry.ifPresent(packedFile -> {
+                packedFileRepository.delete(packedFile);
+                packRepository.releaseBytes(packedFile.getPackId(), packedFile.getLength());
+            });
+            return entry.isPresent();
+        }));
+        locations.remove(storagePath);
+        return deleted;
+    }
+
+    /**
+     * Scheduled compaction run
+     */
+    @Scheduled(initialDelayString = "${file.pack.compaction.initial-delay-ms:900000}",
+            fixedDelayString = "${file.pack.compaction.interval-ms:3600000}")
+    public void scheduledCompact() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            CompactionResult result = compact();
+            if (result.getPacksCompacted() > 0 || result.getPacksDeleted() > 0) {
+                log.info("Pack compaction moved {} bytes out of {} packs, deleted {} packs",
+                        result.getBytesMoved(), result.getPacksCompacted(), result.getPacksDeleted());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Pack compaction failed", e);
+        }
+    }
+
+    /**
+     * Rewrite sealed packs whose dead ratio has reached the threshold, and delete packs compacted earlier
+     *
+     * @return The outcome of the run
+     * @throws IOException If a pack cannot be read or written
+     */
+    public CompactionResult compact() throws IOException {
+        int deleted = deleteRetiredPacks();
+        int compacted = 0;
+        long moved = 0;
+        for (Pack pack : packRepository.findCompactionCandidates(minDeadRatio)) {
+            moved += compactPack(pack);
+            compacted++;
+        }
+        return new CompactionResult(compacted, moved, deleted);
+    }
+
+    private long compactPack(Pack pack) throws IOException {
+        long moved = 0;
+        for (PackedFile entry : packedFileRepository.findByPackIdOrderByOffset(pack.getId())) {
+            ByteBuffer content = read(pack.getId(), entry.getOffset(), (int) entry.getLength());
+            appendLock.lock();
+            try {
+                Appended appended = writeToCurrentPack(content);
+                Pack target = appended.pack;
+                long offset = appended.offset;
+                long length = entry.getLength();
+                // Moved only if the entry is unchanged; a copy of a deleted or replaced entry is dead on arrival
+                boolean relocated = Boolean.TRUE.equals(new TransactionTemplate(transactionManager).execute(status -> {
+                    boolean live = packedFileRepository.relocate(entry.getStoragePath(), pack.getId(), entry.getOffset(),
+                            target.getId(), offset) > 0;
+                    packRepository.recordAppend(target.getId(), offset + length, live ? length : 0);
+                    if (live) {
+                        packRepository.releaseBytes(pack.getId(), length);
+                    }
+                    return live;
+                }));
+                if (relocated) {
+                    locations.remove(entry.getStoragePath());
+                    moved += length;
+                }
+                sealIfFull(target, offset + length);
+            } finally {
+                appendLock.unlock();
+            }
+        }
+
+        if (packedFileRepository.countByPackId(pack.getId()) == 0) {
+            packRepository.retire(pack.getId(), LocalDateTime.now());
+        }
+        return moved;
+    }
+
+    private int deleteRetiredPacks() throws IOException {
+        List<Pack> retired = packRepository.findByRetiredAtBefore(LocalDateTime.now().minusNanos(retireDelayMillis * 1_000_000));
+        for (Pack pack : retired) {
+            // Unmapped by the garbage collector once the last reader lets go of its slice
+            mappings.remove(pack.getId());
+            closeChannel(pack.getId());
+            Files.deleteIfExists(packPath(pack.getId()));
+            packRepository.deleteById(pack.getId());
+        }
+        return retired.size();
+    }
+
+    /**
+     * Append content to the current pack, moving on to a new one if the current one is full
+     */
+    private Appended writeToCurrentPack(ByteBuffer content) throws IOException {
+        while (true) {
+            Pack pack = currentPack();
+            long offset = write(pack, content);
+            if (offset >= 0) {
+                return new Appended(pack, offset);
+            }
+            // Filled or sealed by another process; sealing again is harmless
+            packRepository.seal(pack.getId());
+            currentPack = null;
+        }
+    }
+
+    /**
+     * Append content to a pack file and force it to disk before it is indexed
+     *
+     * Appends take an exclusive file lock, so processes sharing the upload directory
+     * never interleave within a pack. Another process may have filled and sealed the
+     * pack since this one picked it, so both are checked again under the lock.
+     *
+     * @return The offset the content was written at, or -1 if the pack is full or sealed
+     */
+    private long write(Pack pack, ByteBuffer content) throws IOException {
+        Path path = packPath(pack.getId());
+        Files.createDirectories(path.getParent());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            long offset = channel.size();
+            if (offset >= sealSize() || packRepository.findById(pack.getId()).map(Pack::isSealed).orElse(true)) {
+                return -1;
+            }
+            ByteBuffer source = content.duplicate();
+            while (source.hasRemaining()) {
+                channel.write(source, offset + source.position());
+            }
+            channel.force(false);
+            return offset;
+        }
+    }
+
+    private Pack currentPack() {
+        if (currentPack == null) {
+            currentPack = packRepository.findFirstBySealedFalseAndRetiredAtIsNullOrderByIdDesc()
+                    .orElseGet(() -> packRepository.save(Pack.builder().createdAt(LocalDateTime.now()).build()));
+        }
+        return currentPack;
+    }
+
+    private void sealIfFull(Pack pack, long end) {
+        if (end >= sealSize()) {
+            packRepository.seal(pack.getId());
+            currentPack = null;
+            // Mapped on the next read now that it no longer grows
+            closeChannel(pack.getId());
+        }
+    }
+
+    private long sealSize() {
+        return Math.min(targetSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Read bytes of a pack, from its mapping if it is sealed and with a positional read otherwise
+     *
+     * Whether a pack is sealed is looked up when this instance first reads it. A pack
+     * sealed here later is mapped on its next read; one sealed by another instance
+     * keeps being read through its channel, which is just as correct.
+     */
+    private ByteBuffer read(Long packId, long offset, int length) throws IOException {
+        while (true) {
+            MappedByteBuffer mapping = mappings.get(packId);
+            FileChannel channel = mapping == null ? channels.get(packId) : null;
+            if (mapping == null && channel == null) {
+                Pack pack = packRepository.findById(packId)
+                        .orElseThrow(() -> new IOException("Pack " + packId + " no longer exists"));
+                if (pack.isSealed()) {
+                    mapping = map(packId);
+                } else {
+                    channel = channel(packId);
+                }
+            }
+
+            if (mapping != null) {
+                if (mapping.capacity() < offset + length) {
+                    // Another process appended once more before it saw the pack was sealed
+                    mappings.remove(packId, mapping);
+                    mapping = map(packId);
+                }
+                if (mapping.capacity() < offset + length) {
+                    throw new IOException("Pack " + packId + " is shorter than its index");
+                }
+                return mapping.duplicate().slice((int) offset, length);
+            }
+
+            try {
+                return readAt(packId, channel, offset, length);
+            } catch (ClosedByInterruptException e) {
+                // Interrupting a read closes the channel for every reader
+                channels.remove(packId, channel);
+                throw e;
+            } catch (ClosedChannelException e) {
+                // Closed when the pack was sealed, or by an interrupted reader; look it up again
+                channels.remove(packId, channel);
+            }
+        }
+    }
+
+    private static ByteBuffer readAt(Long packId, FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer content = ByteBuffer.allocate(length);
+        while (content.hasRemaining()) {
+            if (channel.read(content, offset + content.position()) < 0) {
+                throw new IOException("Pack " + packId + " is shorter than its index");
+            }
+        }
+        return content.flip();
+    }
+
+    private MappedByteBuffer map(Long packId) throws IOException {
+        try {
+            return mappings.computeIfAbsent(packId, id -> {
+                try (FileChannel channel = FileChannel.open(packPath(id), StandardOpenOption.READ)) {
+                    return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private FileChannel channel(Long packId) throws IOException {
+        try {
+            return channels.computeIfAbsent(packId, id -> {
+                try {
+                    return FileChannel.open(packPath(id), StandardOpenOption.READ);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Close the channels of packs that were read while unsealed
+     */
+    @PreDestroy
+    public void closeChannels() {
+        channels.keySet().forEach(this::closeChannel);
+    }
+
+    private void closeChannel(Long packId) {
+        FileChannel channel = channels.remove(packId);
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close pack {}", packId, e);
+            }
+        }
+    }
+
+    private Path packPath(Long packId) {
+        return Paths.get(uploadDir).toAbsolutePath().normalize().resolve(PACK_DIR).resolve(String.format("%010d.pack", packId));
+    }
+
+    private boolean isEnabled() {
+        return enabled && "filesystem".equals(storageBackend);
+    }
+
+    /**
+     * Reads bytes of a pack
+     */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
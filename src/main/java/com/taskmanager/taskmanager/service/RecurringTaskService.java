@@ -2,6 +2,9 @@ package com.taskmanager.taskmanager.service;
 
 import com.taskmanager.taskmanager.model.RecurrencePattern;
 import com.taskmanager.taskmanager.model.Task;
+import com.taskmanager.taskmanager.monitoring.RecurringTasksEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -17,6 +20,10 @@ public class RecurringTaskService {
     @Autowired
     private TaskService taskService;
 
+    // The job's duration is recorded by Spring as tasks.scheduled.execution; this counts what it did
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
     /**
      * Creates a new task instance based on a recurring task pattern
      * 
@@ -60,7 +67,7 @@ public class RecurringTaskService {
      * @param task The recurring task
      * @return The next due date
      */
-    private LocalDate calculateNextDueDate(Task task) {
+    LocalDate calculateNextDueDate(Task task) {
         LocalDate currentDueDate = task.getDueDate();
         RecurrencePattern pattern = task.getRecurrencePattern();
         Integer interval = task.getRecurrenceInterval() != null ? task.getRecurrenceInterval() : 1;
@@ -91,22 +98,30 @@ public class RecurringTaskService {
     @Scheduled(cron = "0 0 0 * * ?")
     @Transactional
     public void processRecurringTasks() {
+        RecurringTasksEvent event = new RecurringTasksEvent();
+        event.begin();
         // Get all recurring tasks that are due today or in the past and not completed
         List<Task> recurringTasks = taskService.findRecurringTasksDueToday();
+        event.due = recurringTasks.size();
         
         for (Task task : recurringTasks) {
             // Skip if the recurrence end date has passed
             if (task.getRecurrenceEndDate() != null && 
                 task.getRecurrenceEndDate().isBefore(LocalDate.now())) {
+                meterRegistry.counter("taskmanager.recurring.tasks", "result", "ended").increment();
+                event.ended++;
                 continue;
             }
             
             // Create a new instance of the recurring task
             createRecurringTaskInstance(task);
+            meterRegistry.counter("taskmanager.recurring.tasks", "result", "created").increment();
+            event.created++;
             
             // Mark the current task as completed
             task.setCompleted(true);
             taskService.updateTask(task);
         }
+        event.commit();
     }
 }
@@ -0,0 +1,209 @@
+package com.taskmanager.taskmanager.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Signed, expiring download tokens.
+ *
+ * A token carries everything needed to serve a file (storage path, name, content
+ * type, codec and cache headers) together with its expiry, signed with HMAC-SHA256.
+ * The download route only has to check the signature and the clock, so files are
+ * served without loading the user, task or attachment. Authorization happens once,
+ * when the token is minted.
+ *
+ * Expiries are rounded up to a whole window, so tokens minted for the same file
+ * within a window are identical and the browser cache keeps hitting.
+ *
+ * The key must be the same on every instance and across restarts, or URLs minted
+ * on one instance fail on the others, so startup fails without one. Only the dev
+ * and test profiles fall back to a random key.
+ */
+@Slf4j
+@Service
+public class SignedUrlService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final byte VERSION = 1;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // The output size of SHA-256; a shorter key weakens the signature
+    private static final int MIN_SECRET_BYTES = 32;
+
+    @Autowired
+    private Environment environment;
+
+    // Shared by every instance serving downloads
+    @Value("${attachment.signed-url.secret:}")
+    private String secret;
+
+    // Tokens stay valid for between one and two windows
+    @Value("${attachment.signed-url.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private SecretKeySpec key;
+
+    /**
+     * A minted token
+     */
+    @lombok.Value
+    public static class SignedToken {
+        String token;
+        Instant expiresAt;
+    }
+
+    /**
+     * Load the signing key
+     *
+     * @throws IllegalStateException If the secret is missing outside the dev and test profiles, or too short
+     */
+    @PostConstruct
+    void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            if (!environment.acceptsProfiles(Profiles.of("dev", "test"))) {
+                throw new IllegalStateException("attachment.signed-url.secret must be set to the same value on every instance, "
+                        + "at least " + MIN_SECRET_BYTES + " bytes long");
+            }
+            log.warn("attachment.signed-url.secret is not set; signed URLs use a random key and are only valid on this instance until it restarts");
+            keyBytes = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("attachment.signed-url.secret must be at least " + MIN_SECRET_BYTES + " bytes long");
+            }
+        }
+        key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    /**
+     * Sign a download, valid until the end of the next expiry window
+     *
+     * @param download The file to serve, as the authorized route would serve it
+     * @return The token and its expiry
+     */
+    public SignedToken sign(FileDownloadService.Download download) {
+        long window = Math.max(1, ttlSeconds);
+        long expiresAt = (Instant.now().getEpochSecond() / window + 2) * window;
+        byte[] payload = encode(download, expiresAt);
+        String token = ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac(payload));
+        return new SignedToken(token, Instant.ofEpochSecond(expiresAt));
+    }
+
+    /**
+     * Check a token's signature and expiry
+     *
+     * @param token The token
+     * @return The download it grants, or empty if the token is malformed, forged or expired
+     */
+    public Optional<FileDownloadService.Download> verify(String token) {
+        int separator = token.indexOf('.');
+        if (separator <= 0) {
+            return Optional.empty();
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        // Constant-time comparison, so the signature cannot be guessed byte by byte
+        if (!MessageDigest.isEqual(mac(payload), signature)) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readByte() != VERSION) {
+                return Optional.empty();
+            }
+            long expiresAt = in.readLong();
+            if (Instant.now().getEpochSecond() >= expiresAt) {
+                return Optional.empty();
+            }
+            FileDownloadService.Download download = FileDownloadService.Download.builder()
+                    .storagePath(readString(in))
+                    .contentType(readString(in))
+                    .fileName(readString(in))
+                    .etag(readString(in))
+                    .cacheControl(readString(in))
+                    .inline(in.readBoolean())
+                    .contentEncoding(readString(in))
+                    .decodedLength(in.readBoolean() ? in.readLong() : null)
+                    .build();
+            return Optional.of(download);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] encode(FileDownloadService.Download download, long expiresAt) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(expiresAt);
+            writeString(out, download.getStoragePath());
+            writeString(out, download.getContentType());
+            writeString(out, download.getFileName());
+            writeString(out, download.getEtag());
+            writeString(out, download.getCacheControl());
+            out.writeBoolean(download.isInline());
+            writeString(out, download.getContentEncoding());
+            out.writeBoolean(download.getDecodedLength() != null);
+            if (download.getDecodedLength() != null) {
+                out.writeLong(download.getDecodedLength());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode download token", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private byte[] mac(byte[] payload) {
+        try {
+            // Mac instances are not thread-safe and cheap to create
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
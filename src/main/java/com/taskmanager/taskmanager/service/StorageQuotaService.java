@@ -0,0 +1,198 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.dto.StorageUsageDto;
+import com.taskmanager.taskmanager.model.StorageUsage;
+import com.taskmanager.taskmanager.repository.AttachmentRepository;
+import com.taskmanager.taskmanager.repository.StorageUsageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user attachment storage accounting.
+ *
+ * Each user's usage is a counter row updated in the same transaction as the
+ * attachment insert or delete, so reading it never scans attachments. An upload is
+ * admitted by a single conditional update that only succeeds while the new total
+ * stays within the quota, so concurrent uploads cannot overshoot it. Counters that
+ * drift, e.g. because attachments were removed by a task or user cascade, are
+ * recomputed by a scheduled reconciliation.
+ */
+@Slf4j
+@Service
+public class StorageQuotaService {
+
+    private static final int MAX_TOP_CONSUMERS = 100;
+
+    @Autowired
+    private StorageUsageRepository storageUsageRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    // 0 means unlimited
+    @Value("${attachment.quota.bytes-per-user:1073741824}")
+    private long quotaBytes;
+
+    /**
+     * Thrown when an upload would take a user over their storage quota
+     */
+    public static class QuotaExceededException extends RuntimeException {
+        public QuotaExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Get the storage quota that applies to every user
+     *
+     * @return The quota in bytes, or 0 if storage is unlimited
+     */
+    public long getQuota() {
+        return quotaBytes;
+    }
+
+    /**
+     * Check that a user has room for an upload, before its content is received
+     *
+     * The upload is admitted for good by {@link #recordUpload(Long, long)} once its exact size is known.
+     *
+     * @param userId The ID of the user
+     * @param bytes The size of the upload in bytes
+     * @throws QuotaExceededException If the upload would exceed the user's quota
+     */
+    public void checkQuota(Long userId, long bytes) {
+        if (quotaBytes <= 0) {
+            return;
+        }
+
+        long usedBytes = storageUsageRepository.findById(userId).map(StorageUsage::getUsedBytes).orElse(0L);
+        if (usedBytes + bytes > quotaBytes) {
+            throw quotaExceeded(usedBytes);
+        }
+    }
+
+    /**
+     * Add an upload to a user's usage, if it fits within the quota
+     *
+     * Must be called in the transaction that saves the attachment.
+     *
+     * @param userId The ID of the user
+     * @param bytes The size of the upload in bytes
+     * @throws QuotaExceededException If the upload would exceed the user's quota
+     */
+    @Transactional
+    public void recordUpload(Long userId, long bytes) {
+        if (addUsage(userId, bytes) == 0) {
+            // First upload: create the counter, then apply the same conditional update
+            storageUsageRepository.insertIfAbsent(userId, LocalDateTime.now());
+            if (addUsage(userId, bytes) == 0) {
+                throw quotaExceeded(storageUsageRepository.findById(userId).map(StorageUsage::getUsedBytes).orElse(0L));
+            }
+        }
+    }
+
+    /**
+     * Remove a deleted attachment from a user's usage
+     *
+     * @param userId The ID of the user
+     * @param bytes The size of the attachment in bytes
+     */
+    @Transactional
+    public void recordDelete(Long userId, long bytes) {
+        // A missing counter is recreated by reconciliation
+        storageUsageRepository.addUsage(userId, -bytes, -1, LocalDateTime.now());
+    }
+
+    /**
+     * Get the users using the most storage, from the counters
+     *
+     * @param limit The maximum number of users to return
+     * @return The users, largest first
+     */
+    public List<StorageUsageDto> getTopConsumers(int limit) {
+        return storageUsageRepository.findTopConsumers(PageRequest.of(0, Math.max(1, Math.min(limit, MAX_TOP_CONSUMERS))))
+                .stream()
+                .map(consumer -> StorageUsageDto.builder()
+                        .userId(consumer.getUserId())
+                        .username(consumer.getUsername())
+                        .usedBytes(consumer.getUsedBytes())
+                        .attachmentCount(consumer.getAttachmentCount())
+                        .quotaBytes(quotaBytes > 0 ? quotaBytes : null)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Recompute the counters that no longer match the users' attachments
+     *
+     * The database finds the drifted users in one pass; each is then recomputed in
+     * its own transaction with the counter row locked, so uploads and deletes
+     * running at the same time are neither lost nor counted twice.
+     *
+     * @return The number of counters corrected
+     */
+    @Scheduled(cron = "${attachment.quota.reconcile-cron:0 30 3 * * ?}")
+    public int reconcileUsage() {
+        List<Long> userIds = storageUsageRepository.findUsersWithDrift();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Long userId : userIds) {
+            transactionTemplate.executeWithoutResult(status -> recalculateUsage(userId));
+        }
+        if (!userIds.isEmpty()) {
+            log.info("Corrected storage usage of {} users", userIds.size());
+        }
+        return userIds.size();
+    }
+
+    private void recalculateUsage(Long userId) {
+        StorageUsage usage = storageUsageRepository.findForUpdate(userId).orElse(null);
+        if (usage == null) {
+            storageUsageRepository.insertIfAbsent(userId, LocalDateTime.now());
+            usage = storageUsageRepository.findForUpdate(userId).orElseThrow();
+        }
+
+        // Counted after the lock is held, so every upload that updated the counter first is included
+        long usedBytes = attachmentRepository.sumFileSizeByUserId(userId);
+        long attachmentCount = attachmentRepository.countByUserId(userId);
+        if (attachmentCount == 0) {
+            // The user has no attachments left, or no longer exists
+            storageUsageRepository.delete(usage);
+            return;
+        }
+
+        usage.setUsedBytes(usedBytes);
+        usage.setAttachmentCount(attachmentCount);
+        usage.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private int addUsage(Long userId, long bytes) {
+        LocalDateTime now = LocalDateTime.now();
+        return quotaBytes > 0
+                ? storageUsageRepository.addUsageWithinQuota(userId, bytes, 1, quotaBytes, now)
+                : storageUsageRepository.addUsage(userId, bytes, 1, now);
+    }
+
+    private QuotaExceededException quotaExceeded(long usedBytes) {
+        meterRegistry.counter("taskmanager.storage.quota.rejections").increment();
+        return new QuotaExceededException("Storage quota exceeded: " + usedBytes + " of " + quotaBytes + " bytes used");
+    }
+}
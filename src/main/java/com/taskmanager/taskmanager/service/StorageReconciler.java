@@ -0,0 +1,231 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.repository.AttachmentRepository;
+import com.taskmanager.taskmanager.repository.PackedFileRepository;
+import com.taskmanager.taskmanager.storage.StorageBackend;
+import com.taskmanager.taskmanager.storage.StorageObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Garbage collection of stored files that no attachment references.
+ *
+ * Attachments removed by cascade when their task or user is deleted, and uploads
+ * that failed between placing the file and committing, leave files behind. A run
+ * lists the store and the attachments' storage paths, both sorted by code point,
+ * and merge-joins the two, so neither is held in memory. The paths are read in
+ * keyset pages, each its own short query, so a run that takes hours holds no
+ * connection or snapshot while it lists and pauses. Files without a
+ * reference that are older than the grace period are candidates; each is checked
+ * again and deleted in its own transaction by
+ * {@link FileOperationService#deleteOrphanedFile(String, String)}, so an upload that
+ * raced with the run keeps its file. Thumbnails and temporary files belong to the
+ * file whose path they extend. Packed files are found through the pack index.
+ */
+@Slf4j
+@Service
+public class StorageReconciler {
+
+    // <storagePath>.<size>.<jpg|png> thumbnails and <storagePath>.<uuid>.tmp partial writes
+    private static final Pattern DERIVED_KEY = Pattern.compile("(.+)\\.(?:\\d+\\.(?:jpg|png)|[0-9a-f-]{36}\\.tmp)");
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private FileOperationService fileOperationService;
+
+    @Autowired
+    private PackedFileRepository packedFileRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${attachment.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${attachment.gc.grace-period-hours:24}")
+    private long gracePeriodHours;
+
+    @Value("${attachment.gc.batch-size:500}")
+    private int batchSize;
+
+    // Referenced paths fetched per query
+    @Value("${attachment.gc.page-size:1000}")
+    private int pageSize;
+
+    @Value("${attachment.gc.pause-ms:100}")
+    private long pauseMillis;
+
+    private Counter freedBytes;
+
+    private Counter deletedFiles;
+
+    /**
+     * Outcome of a reconciliation run
+     */
+    @lombok.Value
+    public static class Result {
+        long scanned;
+        long deleted;
+        long freedBytes;
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        freedBytes = Counter.builder("attachments.gc.freed")
+                .baseUnit("bytes")
+                .description("Bytes freed by deleting orphaned attachment files")
+                .register(meterRegistry);
+        deletedFiles = Counter.builder("attachments.gc.deleted")
+                .baseUnit("files")
+                .description("Orphaned attachment files deleted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scheduled reconciliation run
+     */
+    @Scheduled(initialDelayString = "${attachment.gc.initial-delay-ms:600000}",
+            fixedDelayString = "${attachment.gc.interval-ms:21600000}")
+    public void scheduledReconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Result result = reconcile();
+            log.info("Storage reconciliation scanned {} files, deleted {} orphans, freed {} bytes",
+                    result.getScanned(), result.getDeleted(), result.getFreedBytes());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Storage reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Delete stored files that no attachment references and that are older than the grace period
+     *
+     * Pages of referenced paths are read at different times, so an attachment added
+     * behind the current page is missed; the check before each delete keeps its file.
+     *
+     * @return The outcome of the run
+     * @throws IOException If the store cannot be listed
+     */
+    public Result reconcile() throws IOException {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(gracePeriodHours));
+        long scanned = 0;
+        long deleted = 0;
+        long freed = 0;
+        try (Stream<StorageObject> objects = fileStorageService.listStored()) {
+            Iterator<String> referenced = referencedPaths();
+            String current = referenced.hasNext() ? referenced.next() : null;
+            String previous = null;
+
+            for (Iterator<StorageObject> it = objects.iterator(); it.hasNext(); ) {
+                StorageObject object = it.next();
+                String key = object.getKey();
+                while (current != null && StorageBackend.KEY_ORDER.compare(current, key) < 0) {
+                    previous = current;
+                    current = referenced.hasNext() ? referenced.next() : null;
+                }
+
+                // A derived file sorts right after the file it extends, the last path passed
+                String ownerPath = ownerPath(key);
+                boolean live = key.equals(current) || ownerPath.equals(previous);
+                if (!live && object.getLastModified().isBefore(cutoff)
+                        && fileOperationService.deleteOrphanedFile(key, ownerPath)) {
+                    deleted++;
+                    freed += object.getSize();
+                    deletedFiles.increment();
+                    freedBytes.increment(object.getSize());
+                }
+
+                if (++scanned % batchSize == 0) {
+                    pause();
+                }
+            }
+
+            // Packed files are not listed by the store
+            LocalDateTime packedCutoff = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+            for (String storagePath : packedFileRepository.findUnreferencedPaths(packedCutoff)) {
+                Optional<StorageObject> packed = fileStorageService.stat(storagePath);
+                if (packed.isPresent() && fileOperationService.deleteOrphanedFile(storagePath, storagePath)) {
+                    deleted++;
+                    freed += packed.get().getSize();
+                    deletedFiles.increment();
+                    freedBytes.increment(packed.get().getSize());
+                }
+            }
+
+            long stagingFreed = fileStorageService.deleteStaleStagingFiles(cutoff);
+            freed += stagingFreed;
+            freedBytes.increment(stagingFreed);
+        }
+        return new Result(scanned, deleted, freed);
+    }
+
+    /**
+     * Iterate over the attachments' distinct storage paths, fetching the next page once one is used up
+     */
+    private Iterator<String> referencedPaths() {
+        return new Iterator<>() {
+            private List<String> page = attachmentRepository.findFilePathsAfter("", pageSize);
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == page.size() && page.size() == pageSize) {
+                    page = attachmentRepository.findFilePathsAfter(page.get(next - 1), pageSize);
+                    next = 0;
+                }
+                return next < page.size();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(next++);
+            }
+        };
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Storage reconciliation interrupted", e);
+        }
+    }
+
+    private static String ownerPath(String key) {
+        Matcher matcher = DERIVED_KEY.matcher(key);
+        return matcher.matches() ? matcher.group(1) : key;
+    }
+}
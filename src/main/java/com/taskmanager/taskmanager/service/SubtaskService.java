@@ -3,6 +3,7 @@ package com.taskmanager.taskmanager.service;
 import com.taskmanager.taskmanager.model.Subtask;
 import com.taskmanager.taskmanager.model.Task;
 import com.taskmanager.taskmanager.repository.SubtaskRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,6 +13,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("taskmanager.service")
 public class SubtaskService {
 
     @Autowired
@@ -30,13 +32,29 @@ public class SubtaskService {
         
         // Set position if not provided
         if (subtask.getPosition() == null) {
-            List<Subtask> existingSubtasks = subtaskRepository.findByTaskId(subtask.getTask().getId());
-            subtask.setPosition(existingSubtasks.size() + 1);
+            long existingSubtasks = subtaskRepository.countByTaskId(subtask.getTask().getId());
+            subtask.setPosition((int) existingSubtasks + 1);
         }
         
         return subtaskRepository.save(subtask);
     }
 
+    /**
+     * Create several subtasks whose positions are already known
+     * 
+     * @param subtasks The subtasks to create
+     * @return The created subtasks
+     */
+    @Transactional
+    public List<Subtask> createSubtasks(List<Subtask> subtasks) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Subtask subtask : subtasks) {
+            subtask.setCreatedAt(now);
+        }
+        
+        return subtaskRepository.saveAll(subtasks);
+    }
+
     /**
      * Get all subtasks for a task
      * 
@@ -98,11 +116,12 @@ public class SubtaskService {
         
         for (int i = 0; i < subtaskIds.size(); i++) {
             Long subtaskId = subtaskIds.get(i);
+            int position = i + 1;
             subtasks.stream()
                     .filter(subtask -> subtask.getId().equals(subtaskId))
                     .findFirst()
                     .ifPresent(subtask -> {
-                        subtask.setPosition(i + 1);
+                        subtask.setPosition(position);
                         subtaskRepository.save(subtask);
                     });
         }
@@ -1,18 +1,23 @@
 package com.taskmanager.taskmanager.service;
 
 import com.taskmanager.taskmanager.model.TaskStatus;
+import com.taskmanager.taskmanager.monitoring.TaskWriteEvent;
 import com.taskmanager.taskmanager.repository.TaskRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.taskmanager.taskmanager.model.Task;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("taskmanager.service")
 public class TaskService {
 
     @Autowired
@@ -20,7 +25,11 @@ public class TaskService {
 
     @Transactional
     public Task createTask(Task task) {
-        return taskRepository.save(task);
+        TaskWriteEvent event = new TaskWriteEvent();
+        event.begin();
+        Task created = taskRepository.save(task);
+        commit(event, "create", created.getId());
+        return created;
     }
 
     public List<Task> getTaskByUserId(Long userId) {
@@ -33,12 +42,19 @@ public class TaskService {
 
     @Transactional
     public void deleteTask(Long taskId) {
+        TaskWriteEvent event = new TaskWriteEvent();
+        event.begin();
         taskRepository.deleteById(taskId);
+        commit(event, "delete", taskId);
     }
 
     @Transactional
     public Task updateTask(Task task) {
-        return taskRepository.save(task);
+        TaskWriteEvent event = new TaskWriteEvent();
+        event.begin();
+        Task updated = taskRepository.save(task);
+        commit(event, "update", updated.getId());
+        return updated;
     }
 
     public Optional<Task> getTaskById(Long taskId) {
@@ -74,4 +90,55 @@ public class TaskService {
                 .filter(task -> parentTaskId.equals(task.getParentTaskId()))
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Compute the dashboard statistics for a user's tasks
+     *
+     * @param tasks The user's tasks
+     * @param today The date to count overdue and upcoming tasks from
+     * @return The statistics, keyed by name
+     */
+    public Map<String, Object> getTaskStatistics(List<Task> tasks, LocalDate today) {
+        Map<String, Object> statistics = new HashMap<>();
+
+        // Total tasks
+        statistics.put("totalTasks", tasks.size());
+
+        // Tasks by status
+        Map<TaskStatus, Long> tasksByStatus = tasks.stream()
+                .collect(Collectors.groupingBy(Task::getStatus, Collectors.counting()));
+        statistics.put("tasksByStatus", tasksByStatus);
+
+        // Overdue tasks
+        long overdueTasks = tasks.stream()
+                .filter(task -> task.getDueDate().isBefore(today) && task.getStatus() != TaskStatus.COMPLETED)
+                .count();
+        statistics.put("overdueTasks", overdueTasks);
+
+        // Tasks due today
+        long tasksDueToday = tasks.stream()
+                .filter(task -> task.getDueDate().isEqual(today) && task.getStatus() != TaskStatus.COMPLETED)
+                .count();
+        statistics.put("tasksDueToday", tasksDueToday);
+
+        // Tasks due this week
+        LocalDate endOfWeek = today.plusDays(7);
+        long tasksDueThisWeek = tasks.stream()
+                .filter(task ->
+                    task.getDueDate().isAfter(today) &&
+                    task.getDueDate().isBefore(endOfWeek) &&
+                    task.getStatus() != TaskStatus.COMPLETED)
+                .count();
+        statistics.put("tasksDueThisWeek", tasksDueThisWeek);
+
+        return statistics;
+    }
+
+    private static void commit(TaskWriteEvent event, String operation, Long taskId) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.taskId = taskId != null ? taskId : 0;
+            event.commit();
+        }
+    }
 }
@@ -1,23 +1,35 @@
 package com.taskmanager.taskmanager.service;
 
 import com.taskmanager.taskmanager.dto.TaskTemplateDto;
+import com.taskmanager.taskmanager.dto.TaskTemplateSummaryDto;
 import com.taskmanager.taskmanager.dto.TemplateSubtaskDto;
 import com.taskmanager.taskmanager.model.*;
+import com.taskmanager.taskmanager.repository.TaskBatchRepository;
 import com.taskmanager.taskmanager.repository.TaskTemplateRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("taskmanager.service")
 public class TaskTemplateService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private TaskTemplateRepository templateRepository;
 
@@ -33,14 +45,25 @@ public class TaskTemplateService {
     @Autowired
     private SubtaskService subtaskService2;
 
+    @Autowired
+    private TaskBatchRepository taskBatchRepository;
+
+    @Autowired
+    private TemplatePlanCache planCache;
+
+    @Value("${template.batch.max-size:1000}")
+    private int maxBatchSize;
+
     /**
      * Create a new task template
      * 
      * @param template The template to create
      * @return The created template
+     * @throws IllegalArgumentException If the title or description template is invalid
      */
     @Transactional
     public TaskTemplate createTemplate(TaskTemplate template) {
+        validateTemplateText(template);
         template.setCreatedAt(LocalDateTime.now());
         return templateRepository.save(template);
     }
@@ -70,13 +93,31 @@ public class TaskTemplateService {
      * 
      * @param template The template to update
      * @return The updated template
+     * @throws IllegalArgumentException If the title or description template is invalid
      */
     @Transactional
     public TaskTemplate updateTemplate(TaskTemplate template) {
+        validateTemplateText(template);
         template.setUpdatedAt(LocalDateTime.now());
+        planCache.invalidate(template.getId());
         return templateRepository.save(template);
     }
 
+    /**
+     * Check that the title and description templates only use known variables
+     * 
+     * @param template The template to validate
+     * @throws IllegalArgumentException If a template is malformed or uses an unknown variable
+     */
+    public void validateTemplateText(TaskTemplate template) {
+        if (template.getTaskTitleTemplate() != null) {
+            TemplateText.parse(template.getTaskTitleTemplate());
+        }
+        if (template.getTaskDescriptionTemplate() != null) {
+            TemplateText.parse(template.getTaskDescriptionTemplate());
+        }
+    }
+
     /**
      * Delete a template
      * 
@@ -84,9 +125,30 @@ public class TaskTemplateService {
      */
     @Transactional
     public void deleteTemplate(Long templateId) {
+        planCache.invalidate(templateId);
         templateRepository.deleteById(templateId);
     }
 
+    /**
+     * Get the compiled instantiation plan for a template, compiling and caching it on first use
+     * 
+     * @param templateId The ID of the template
+     * @return The plan, if the template exists
+     */
+    @Transactional(readOnly = true)
+    public Optional<TemplateInstantiationPlan> getInstantiationPlan(Long templateId) {
+        Optional<TemplateInstantiationPlan> cached = planCache.get(templateId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        
+        long version = planCache.currentVersion();
+        Optional<TemplateInstantiationPlan> plan = getTemplateById(templateId)
+                .map(template -> TemplateInstantiationPlan.compile(template, subtaskService.getSubtasksByTemplateId(templateId)));
+        plan.ifPresent(compiled -> planCache.put(compiled, version));
+        return plan;
+    }
+
     /**
      * Create a task from a template
      * 
@@ -96,48 +158,117 @@ public class TaskTemplateService {
      */
     @Transactional
     public Task createTaskFromTemplate(Long templateId, User user) {
-        Optional<TaskTemplate> templateOptional = getTemplateById(templateId);
-        if (templateOptional.isEmpty()) {
-            throw new IllegalArgumentException("Template not found");
-        }
-        
-        TaskTemplate template = templateOptional.get();
-        
-        // Create the task
+        TemplateInstantiationPlan plan = getInstantiationPlan(templateId)
+                .orElseThrow(() -> new IllegalArgumentException("Template not found"));
+        return createTaskFromPlan(plan, user, Map.of());
+    }
+
+    /**
+     * Create a task from a compiled template plan
+     * 
+     * @param plan The compiled template plan
+     * @param user The user creating the task
+     * @param variables The caller-supplied template variables
+     * @return The created task
+     * @throws IllegalArgumentException If a variable used by the template is missing
+     */
+    @Transactional
+    public Task createTaskFromPlan(TemplateInstantiationPlan plan, User user, Map<String, String> variables) {
+        TemplateContext context = plan.newContext(user, variables);
         Task task = Task.builder()
-                .title(template.getTaskTitleTemplate() != null ? template.getTaskTitleTemplate() : template.getName())
-                .description(template.getTaskDescriptionTemplate() != null ? template.getTaskDescriptionTemplate() : template.getDescription())
+                .title(plan.getTitle().render(context))
+                .description(plan.getDescription().render(context))
                 .status(TaskStatus.TODO)
-                .priority(template.getDefaultPriority() != null ? template.getDefaultPriority() : Priority.MEDIUM)
-                .dueDate(template.getDefaultDueDateDays() != null ? LocalDate.now().plusDays(template.getDefaultDueDateDays()) : LocalDate.now().plusDays(7))
+                .priority(plan.getPriority())
+                .dueDate(context.getDueDate())
                 .completed(false)
                 .user(user)
                 .build();
         
         // Add categories
-        if (template.getCategories() != null && !template.getCategories().isEmpty()) {
-            task.getCategories().addAll(template.getCategories());
+        if (!plan.getCategoryIds().isEmpty()) {
+            task.getCategories().addAll(categoryService.getCategoriesByIds(plan.getCategoryIds()));
         }
         
         // Save the task
         Task savedTask = taskService.createTask(task);
         
-        // Create subtasks
-        List<TemplateSubtask> templateSubtasks = subtaskService.getSubtasksByTemplateId(templateId);
-        for (TemplateSubtask templateSubtask : templateSubtasks) {
-            Subtask subtask = Subtask.builder()
-                    .title(templateSubtask.getTitle())
-                    .description(templateSubtask.getDescription())
-                    .position(templateSubtask.getPosition())
+        // Create subtasks with the positions resolved at compile time
+        List<Subtask> subtasks = new ArrayList<>(plan.getSubtasks().size());
+        for (TemplateInstantiationPlan.SubtaskSpec spec : plan.getSubtasks()) {
+            subtasks.add(Subtask.builder()
+                    .title(spec.getTitle())
+                    .description(spec.getDescription())
+                    .position(spec.getPosition())
                     .completed(false)
                     .task(savedTask)
-                    .build();
-            
-            subtaskService2.createSubtask(subtask);
+                    .build());
         }
+        subtaskService2.createSubtasks(subtasks);
         
         return savedTask;
     }
+
+    /**
+     * Create several tasks from a compiled template plan using JDBC batches
+     * 
+     * @param plan The compiled template plan
+     * @param user The user creating the tasks
+     * @param count The number of tasks to create, ignored when per-task variables are given
+     * @param variables The caller-supplied template variables shared by all tasks
+     * @param taskVariables Optional caller-supplied template variables for each task
+     * @return The IDs of the created tasks
+     * @throws IllegalArgumentException If the count is out of range or a variable is missing
+     */
+    @Transactional
+    public List<Long> createTasksFromPlan(TemplateInstantiationPlan plan, User user, int count,
+                                          Map<String, String> variables, List<Map<String, String>> taskVariables) {
+        if (taskVariables != null && !taskVariables.isEmpty()) {
+            count = taskVariables.size();
+        }
+        if (count < 1 || count > maxBatchSize) {
+            throw new IllegalArgumentException("Count must be between 1 and " + maxBatchSize);
+        }
+        
+        TemplateContext context = plan.newContext(user, variables);
+        List<String> titles;
+        List<String> descriptions;
+        if (taskVariables == null || taskVariables.isEmpty()
+                || (!plan.getTitle().usesCallerVariables() && !plan.getDescription().usesCallerVariables())) {
+            // Every task gets the same text, so render once
+            titles = Collections.nCopies(count, plan.getTitle().render(context));
+            descriptions = Collections.nCopies(count, plan.getDescription().render(context));
+        } else {
+            titles = new ArrayList<>(count);
+            descriptions = new ArrayList<>(count);
+            for (Map<String, String> itemVariables : taskVariables) {
+                Map<String, String> merged = new HashMap<>(context.getVariables());
+                merged.putAll(itemVariables);
+                TemplateContext itemContext = context.toBuilder().variables(merged).build();
+                titles.add(plan.getTitle().render(itemContext));
+                descriptions.add(plan.getDescription().render(itemContext));
+            }
+        }
+        
+        return taskBatchRepository.insertTasksFromPlan(plan, user.getId(), context.getDueDate(), titles, descriptions);
+    }
+    
+    /**
+     * Get a page of a user's templates ordered by name, using keyset pagination
+     * 
+     * @param userId The ID of the user
+     * @param afterName The name of the last template of the previous page, or null for the first page
+     * @param afterId The ID of the last template of the previous page, or null for the first page
+     * @param limit The maximum number of templates to return
+     * @return A page of templates
+     */
+    public List<TaskTemplate> getTemplatePage(Long userId, String afterName, Long afterId, int limit) {
+        Pageable pageable = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        if (afterName == null || afterId == null) {
+            return templateRepository.findFirstPageByUserId(userId, pageable);
+        }
+        return templateRepository.findPageByUserIdAfter(userId, afterName, afterId, pageable);
+    }
     
     /**
      * Convert a TaskTemplate to a TaskTemplateDto
@@ -146,7 +277,77 @@ public class TaskTemplateService {
      * @return The template DTO
      */
     public TaskTemplateDto convertToDto(TaskTemplate template) {
-        List<TemplateSubtaskDto> subtaskDtos = subtaskService.getSubtasksByTemplateId(template.getId()).stream()
+        List<Long> categoryIds = template.getCategories().stream()
+                .map(Category::getId)
+                .collect(Collectors.toList());
+        
+        return buildDto(template, subtaskService.getSubtasksByTemplateId(template.getId()), categoryIds);
+    }
+    
+    /**
+     * Convert a list of TaskTemplates to TaskTemplateDtos
+     * 
+     * Subtasks and category IDs for all templates are loaded with one query each
+     * and grouped in memory.
+     * 
+     * @param templates The list of templates to convert
+     * @return The list of template DTOs
+     */
+    public List<TaskTemplateDto> convertToDtoList(List<TaskTemplate> templates) {
+        if (templates.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<Long> templateIds = templates.stream()
+                .map(TaskTemplate::getId)
+                .collect(Collectors.toList());
+        
+        Map<Long, List<TemplateSubtask>> subtasksByTemplate = subtaskService.getSubtasksByTemplateIds(templateIds);
+        
+        Map<Long, List<Long>> categoryIdsByTemplate = new HashMap<>();
+        for (Object[] row : templateRepository.findCategoryIdsByTemplateIds(templateIds)) {
+            categoryIdsByTemplate.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+        }
+        
+        return templates.stream()
+                .map(template -> buildDto(template,
+                        subtasksByTemplate.getOrDefault(template.getId(), List.of()),
+                        categoryIdsByTemplate.getOrDefault(template.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Convert a list of TaskTemplates to lightweight summaries
+     * 
+     * @param templates The list of templates to convert
+     * @return The list of template summaries
+     */
+    public List<TaskTemplateSummaryDto> convertToSummaryList(List<TaskTemplate> templates) {
+        if (templates.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<Long> templateIds = templates.stream()
+                .map(TaskTemplate::getId)
+                .collect(Collectors.toList());
+        Map<Long, Long> subtaskCounts = subtaskService.countSubtasksByTemplateIds(templateIds);
+        
+        return templates.stream()
+                .map(template -> TaskTemplateSummaryDto.builder()
+                        .id(template.getId())
+                        .name(template.getName())
+                        .description(template.getDescription())
+                        .defaultPriority(template.getDefaultPriority())
+                        .defaultDueDateDays(template.getDefaultDueDateDays())
+                        .createdAt(template.getCreatedAt())
+                        .updatedAt(template.getUpdatedAt())
+                        .subtaskCount(subtaskCounts.getOrDefault(template.getId(), 0L))
+                        .build())
+                .collect(Collectors.toList());
+    }
+    
+    private TaskTemplateDto buildDto(TaskTemplate template, List<TemplateSubtask> subtasks, List<Long> categoryIds) {
+        List<TemplateSubtaskDto> subtaskDtos = subtasks.stream()
                 .map(subtask -> TemplateSubtaskDto.builder()
                         .id(subtask.getId())
                         .title(subtask.getTitle())
@@ -156,10 +357,6 @@ public class TaskTemplateService {
                         .build())
                 .collect(Collectors.toList());
         
-        List<Long> categoryIds = template.getCategories().stream()
-                .map(Category::getId)
-                .collect(Collectors.toList());
-        
         return TaskTemplateDto.builder()
                 .id(template.getId())
                 .name(template.getName())
@@ -175,16 +372,4 @@ public class TaskTemplateService {
                 .subtasks(subtaskDtos)
                 .build();
     }
-    
-    /**
-     * Convert a list of TaskTemplates to TaskTemplateDtos
-     * 
-     * @param templates The list of templates to convert
-     * @return The list of template DTOs
-     */
-    public List<TaskTemplateDto> convertToDtoList(List<TaskTemplate> templates) {
-        return templates.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-    }
 }
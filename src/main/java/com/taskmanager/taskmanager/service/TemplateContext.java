@@ -0,0 +1,22 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.User;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Values substituted into a {@link TemplateText} when a task is instantiated.
+ */
+@Value
+@Builder(toBuilder = true)
+public class TemplateContext {
+    LocalDate today;
+    LocalDate dueDate;
+    User user;
+    String templateName;
+    @Builder.Default
+    Map<String, String> variables = Map.of();
+}
@@ -0,0 +1,104 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.Category;
+import com.taskmanager.taskmanager.model.Priority;
+import com.taskmanager.taskmanager.model.TaskTemplate;
+import com.taskmanager.taskmanager.model.TemplateSubtask;
+import com.taskmanager.taskmanager.model.User;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, pre-resolved form of a task template.
+ *
+ * A plan holds everything needed to instantiate tasks from a template without
+ * touching the template entities again: defaults are applied, category IDs are
+ * resolved, title and description templates are parsed and subtasks are sorted
+ * with their final positions.
+ */
+@Value
+@Builder
+public class TemplateInstantiationPlan {
+
+    private static final int DEFAULT_DUE_DATE_DAYS = 7;
+
+    Long templateId;
+    Long ownerId;
+    String templateName;
+    TemplateText title;
+    TemplateText description;
+    Priority priority;
+    int dueDateDays;
+    List<Long> categoryIds;
+    List<SubtaskSpec> subtasks;
+
+    @Value
+    public static class SubtaskSpec {
+        String title;
+        String description;
+        int position;
+    }
+
+    /**
+     * Create the context for rendering this plan's templates
+     *
+     * @param user The user creating the task
+     * @param variables The caller-supplied variables
+     * @return The template context
+     */
+    public TemplateContext newContext(User user, Map<String, String> variables) {
+        LocalDate today = LocalDate.now();
+        return TemplateContext.builder()
+                .today(today)
+                .dueDate(today.plusDays(dueDateDays))
+                .user(user)
+                .templateName(templateName)
+                .variables(variables != null ? variables : Map.of())
+                .build();
+    }
+
+    /**
+     * Compile a template and its subtasks into a plan
+     *
+     * @param template The template to compile
+     * @param templateSubtasks The template's subtasks, ordered by position
+     * @return The compiled plan
+     */
+    public static TemplateInstantiationPlan compile(TaskTemplate template, List<TemplateSubtask> templateSubtasks) {
+        List<SubtaskSpec> subtasks = new ArrayList<>(templateSubtasks.size());
+        for (TemplateSubtask templateSubtask : templateSubtasks) {
+            int position = templateSubtask.getPosition() != null ? templateSubtask.getPosition() : subtasks.size() + 1;
+            subtasks.add(new SubtaskSpec(templateSubtask.getTitle(), templateSubtask.getDescription(), position));
+        }
+
+        List<Long> categoryIds = template.getCategories().stream()
+                .map(Category::getId)
+                .toList();
+
+        return TemplateInstantiationPlan.builder()
+                .templateId(template.getId())
+                .ownerId(template.getUser().getId())
+                .templateName(template.getName())
+                .title(template.getTaskTitleTemplate() != null ? compileText(template.getTaskTitleTemplate()) : TemplateText.literal(template.getName()))
+                .description(template.getTaskDescriptionTemplate() != null ? compileText(template.getTaskDescriptionTemplate()) : TemplateText.literal(template.getDescription()))
+                .priority(template.getDefaultPriority() != null ? template.getDefaultPriority() : Priority.MEDIUM)
+                .dueDateDays(template.getDefaultDueDateDays() != null ? template.getDefaultDueDateDays() : DEFAULT_DUE_DATE_DAYS)
+                .categoryIds(categoryIds)
+                .subtasks(List.copyOf(subtasks))
+                .build();
+    }
+
+    private static TemplateText compileText(String source) {
+        try {
+            return TemplateText.parse(source);
+        } catch (IllegalArgumentException e) {
+            // Templates saved before placeholders were validated keep rendering verbatim
+            return TemplateText.literal(source);
+        }
+    }
+}
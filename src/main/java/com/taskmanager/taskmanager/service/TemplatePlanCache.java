@@ -0,0 +1,101 @@
+package com.taskmanager.taskmanager.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of compiled template plans.
+ *
+ * Every invalidation bumps a version counter. A plan compiled while an
+ * invalidation was in flight is not stored, so a reader that loaded the
+ * template before a concurrent edit committed can never re-populate the
+ * cache with stale data.
+ */
+@Component
+public class TemplatePlanCache {
+
+    private final ConcurrentMap<Long, TemplateInstantiationPlan> plans = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Get a cached plan
+     *
+     * @param templateId The ID of the template
+     * @return The plan, if cached
+     */
+    public Optional<TemplateInstantiationPlan> get(Long templateId) {
+        return Optional.ofNullable(plans.get(templateId));
+    }
+
+    /**
+     * Get the current cache version, to be passed to {@link #put} once a plan has been compiled
+     *
+     * @return The current version
+     */
+    public long currentVersion() {
+        return version.get();
+    }
+
+    /**
+     * Store a plan unless the cache was invalidated since it started compiling
+     *
+     * @param plan The plan to store
+     * @param compiledAtVersion The cache version read before the template was loaded
+     */
+    public void put(TemplateInstantiationPlan plan, long compiledAtVersion) {
+        plans.put(plan.getTemplateId(), plan);
+        if (version.get() != compiledAtVersion) {
+            plans.remove(plan.getTemplateId(), plan);
+        }
+    }
+
+    /**
+     * Evict a template's plan now and again after the current transaction commits
+     *
+     * @param templateId The ID of the template
+     */
+    public void invalidate(Long templateId) {
+        evict(templateId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(templateId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Evict all plans now and again after the current transaction commits, e.g. when a
+     * category referenced by templates is removed
+     */
+    public void invalidateAll() {
+        evictAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictAll();
+                }
+            });
+        }
+    }
+
+    private void evict(Long templateId) {
+        version.incrementAndGet();
+        plans.remove(templateId);
+    }
+
+    private void evictAll() {
+        version.incrementAndGet();
+        plans.clear();
+    }
+}
@@ -2,19 +2,28 @@ package com.taskmanager.taskmanager.service;
 
 import com.taskmanager.taskmanager.model.TemplateSubtask;
 import com.taskmanager.taskmanager.repository.TemplateSubtaskRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
+@Timed("taskmanager.service")
 public class TemplateSubtaskService {
 
     @Autowired
     private TemplateSubtaskRepository subtaskRepository;
 
+    @Autowired
+    private TemplatePlanCache planCache;
+
     /**
      * Create a new template subtask
      * 
@@ -25,10 +34,11 @@ public class TemplateSubtaskService {
     public TemplateSubtask createSubtask(TemplateSubtask subtask) {
         // Set position if not provided
         if (subtask.getPosition() == null) {
-            List<TemplateSubtask> existingSubtasks = subtaskRepository.findByTemplateId(subtask.getTemplate().getId());
-            subtask.setPosition(existingSubtasks.size() + 1);
+            long existingSubtasks = subtaskRepository.countByTemplateId(subtask.getTemplate().getId());
+            subtask.setPosition((int) existingSubtasks + 1);
         }
         
+        planCache.invalidate(subtask.getTemplate().getId());
         return subtaskRepository.save(subtask);
     }
 
@@ -42,6 +52,42 @@ public class TemplateSubtaskService {
         return subtaskRepository.findByTemplateIdOrderByPositionAsc(templateId);
     }
 
+    /**
+     * Get the subtasks of several templates in a single query
+     * 
+     * @param templateIds The IDs of the templates
+     * @return The subtasks of each template, ordered by position
+     */
+    public Map<Long, List<TemplateSubtask>> getSubtasksByTemplateIds(Collection<Long> templateIds) {
+        Map<Long, List<TemplateSubtask>> subtasksByTemplate = new HashMap<>();
+        if (templateIds.isEmpty()) {
+            return subtasksByTemplate;
+        }
+        
+        for (TemplateSubtask subtask : subtaskRepository.findByTemplateIds(templateIds)) {
+            subtasksByTemplate.computeIfAbsent(subtask.getTemplate().getId(), id -> new ArrayList<>()).add(subtask);
+        }
+        return subtasksByTemplate;
+    }
+
+    /**
+     * Count the subtasks of several templates in a single query
+     * 
+     * @param templateIds The IDs of the templates
+     * @return The number of subtasks of each template that has any
+     */
+    public Map<Long, Long> countSubtasksByTemplateIds(Collection<Long> templateIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (templateIds.isEmpty()) {
+            return counts;
+        }
+        
+        for (Object[] row : subtaskRepository.countByTemplateIds(templateIds)) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
     /**
      * Get a subtask by ID
      * 
@@ -60,6 +106,7 @@ public class TemplateSubtaskService {
      */
     @Transactional
     public TemplateSubtask updateSubtask(TemplateSubtask subtask) {
+        planCache.invalidate(subtask.getTemplate().getId());
         return subtaskRepository.save(subtask);
     }
 
@@ -70,7 +117,10 @@ public class TemplateSubtaskService {
      */
     @Transactional
     public void deleteSubtask(Long subtaskId) {
-        subtaskRepository.deleteById(subtaskId);
+        subtaskRepository.findById(subtaskId).ifPresent(subtask -> {
+            planCache.invalidate(subtask.getTemplate().getId());
+            subtaskRepository.delete(subtask);
+        });
     }
 
     /**
@@ -83,14 +133,16 @@ public class TemplateSubtaskService {
     @Transactional
     public List<TemplateSubtask> reorderSubtasks(Long templateId, List<Long> subtaskIds) {
         List<TemplateSubtask> subtasks = subtaskRepository.findByTemplateId(templateId);
+        planCache.invalidate(templateId);
         
         for (int i = 0; i < subtaskIds.size(); i++) {
             Long subtaskId = subtaskIds.get(i);
+            int position = i + 1;
             subtasks.stream()
                     .filter(subtask -> subtask.getId().equals(subtaskId))
                     .findFirst()
                     .ifPresent(subtask -> {
-                        subtask.setPosition(i + 1);
+                        subtask.setPosition(position);
                         subtaskRepository.save(subtask);
                     });
         }
@@ -0,0 +1,295 @@
+package com.taskmanager.taskmanager.service;
+
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Title or description template parsed into a list of literal and variable segments.
+ *
+ * Templates are parsed once, when a template plan is compiled, so rendering is a
+ * single pass over the segments with no scanning or regex matching. Supported
+ * placeholders:
+ * <ul>
+ *     <li>{@code ${today}}, {@code ${today+3d}}, {@code ${today-1w}} - ISO date relative to today</li>
+ *     <li>{@code ${due}} - the due date of the created task</li>
+ *     <li>{@code ${iso-week}} - ISO week of today, e.g. {@code 2024-W07}</li>
+ *     <li>{@code ${year}} - the current year</li>
+ *     <li>{@code ${user.username}}, {@code ${user.email}} - the user creating the task</li>
+ *     <li>{@code ${template.name}} - the name of the template</li>
+ *     <li>{@code ${var.name}} - a variable supplied by the caller at instantiation</li>
+ * </ul>
+ * {@code $${} renders a literal {@code ${}.
+ */
+public final class TemplateText {
+
+    private static final String CALLER_VARIABLE_PREFIX = "var.";
+
+    private enum Kind {
+        LITERAL,
+        TODAY,
+        DUE,
+        ISO_WEEK,
+        YEAR,
+        USERNAME,
+        EMAIL,
+        TEMPLATE_NAME,
+        CALLER
+    }
+
+    private static final class Segment {
+        private final Kind kind;
+        private final String text;
+        private final int dayOffset;
+
+        private Segment(Kind kind, String text, int dayOffset) {
+            this.kind = kind;
+            this.text = text;
+            this.dayOffset = dayOffset;
+        }
+    }
+
+    private final String source;
+    private final Segment[] segments;
+    private final int literalLength;
+
+    private TemplateText(String source, Segment[] segments, int literalLength) {
+        this.source = source;
+        this.segments = segments;
+        this.literalLength = literalLength;
+    }
+
+    /**
+     * Parse a template string
+     *
+     * @param source The template string
+     * @return The parsed template
+     * @throws IllegalArgumentException If the template is malformed or uses an unknown variable
+     */
+    public static TemplateText parse(String source) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int literalLength = 0;
+        int i = 0;
+
+        while (i < source.length()) {
+            int start = source.indexOf("${", i);
+            if (start < 0) {
+                literal.append(source, i, source.length());
+                break;
+            }
+
+            if (start > i && source.charAt(start - 1) == '$') {
+                // "$${" is an escaped "${"
+                literal.append(source, i, start - 1).append("${");
+                i = start + 2;
+                continue;
+            }
+
+            int end = source.indexOf('}', start + 2);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed template variable at position " + start);
+            }
+
+            literal.append(source, i, start);
+            if (literal.length() > 0) {
+                literalLength += literal.length();
+                segments.add(new Segment(Kind.LITERAL, literal.toString(), 0));
+                literal.setLength(0);
+            }
+            segments.add(parseVariable(source.substring(start + 2, end).trim()));
+            i = end + 1;
+        }
+
+        if (literal.length() > 0) {
+            literalLength += literal.length();
+            segments.add(new Segment(Kind.LITERAL, literal.toString(), 0));
+        }
+
+        return new TemplateText(source, segments.toArray(new Segment[0]), literalLength);
+    }
+
+    /**
+     * Create a template that renders the given text verbatim
+     *
+     * @param text The text
+     * @return The template
+     */
+    public static TemplateText literal(String text) {
+        Segment[] segments = text.isEmpty() ? new Segment[0] : new Segment[] {new Segment(Kind.LITERAL, text, 0)};
+        return new TemplateText(text, segments, text.length());
+    }
+
+    private static Segment parseVariable(String name) {
+        switch (name) {
+            case "due":
+                return new Segment(Kind.DUE, null, 0);
+            case "iso-week":
+                return new Segment(Kind.ISO_WEEK, null, 0);
+            case "year":
+                return new Segment(Kind.YEAR, null, 0);
+            case "user.username":
+                return new Segment(Kind.USERNAME, null, 0);
+            case "user.email":
+                return new Segment(Kind.EMAIL, null, 0);
+            case "template.name":
+                return new Segment(Kind.TEMPLATE_NAME, null, 0);
+            default:
+                break;
+        }
+
+        if (name.startsWith("today")) {
+            return new Segment(Kind.TODAY, null, parseDayOffset(name));
+        }
+
+        if (name.startsWith(CALLER_VARIABLE_PREFIX)) {
+            String variable = name.substring(CALLER_VARIABLE_PREFIX.length());
+            if (!isIdentifier(variable)) {
+                throw new IllegalArgumentException("Invalid template variable name: ${" + name + "}");
+            }
+            return new Segment(Kind.CALLER, variable, 0);
+        }
+
+        throw new IllegalArgumentException("Unknown template variable: ${" + name + "}");
+    }
+
+    private static int parseDayOffset(String name) {
+        String offset = name.substring("today".length());
+        if (offset.isEmpty()) {
+            return 0;
+        }
+
+        char sign = offset.charAt(0);
+        char unit = offset.charAt(offset.length() - 1);
+        String amount = offset.substring(1, offset.length() - 1);
+        if ((sign != '+' && sign != '-') || (unit != 'd' && unit != 'w') || amount.isEmpty() || !isDigits(amount)) {
+            throw new IllegalArgumentException("Unknown template variable: ${" + name + "}");
+        }
+
+        int days = Integer.parseInt(amount) * (unit == 'w' ? 7 : 1);
+        return sign == '-' ? -days : days;
+    }
+
+    private static boolean isDigits(String value) {
+        if (value.length() > 5) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIdentifier(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the template renders the same text regardless of context
+     *
+     * @return true if the template contains no variables
+     */
+    public boolean isConstant() {
+        return segments.length == 0 || (segments.length == 1 && segments[0].kind == Kind.LITERAL);
+    }
+
+    /**
+     * Check whether the template uses caller-supplied variables
+     *
+     * @return true if the template contains at least one {@code ${var.*}} placeholder
+     */
+    public boolean usesCallerVariables() {
+        for (Segment segment : segments) {
+            if (segment.kind == Kind.CALLER) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Render the template
+     *
+     * @param context The values to substitute
+     * @return The rendered text
+     * @throws IllegalArgumentException If a caller-supplied variable is missing
+     */
+    public String render(TemplateContext context) {
+        if (isConstant()) {
+            return segments.length == 0 ? "" : segments[0].text;
+        }
+
+        StringBuilder result = new StringBuilder(literalLength + 16 * segments.length);
+        for (Segment segment : segments) {
+            switch (segment.kind) {
+                case LITERAL:
+                    result.append(segment.text);
+                    break;
+                case TODAY:
+                    result.append(segment.dayOffset == 0 ? context.getToday() : context.getToday().plusDays(segment.dayOffset));
+                    break;
+                case DUE:
+                    result.append(context.getDueDate());
+                    break;
+                case ISO_WEEK:
+                    appendIsoWeek(result, context.getToday());
+                    break;
+                case YEAR:
+                    result.append(context.getToday().getYear());
+                    break;
+                case USERNAME:
+                    result.append(context.getUser().getUsername());
+                    break;
+                case EMAIL:
+                    result.append(context.getUser().getEmail());
+                    break;
+                case TEMPLATE_NAME:
+                    result.append(context.getTemplateName());
+                    break;
+                case CALLER:
+                    String value = context.getVariables().get(segment.text);
+                    if (value == null) {
+                        throw new IllegalArgumentException("Missing template variable: " + segment.text);
+                    }
+                    result.append(value);
+                    break;
+            }
+        }
+        return result.toString();
+    }
+
+    private static void appendIsoWeek(StringBuilder result, LocalDate date) {
+        int week = date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+        result.append(date.get(IsoFields.WEEK_BASED_YEAR)).append("-W");
+        if (week < 10) {
+            result.append('0');
+        }
+        result.append(week);
+    }
+
+    /**
+     * Get the unparsed template string
+     *
+     * @return The template string
+     */
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,309 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.Attachment;
+import com.taskmanager.taskmanager.repository.AttachmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thumbnails for image attachments.
+ *
+ * Thumbnails are generated in every size from a single decode, stored next to the
+ * original file as {@code <storagePath>.<size>.<jpg|png>} and shared by all attachments
+ * with the same content. Generation normally runs on a bounded worker pool after the
+ * upload commits; a request for a thumbnail that does not exist yet generates it
+ * on demand. A striped lock per stored file keeps the two from decoding the same
+ * image at once.
+ */
+@Slf4j
+@Service
+public class ThumbnailService {
+
+    public static final List<Integer> SIZES = List.of(64, 256, 1024);
+
+    private static final int MAX_SIZE = 1024;
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    @Qualifier("thumbnailExecutor")
+    private TaskExecutor thumbnailExecutor;
+
+    @Value("${thumbnail.max-source-pixels:100000000}")
+    private long maxSourcePixels;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public ThumbnailService() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * A generated thumbnail file
+     */
+    @lombok.Value
+    public static class Thumbnail {
+        String storagePath;
+        String contentType;
+    }
+
+    /**
+     * Check whether thumbnails can be generated for a content type
+     *
+     * @param contentType The content type of the attachment
+     * @return true if ImageIO can decode the content type
+     */
+    public static boolean isSupported(String contentType) {
+        return contentType != null && ImageIO.getImageReadersByMIMEType(contentType).hasNext();
+    }
+
+    /**
+     * Queue thumbnail generation for an attachment once the current transaction commits
+     *
+     * @param attachment The saved attachment
+     */
+    public void scheduleThumbnails(Attachment attachment) {
+        if (!isSupported(attachment.getFileType())) {
+            return;
+        }
+
+        Long attachmentId = attachment.getId();
+        String contentHash = attachment.getContentHash();
+        String storagePath = attachment.getFilePath();
+        Runnable task = () -> {
+            try {
+                generateThumbnails(attachmentId, contentHash, storagePath);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to generate thumbnails for {}", storagePath, e);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(task);
+                }
+            });
+        } else {
+            submit(task);
+        }
+    }
+
+    /**
+     * Get a thumbnail of an attachment, generating the thumbnails if they do not exist yet
+     *
+     * @param attachment The attachment
+     * @param size The thumbnail size, one of {@link #SIZES}
+     * @return The thumbnail, or empty if the image cannot be decoded
+     * @throws IOException If an error occurs while reading the image or writing the thumbnails
+     */
+    public Optional<Thumbnail> getThumbnail(Attachment attachment, int size) throws IOException {
+        String contentType = attachment.getThumbnailType();
+        if (contentType == null || !fileStorageService.exists(thumbnailName(attachment.getFilePath(), size, contentType))) {
+            contentType = generateThumbnails(attachment.getId(), attachment.getContentHash(), attachment.getFilePath());
+            if (contentType == null) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new Thumbnail(thumbnailName(attachment.getFilePath(), size, contentType), contentType));
+    }
+
+    /**
+     * Get a thumbnail of an attachment from its recorded thumbnail type, without touching storage
+     *
+     * @param attachment The attachment
+     * @param size The thumbnail size, one of {@link #SIZES}
+     * @return The thumbnail, or empty if thumbnails have not been generated for the attachment yet
+     */
+    public Optional<Thumbnail> findThumbnail(Attachment attachment, int size) {
+        String contentType = attachment.getThumbnailType();
+        if (contentType == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Thumbnail(thumbnailName(attachment.getFilePath(), size, contentType), contentType));
+    }
+
+    /**
+     * Delete the thumbnails of a stored file
+     *
+     * @param storagePath The storage path of the original file
+     */
+    public void deleteThumbnails(String storagePath) {
+        for (int size : SIZES) {
+            fileStorageService.deleteFile(thumbnailName(storagePath, size, "image/jpeg"));
+            fileStorageService.deleteFile(thumbnailName(storagePath, size, "image/png"));
+        }
+    }
+
+    /**
+     * Generate thumbnails unless they already exist, and record them on the attachments sharing the file
+     *
+     * @return The content type of the thumbnails, or null if the image cannot be decoded
+     */
+    String generateThumbnails(Long attachmentId, String contentHash, String storagePath) throws IOException {
+        ReentrantLock lock = locks[Math.floorMod(storagePath.hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            String contentType = findThumbnailType(storagePath);
+            if (contentType == null) {
+                contentType = renderThumbnails(storagePath);
+                if (contentType == null) {
+                    return null;
+                }
+            }
+
+            if (contentHash != null) {
+                attachmentRepository.updateThumbnailTypeByContentHash(contentHash, contentType);
+            } else {
+                attachmentRepository.updateThumbnailType(attachmentId, contentType);
+            }
+            return contentType;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            thumbnailExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            // Queue is full: the thumbnails are generated on first request instead
+        }
+    }
+
+    private String findThumbnailType(String storagePath) throws IOException {
+        for (String contentType : List.of("image/jpeg", "image/png")) {
+            boolean complete = true;
+            for (int size : SIZES) {
+                if (!fileStorageService.exists(thumbnailName(storagePath, size, contentType))) {
+                    complete = false;
+                    break;
+                }
+            }
+            if (complete) {
+                return contentType;
+            }
+        }
+        return null;
+    }
+
+    private String renderThumbnails(String storagePath) throws IOException {
+        BufferedImage image = readSubsampled(storagePath);
+        if (image == null) {
+            return null;
+        }
+
+        boolean alpha = image.getColorModel().hasAlpha();
+        String contentType = alpha ? "image/png" : "image/jpeg";
+
+        // Largest first, each size scaled down from the previous one
+        BufferedImage current = image;
+        for (int i = SIZES.size() - 1; i >= 0; i--) {
+            int size = SIZES.get(i);
+            current = scale(current, size, alpha);
+            write(current, alpha ? "png" : "jpg", thumbnailName(storagePath, size, contentType));
+        }
+        return contentType;
+    }
+
+    private BufferedImage readSubsampled(String storagePath) throws IOException {
+        Optional<Path> localPath = fileStorageService.getLocalPath(storagePath);
+        // Local files are read with random access; remote ones are buffered in memory as they are read
+        try (ImageInputStream in = localPath.isPresent()
+                ? ImageIO.createImageInputStream(localPath.get().toFile())
+                : new MemoryCacheImageInputStream(fileStorageService.openStored(storagePath, 0, -1))) {
+            if (in == null) {
+                return null;
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    return null;
+                }
+
+                // Decode at no more than twice the largest thumbnail so large photos are never held at full size
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * MAX_SIZE));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int size, boolean alpha) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double factor = Math.min(1.0, (double) size / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * factor));
+        int targetHeight = Math.max(1, (int) Math.round(height * factor));
+
+        // Always redraw so the output has a color model the writer supports
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void write(BufferedImage image, String format, String thumbnailPath) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("No ImageIO writer for " + format);
+        }
+        fileStorageService.store(thumbnailPath, new ByteArrayInputStream(out.toByteArray()), out.size());
+    }
+
+    private static String thumbnailName(String storagePath, int size, String contentType) {
+        return storagePath + "." + size + ("image/png".equals(contentType) ? ".png" : ".jpg");
+    }
+}
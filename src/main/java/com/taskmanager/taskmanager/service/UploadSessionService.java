@@ -0,0 +1,331 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.Attachment;
+import com.taskmanager.taskmanager.model.Task;
+import com.taskmanager.taskmanager.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable uploads.
+ *
+ * A session owns a staging file that chunks are appended to as they arrive, with
+ * the SHA-256 updated incrementally, so completing an upload is an atomic move into
+ * content-addressed storage and a metadata insert: the content is never read again.
+ * A client that loses its connection asks for the session's offset and resumes from
+ * there. Sessions are kept in memory and expire when no chunk arrives within the TTL.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Value("${attachment.upload.max-size:104857600}")
+    private long maxUploadSize;
+
+    @Value("${attachment.upload.session-ttl-minutes:60}")
+    private long sessionTtlMinutes;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * State of an upload in progress.
+     *
+     * Changes of state, such as starting a chunk, completing, aborting or expiring,
+     * synchronize on the session, but no lock is held while a chunk is read from the
+     * network: one request at a time may write, and the offset can always be read, so a
+     * client can ask where to resume while a stalled request still holds the session.
+     */
+    public static final class UploadSession {
+        private final String id;
+        private final Long taskId;
+        private final String username;
+        private final String fileName;
+        private final String fileType;
+        private final long size;
+        private final Path tempPath;
+        private final MessageDigest digest;
+        private volatile long offset;
+        private volatile boolean closed;
+        // Set while a chunk is written, and while the upload is saved as an attachment
+        private boolean writing;
+        private boolean completing;
+        private String contentHash;
+        private volatile LocalDateTime expiresAt;
+
+        private UploadSession(String id, Long taskId, String username, String fileName, String fileType, long size,
+                              Path tempPath, LocalDateTime expiresAt) {
+            this.id = id;
+            this.taskId = taskId;
+            this.username = username;
+            this.fileName = fileName;
+            this.fileType = fileType;
+            this.size = size;
+            this.tempPath = tempPath;
+            this.digest = FileStorageService.newDigest();
+            this.expiresAt = expiresAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getTaskId() {
+            return taskId;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getFileType() {
+            return fileType;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public LocalDateTime getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    /**
+     * Start a resumable upload
+     *
+     * @param task The task the file will be attached to
+     * @param user The user uploading the file
+     * @param fileName The original name of the file
+     * @param fileType The content type of the file
+     * @param size The total size of the file in bytes
+     * @return The new upload session
+     * @throws IOException If the staging file cannot be created
+     * @throws StorageQuotaService.QuotaExceededException If the file would take the user over their storage quota
+     * @throws IllegalArgumentException If the file name is missing or the size is out of bounds
+     */
+    public UploadSession createSession(Task task, User user, String fileName, String fileType, long size) throws IOException {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+        if (size < 0 || size > maxUploadSize) {
+            throw new IllegalArgumentException("File size must be between 0 and " + maxUploadSize + " bytes");
+        }
+        // Refused before any chunk is received; charged when the upload completes
+        storageQuotaService.checkQuota(user.getId(), size);
+
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), task.getId(), user.getUsername(),
+                fileName, fileType != null ? fileType : "application/octet-stream", size,
+                fileStorageService.createStagingFile(), LocalDateTime.now().plusMinutes(sessionTtlMinutes));
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Get an active upload session
+     *
+     * @param uploadId The ID of the session
+     * @param username The username of the current user
+     * @return The session, if it exists, has not expired and belongs to the user
+     */
+    public Optional<UploadSession> getSession(String uploadId, String username) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null || !session.username.equals(username) || session.expiresAt.isBefore(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(session);
+    }
+
+    /**
+     * Append a chunk to an upload
+     *
+     * If the stream fails part way, the bytes received so far are kept and the
+     * client resumes from the returned offset of a subsequent status request.
+     *
+     * @param session The upload session
+     * @param offset The offset the chunk starts at, which must equal the bytes received so far
+     * @param content The chunk content
+     * @return The number of bytes received so far
+     * @throws IOException If an error occurs while reading the chunk or writing the staging file
+     * @throws IllegalStateException If the offset does not match, another request is writing or the session is no longer active
+     * @throws IllegalArgumentException If the chunk extends past the declared file size
+     */
+    public long appendChunk(UploadSession session, long offset, InputStream content) throws IOException {
+        synchronized (session) {
+            if (session.closed) {
+                throw new IllegalStateException("Upload session is no longer active");
+            }
+            if (session.writing || session.completing) {
+                throw new IllegalStateException("Another request is writing to this upload");
+            }
+            if (offset != session.offset) {
+                throw new IllegalStateException("Expected offset " + session.offset + " but got " + offset);
+            }
+            session.writing = true;
+        }
+
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (FileChannel channel = FileChannel.open(session.tempPath, StandardOpenOption.WRITE)) {
+                channel.position(session.offset);
+                try {
+                    int read;
+                    while ((read = content.read(buffer)) != -1) {
+                        if (session.closed) {
+                            throw new IllegalStateException("Upload session is no longer active");
+                        }
+                        if (session.offset + read > session.size) {
+                            throw new IllegalArgumentException("Chunk extends past the declared file size of " + session.size + " bytes");
+                        }
+                        ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                        while (chunk.hasRemaining()) {
+                            channel.write(chunk);
+                        }
+                        session.digest.update(buffer, 0, read);
+                        session.offset += read;
+                    }
+                } finally {
+                    // Drop any partially written buffer so the file matches the digest
+                    channel.truncate(session.offset);
+                }
+            }
+            return session.offset;
+        } finally {
+            synchronized (session) {
+                session.writing = false;
+                session.expiresAt = LocalDateTime.now().plusMinutes(sessionTtlMinutes);
+            }
+        }
+    }
+
+    /**
+     * Complete an upload and save it as an attachment
+     *
+     * If saving fails, e.g. on a database error, the session and its staged file are
+     * kept, so the client can complete the upload again.
+     *
+     * @param session The upload session
+     * @param task The task to attach the file to
+     * @param user The user uploading the file
+     * @return The saved attachment
+     * @throws IOException If an error occurs while moving the file into storage
+     * @throws IllegalStateException If the session is no longer active or another request is using it
+     * @throws IllegalArgumentException If not all bytes have been received
+     * @throws StorageQuotaService.QuotaExceededException If the file would take the user over their storage quota
+     */
+    public Attachment completeUpload(UploadSession session, Task task, User user) throws IOException {
+        FileStorageService.StagedFile stagedFile;
+        synchronized (session) {
+            if (session.closed) {
+                throw new IllegalStateException("Upload session is no longer active");
+            }
+            if (session.writing || session.completing) {
+                throw new IllegalStateException("Another request is writing to this upload");
+            }
+            if (session.offset != session.size) {
+                throw new IllegalArgumentException("Upload is incomplete: received " + session.offset + " of " + session.size + " bytes");
+            }
+            if (session.contentHash == null) {
+                session.contentHash = HexFormat.of().formatHex(session.digest.digest());
+            }
+            session.completing = true;
+            stagedFile = fileStorageService.stagedFile(session.tempPath, session.contentHash, session.size);
+        }
+
+        boolean saved = false;
+        try {
+            Attachment attachment = attachmentService.saveStagedAttachment(stagedFile, session.fileName, session.fileType, task, user, false);
+            saved = true;
+            return attachment;
+        } finally {
+            synchronized (session) {
+                session.completing = false;
+                if (saved) {
+                    // The staged file now belongs to the attachment
+                    session.closed = true;
+                    sessions.remove(session.id);
+                } else {
+                    session.expiresAt = LocalDateTime.now().plusMinutes(sessionTtlMinutes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Abort an upload and remove its staging file
+     *
+     * A chunk being written when the upload is aborted fails at its next read.
+     *
+     * @param session The upload session
+     * @throws IllegalStateException If the upload is being completed
+     */
+    public void abortSession(UploadSession session) {
+        synchronized (session) {
+            if (session.completing) {
+                throw new IllegalStateException("Upload is being completed");
+            }
+            close(session);
+        }
+    }
+
+    /**
+     * Remove sessions that have not received a chunk within the TTL
+     */
+    @Scheduled(fixedDelayString = "${attachment.upload.cleanup-interval-ms:300000}")
+    public void expireSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        for (UploadSession session : sessions.values()) {
+            if (session.expiresAt.isBefore(now)) {
+                synchronized (session) {
+                    // A chunk may have extended the session while we waited for the lock, or still be arriving
+                    if (!session.writing && !session.completing && session.expiresAt.isBefore(now)) {
+                        close(session);
+                    }
+                }
+            }
+        }
+    }
+
+    private void close(UploadSession session) {
+        if (session.closed) {
+            return;
+        }
+        session.closed = true;
+        sessions.remove(session.id);
+        try {
+            Files.deleteIfExists(session.tempPath);
+        } catch (IOException e) {
+            // Left for the staging directory cleanup
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.taskmanager.taskmanager.service;
 
 import com.taskmanager.taskmanager.model.User;
 import com.taskmanager.taskmanager.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import java.util.Optional;
 
 
 @Service
+@Timed("taskmanager.service")
 public class UserService {
 
     @Autowired
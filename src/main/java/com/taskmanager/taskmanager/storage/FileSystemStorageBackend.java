@@ -0,0 +1,194 @@
+package com.taskmanager.taskmanager.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stores objects as files under the upload directory. Writes go to a temporary
+ * sibling file that is then renamed into place.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.backend", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemStorageBackend implements StorageBackend {
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Override
+    public void put(String key, InputStream content, long length) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path tempPath = tempSibling(target);
+        try {
+            Files.copy(content, tempPath);
+            Files.move(tempPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    @Override
+    public void putFile(String key, Path file) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Staging is on another volume: copy next to the target first so the rename stays atomic
+            Path tempPath = tempSibling(target);
+            try {
+                Files.copy(file, tempPath);
+                Files.move(tempPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Files.delete(file);
+            } finally {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(offset);
+        InputStream in = Channels.newInputStream(channel);
+        return length < 0 ? in : new BoundedInputStream(in, length);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<StorageObject> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return Optional.of(new StorageObject(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Stream<StorageObject> list() throws IOException {
+        Path root = getRoot();
+        if (!Files.isDirectory(root)) {
+            return Stream.empty();
+        }
+
+        // Depth-first walk holding one sorted listing per open directory
+        Deque<Iterator<Path>> directories = new ArrayDeque<>();
+        directories.push(sortedChildren(root));
+        Iterator<StorageObject> objects = new Iterator<>() {
+            private StorageObject next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && !directories.isEmpty()) {
+                    Iterator<Path> children = directories.peek();
+                    if (!children.hasNext()) {
+                        directories.pop();
+                        continue;
+                    }
+                    Path child = children.next();
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attributes.isDirectory()) {
+                            directories.push(sortedChildren(child));
+                        } else if (attributes.isRegularFile()) {
+                            next = new StorageObject(toKey(root, child), attributes.size(), attributes.lastModifiedTime().toInstant());
+                        }
+                    } catch (NoSuchFileException e) {
+                        // Deleted while listing
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public StorageObject next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                StorageObject object = next;
+                next = null;
+                return object;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(objects, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public Optional<Path> getLocalPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    private Path resolve(String key) {
+        Path root = getRoot();
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+
+    private Path getRoot() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * List a directory in key order: a subdirectory sorts as its name followed by the separator
+     */
+    private static Iterator<Path> sortedChildren(Path directory) throws IOException {
+        List<Path> children;
+        try (Stream<Path> entries = Files.list(directory)) {
+            children = entries.sorted(Comparator.comparing(FileSystemStorageBackend::sortKey, StorageBackend.KEY_ORDER)).toList();
+        } catch (NoSuchFileException e) {
+            return List.<Path>of().iterator();
+        }
+        return children.iterator();
+    }
+
+    private static String sortKey(Path path) {
+        String name = path.getFileName().toString();
+        return Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS) ? name + "/" : name;
+    }
+
+    private static String toKey(Path root, Path path) {
+        return root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+    }
+
+    private static Path tempSibling(Path target) {
+        return target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    }
+}
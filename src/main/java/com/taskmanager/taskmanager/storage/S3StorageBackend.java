@@ -0,0 +1,255 @@
+package com.taskmanager.taskmanager.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Stores objects in an S3-compatible object store such as AWS S3 or MinIO.
+ *
+ * Objects above the multipart threshold are uploaded in parts, with up to
+ * {@code upload-parallelism} parts of one object in flight at a time on the shared
+ * transfer pool. Parts of a local file are read straight from their file range by
+ * the worker uploading them, so a retried part simply re-reads its range.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.backend", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend {
+
+    // S3 limits
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Autowired
+    @Qualifier("storageTransferExecutor")
+    private TaskExecutor transferExecutor;
+
+    @Value("${file.storage.s3.bucket}")
+    private String bucket;
+
+    @Value("${file.storage.s3.key-prefix:}")
+    private String keyPrefix;
+
+    @Value("${file.storage.s3.multipart-threshold:16777216}")
+    private long multipartThreshold;
+
+    @Value("${file.storage.s3.part-size:8388608}")
+    private long partSize;
+
+    @Value("${file.storage.s3.upload-parallelism:4}")
+    private int uploadParallelism;
+
+    @FunctionalInterface
+    private interface PartSource {
+        RequestBody body(long offset, long length) throws IOException;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length) throws IOException {
+        if (length < multipartThreshold) {
+            try {
+                s3Client.putObject(b -> b.bucket(bucket).key(objectKey(key)).contentLength(length).contentType(CONTENT_TYPE),
+                        RequestBody.fromInputStream(content, length));
+            } catch (SdkException e) {
+                throw new IOException("Failed to store " + key, e);
+            }
+            return;
+        }
+
+        // Parts are read sequentially from the stream; the semaphore bounds the buffers held in memory
+        uploadMultipart(key, length, (offset, partLength) -> {
+            byte[] buffer = content.readNBytes((int) partLength);
+            if (buffer.length != partLength) {
+                throw new IOException("Content ended after " + (offset + buffer.length) + " of " + length + " bytes");
+            }
+            return RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer), partLength, CONTENT_TYPE);
+        });
+    }
+
+    @Override
+    public void putFile(String key, Path file) throws IOException {
+        long length = Files.size(file);
+        if (length < multipartThreshold) {
+            try {
+                s3Client.putObject(b -> b.bucket(bucket).key(objectKey(key)).contentLength(length).contentType(CONTENT_TYPE),
+                        RequestBody.fromFile(file));
+            } catch (SdkException e) {
+                throw new IOException("Failed to store " + key, e);
+            }
+        } else {
+            uploadMultipart(key, length, (offset, partLength) -> RequestBody.fromContentProvider(
+                    () -> openRange(file, offset, partLength), partLength, CONTENT_TYPE));
+        }
+        Files.delete(file);
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        if (length == 0) {
+            return InputStream.nullInputStream();
+        }
+
+        GetObjectRequest.Builder request = GetObjectRequest.builder().bucket(bucket).key(objectKey(key));
+        if (offset > 0 || length > 0) {
+            request.range("bytes=" + offset + "-" + (length > 0 ? String.valueOf(offset + length - 1) : ""));
+        }
+
+        try {
+            return s3Client.getObject(request.build());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Failed to read " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3Client.deleteObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (SdkException e) {
+            throw new IOException("Failed to delete " + key, e);
+        }
+    }
+
+    @Override
+    public Optional<StorageObject> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3Client.headObject(b -> b.bucket(bucket).key(objectKey(key)));
+            return Optional.of(new StorageObject(key, head.contentLength(), head.lastModified()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (SdkException e) {
+            throw new IOException("Failed to stat " + key, e);
+        }
+    }
+
+    @Override
+    public Stream<StorageObject> list() throws IOException {
+        // S3 returns keys in UTF-8 byte order, one page at a time as the stream is consumed
+        try {
+            return s3Client.listObjectsV2Paginator(b -> b.bucket(bucket).prefix(keyPrefix))
+                    .contents()
+                    .stream()
+                    .map(object -> new StorageObject(object.key().substring(keyPrefix.length()), object.size(), object.lastModified()));
+        } catch (SdkException e) {
+            throw new IOException("Failed to list objects", e);
+        }
+    }
+
+    private void uploadMultipart(String key, long length, PartSource partSource) throws IOException {
+        String objectKey = objectKey(key);
+        long effectivePartSize = Math.max(Math.max(partSize, MIN_PART_SIZE), (length + MAX_PARTS - 1) / MAX_PARTS);
+        int partCount = (int) ((length + effectivePartSize - 1) / effectivePartSize);
+
+        String uploadId;
+        try {
+            uploadId = s3Client.createMultipartUpload(b -> b.bucket(bucket).key(objectKey).contentType(CONTENT_TYPE)).uploadId();
+        } catch (SdkException e) {
+            throw new IOException("Failed to start multipart upload of " + key, e);
+        }
+
+        Semaphore inFlight = new Semaphore(uploadParallelism);
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>(partCount);
+        try {
+            for (int i = 0; i < partCount; i++) {
+                int partNumber = i + 1;
+                long offset = i * effectivePartSize;
+                long partLength = Math.min(effectivePartSize, length - offset);
+
+                inFlight.acquire();
+                RequestBody body;
+                try {
+                    body = partSource.body(offset, partLength);
+                } catch (IOException | RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+
+                CompletableFuture<CompletedPart> part = CompletableFuture.supplyAsync(() -> {
+                    String eTag = s3Client.uploadPart(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId)
+                            .partNumber(partNumber).contentLength(partLength), body).eTag();
+                    return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+                }, transferExecutor);
+                part.whenComplete((result, error) -> inFlight.release());
+                parts.add(part);
+            }
+
+            List<CompletedPart> completedParts = new ArrayList<>(partCount);
+            for (CompletableFuture<CompletedPart> part : parts) {
+                completedParts.add(part.join());
+            }
+            s3Client.completeMultipartUpload(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId)
+                    .multipartUpload(m -> m.parts(completedParts)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortMultipartUpload(objectKey, uploadId, parts);
+            throw new IOException("Interrupted while uploading " + key, e);
+        } catch (IOException | RuntimeException e) {
+            abortMultipartUpload(objectKey, uploadId, parts);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof UncheckedIOException unchecked) {
+                cause = unchecked.getCause();
+            }
+            throw cause instanceof IOException io ? io : new IOException("Failed to upload " + key, cause);
+        }
+    }
+
+    private void abortMultipartUpload(String objectKey, String uploadId, List<CompletableFuture<CompletedPart>> parts) {
+        for (CompletableFuture<CompletedPart> part : parts) {
+            part.cancel(false);
+        }
+        try {
+            s3Client.abortMultipartUpload(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId));
+        } catch (SdkException e) {
+            // Left for the bucket's incomplete multipart upload lifecycle rule
+        }
+    }
+
+    private static InputStream openRange(Path file, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            channel.position(offset);
+            return new BoundedInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String objectKey(String key) {
+        return keyPrefix.isEmpty() ? key : keyPrefix + key;
+    }
+}
@@ -0,0 +1,115 @@
+package com.taskmanager.taskmanager.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Object store holding attachment content, addressed by slash-separated keys.
+ *
+ * Implementations must make a written object visible atomically: readers see
+ * either the previous content or the complete new content, never a partial write.
+ */
+public interface StorageBackend {
+
+    /**
+     * Order of keys returned by {@link #list()}: by Unicode code point, which is the
+     * byte order of their UTF-8 encoding used by S3 and by a "C" collation in the database
+     */
+    Comparator<String> KEY_ORDER = StorageBackend::compareKeys;
+
+    /**
+     * Store an object, replacing any object with the same key
+     *
+     * @param key The object key
+     * @param content The object content
+     * @param length The content length in bytes
+     * @throws IOException If the object cannot be stored
+     */
+    void put(String key, InputStream content, long length) throws IOException;
+
+    /**
+     * Store a local file as an object, replacing any object with the same key
+     *
+     * The file is consumed: it is moved or deleted once stored.
+     *
+     * @param key The object key
+     * @param file The file to store
+     * @throws IOException If the object cannot be stored
+     */
+    default void putFile(String key, Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            put(key, in, Files.size(file));
+        }
+        Files.delete(file);
+    }
+
+    /**
+     * Open an object, or a byte range of it, for reading
+     *
+     * @param key The object key
+     * @param offset The first byte to read
+     * @param length The number of bytes to read, or -1 to read to the end
+     * @return The content
+     * @throws java.nio.file.NoSuchFileException If the object does not exist
+     * @throws IOException If the object cannot be read
+     */
+    InputStream get(String key, long offset, long length) throws IOException;
+
+    /**
+     * Delete an object; deleting a missing object is not an error
+     *
+     * @param key The object key
+     * @throws IOException If the object cannot be deleted
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Get an object's metadata
+     *
+     * @param key The object key
+     * @return The metadata, or empty if the object does not exist
+     * @throws IOException If the store cannot be reached
+     */
+    Optional<StorageObject> stat(String key) throws IOException;
+
+    /**
+     * List all objects in {@link #KEY_ORDER}
+     *
+     * Objects are fetched lazily as the stream is consumed, so listing a large store
+     * holds only a directory or a page of keys in memory at a time.
+     *
+     * @return The objects
+     * @throws IOException If the store cannot be reached
+     */
+    Stream<StorageObject> list() throws IOException;
+
+    /**
+     * Get the local file backing an object, for zero-copy transfers
+     *
+     * @param key The object key
+     * @return The file path, or empty if the backend is not on the local filesystem
+     */
+    default Optional<Path> getLocalPath(String key) {
+        return Optional.empty();
+    }
+
+    private static int compareKeys(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Boolean.compare(i < a.length(), j < b.length());
+    }
+}
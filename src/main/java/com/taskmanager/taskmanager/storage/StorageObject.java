@@ -0,0 +1,15 @@
+package com.taskmanager.taskmanager.storage;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Metadata of a stored object
+ */
+@Value
+public class StorageObject {
+    String key;
+    long size;
+    Instant lastModified;
+}
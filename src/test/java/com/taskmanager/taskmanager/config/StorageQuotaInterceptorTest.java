@@ -0,0 +1,82 @@
+package com.taskmanager.taskmanager.config;
+
+import com.taskmanager.taskmanager.model.StorageUsage;
+import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.repository.StorageUsageRepository;
+import com.taskmanager.taskmanager.service.StorageQuotaService;
+import com.taskmanager.taskmanager.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StorageQuotaInterceptorTest {
+
+    @Mock
+    private StorageUsageRepository storageUsageRepository;
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private StorageQuotaService storageQuotaService;
+
+    private final StorageQuotaInterceptor interceptor = new StorageQuotaInterceptor();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(storageQuotaService, "quotaBytes", 10_000L);
+        ReflectionTestUtils.setField(interceptor, "storageQuotaService", storageQuotaService);
+        ReflectionTestUtils.setField(interceptor, "userService", userService);
+        ReflectionTestUtils.setField(interceptor, "multipartOverheadBytes", 500L);
+
+        when(userService.findUserByUsername("owner")).thenReturn(Optional.of(User.builder().id(1L).username("owner").build()));
+        when(storageUsageRepository.findById(1L)).thenReturn(Optional.of(StorageUsage.builder().userId(1L).usedBytes(9_000).build()));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("owner", null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void uploadsThatMightFitAreLetThroughToTheExactCheck() throws IOException {
+        // A 1000-byte file fills the quota exactly; the request around it is larger
+        assertTrue(interceptor.preHandle(upload(1_300), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(upload(1_500), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(upload(400), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void uploadsThatCannotFitAreRefusedBeforeTheBodyIsRead() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(upload(1_501), response, null));
+
+        assertEquals(413, response.getStatus());
+        assertEquals("close", response.getHeader("Connection"));
+    }
+
+    private static MockHttpServletRequest upload(int contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/tasks/1/attachments");
+        request.setContentType(MediaType.MULTIPART_FORM_DATA_VALUE + "; boundary=x");
+        request.setContent(new byte[contentLength]);
+        return request;
+    }
+}
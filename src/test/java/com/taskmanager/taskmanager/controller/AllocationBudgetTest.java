@@ -0,0 +1,113 @@
+package com.taskmanager.taskmanager.controller;
+
+import com.taskmanager.taskmanager.model.Category;
+import com.taskmanager.taskmanager.model.Comment;
+import com.taskmanager.taskmanager.model.Task;
+import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.support.AllocationBudget;
+import com.taskmanager.taskmanager.support.EndpointFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Allocation budgets for the main read endpoints, against a fixed dataset.
+ *
+ * The dataset is a user with {@value #TASKS} tasks, each with two subtasks and a
+ * category, a few of them shared with a second user, and one task with a thread of
+ * comments. The budgets leave about half again the measured allocation as headroom,
+ * so a change that, say, serializes a collection twice fails here with the figure.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:allocationbudget;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "allocation.sample-rate=0"
+})
+@AutoConfigureMockMvc
+@Import(EndpointFixtures.class)
+class AllocationBudgetTest {
+
+    private static final int TASKS = 50;
+    private static final int SHARED_TASKS = 10;
+    private static final int COMMENTS = 20;
+
+    private static final long KB = 1024;
+
+    @Autowired
+    private EndpointFixtures fixtures;
+
+    private User owner;
+    private User viewer;
+    private Task discussed;
+
+    @BeforeEach
+    void setUp() {
+        owner = fixtures.user("owner");
+        viewer = fixtures.user("viewer");
+        Category category = fixtures.category("Work", owner);
+        for (int i = 0; i < TASKS; i++) {
+            Task task = fixtures.task(owner, "Task " + i, category, LocalDate.now().plusDays(i % 10 - 3));
+            if (i < SHARED_TASKS) {
+                fixtures.collaborator(task, viewer);
+            }
+            if (i == 0) {
+                discussed = task;
+            }
+        }
+        for (int i = 0; i < COMMENTS; i++) {
+            Comment comment = fixtures.comment(discussed, i % 2 == 0 ? owner : viewer, null);
+            fixtures.comment(discussed, owner, comment);
+        }
+    }
+
+    @Test
+    void taskList() throws Exception {
+        perform(2900 * KB, get("/api/tasks"), owner)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(TASKS));
+    }
+
+    @Test
+    void task() throws Exception {
+        perform(1200 * KB, get("/api/tasks/" + discussed.getId()), owner)
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void dashboard() throws Exception {
+        perform(1000 * KB, get("/api/dashboard/stats"), owner)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalTasks").value(TASKS));
+    }
+
+    @Test
+    void commentThread() throws Exception {
+        perform(1000 * KB, get("/api/tasks/" + discussed.getId() + "/comments"), owner)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(COMMENTS));
+    }
+
+    @Test
+    void sharedTasks() throws Exception {
+        perform(1700 * KB, get("/api/shared-tasks"), viewer)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(SHARED_TASKS));
+    }
+
+    private ResultActions perform(long budgetBytes, MockHttpServletRequestBuilder request, User user) throws Exception {
+        return AllocationBudget.assertWithin(budgetBytes, EndpointFixtures.describe(request), () -> fixtures.perform(request, user));
+    }
+}
@@ -0,0 +1,153 @@
+package com.taskmanager.taskmanager.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.taskmanager.model.Category;
+import com.taskmanager.taskmanager.model.Comment;
+import com.taskmanager.taskmanager.model.Task;
+import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.support.EndpointFixtures;
+import com.taskmanager.taskmanager.support.QueryBudget;
+import com.taskmanager.taskmanager.support.QueryBudgetConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets for endpoints that list related data.
+ *
+ * Each endpoint is called with enough rows that a query per row would blow its
+ * budget, so an N+1 pattern fails here with the statements it ran. The budgets
+ * include the user lookups of the JWT filter and the controller.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:querybudget;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "file.upload-dir=target/querybudget-uploads"
+})
+@AutoConfigureMockMvc
+@Import({QueryBudgetConfiguration.class, EndpointFixtures.class})
+class QueryBudgetTest {
+
+    private static final int ROWS = 10;
+
+    @Autowired
+    private EndpointFixtures fixtures;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User owner;
+    private User viewer;
+    private User commenter;
+
+    @BeforeEach
+    void setUp() {
+        owner = fixtures.user("owner");
+        viewer = fixtures.user("viewer");
+        commenter = fixtures.user("commenter");
+    }
+
+    @Test
+    void sharedTasks() throws Exception {
+        Category category = fixtures.category("Work", owner);
+        for (int i = 0; i < ROWS; i++) {
+            Task task = fixtures.task(owner, "Shared " + i, category, LocalDate.now());
+            fixtures.comment(task, owner, null);
+            fixtures.comment(task, commenter, null);
+            fixtures.collaborator(task, viewer);
+            fixtures.collaborator(task, commenter);
+        }
+
+        perform(10, get("/api/shared-tasks"), viewer)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(ROWS));
+    }
+
+    @Test
+    void commentThreads() throws Exception {
+        Task task = fixtures.task(owner, "Discussed", null, LocalDate.now());
+        for (int i = 0; i < ROWS; i++) {
+            Comment comment = fixtures.comment(task, i % 2 == 0 ? owner : commenter, null);
+            fixtures.comment(task, commenter, comment);
+            fixtures.comment(task, viewer, comment);
+        }
+
+        perform(5, get("/api/tasks/" + task.getId() + "/comments"), owner)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(ROWS))
+                .andExpect(jsonPath("$[0].replies.length()").value(2));
+    }
+
+    @Test
+    void templates() throws Exception {
+        Category category = fixtures.category("Templates", owner);
+        for (int i = 0; i < ROWS; i++) {
+            fixtures.template(owner, "Template " + i, category, 2);
+        }
+
+        perform(5, get("/api/templates").param("details", "true"), owner)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(ROWS))
+                .andExpect(jsonPath("$[0].subtasks.length()").value(2));
+        perform(4, get("/api/templates"), owner)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(ROWS));
+    }
+
+    @Test
+    void signedDownloads() throws Exception {
+        Task task = fixtures.task(owner, "Attached", null, LocalDate.now());
+        // Above the packing threshold, so stored on its own, and one small enough to be packed
+        byte[] large = new byte[100_000];
+        new Random(1).nextBytes(large);
+        String largeUrl = signedUrl(task, "large.bin", large);
+        String smallUrl = signedUrl(task, "small.bin", "small".getBytes(StandardCharsets.UTF_8));
+
+        QueryBudget.assertWithin(0, "GET /api/files/{token}", () -> mockMvc.perform(get(largeUrl)))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(large));
+        // The first read of a packed file looks up its location, later reads use the cached one
+        mockMvc.perform(get(smallUrl)).andExpect(status().isOk());
+        QueryBudget.assertWithin(0, "GET /api/files/{token}", () -> mockMvc.perform(get(smallUrl)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("small"));
+    }
+
+    private String signedUrl(Task task, String fileName, byte[] content) throws Exception {
+        String attachment = fixtures.perform(multipart("/api/tasks/" + task.getId() + "/attachments")
+                        .file(new MockMultipartFile("file", fileName, "application/octet-stream", content)), owner)
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long attachmentId = objectMapper.readTree(attachment).get("id").asLong();
+        String signed = fixtures.perform(get("/api/tasks/" + task.getId() + "/attachments/" + attachmentId + "/signed-url"), owner)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(signed).get("url").asText();
+    }
+
+    private ResultActions perform(int budget, MockHttpServletRequestBuilder request, User user) throws Exception {
+        return QueryBudget.assertWithin(budget, EndpointFixtures.describe(request), () -> fixtures.perform(request, user));
+    }
+}
@@ -0,0 +1,148 @@
+package com.taskmanager.taskmanager.controller;
+
+import com.taskmanager.taskmanager.model.Category;
+import com.taskmanager.taskmanager.model.TaskTemplate;
+import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.repository.TaskTemplateRepository;
+import com.taskmanager.taskmanager.support.EndpointFixtures;
+import com.taskmanager.taskmanager.support.QueryBudget;
+import com.taskmanager.taskmanager.support.QueryBudgetConfiguration;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The second-level cache of users, categories and templates.
+ *
+ * Once warmed up, reads of cached data run no SQL at all, the JWT filter's user
+ * lookup included. Writes through the API must be visible to the very next read.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:secondlevelcache;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureMockMvc
+@Import({QueryBudgetConfiguration.class, EndpointFixtures.class})
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EndpointFixtures fixtures;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TaskTemplateRepository templateRepository;
+
+    private User owner;
+    private Category work;
+    private Category home;
+    private TaskTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        owner = fixtures.user("owner");
+        work = fixtures.category("Work", owner);
+        home = fixtures.category("Home", owner);
+        template = fixtures.template(owner, "Weekly review", work, 2);
+    }
+
+    @Test
+    void repeatedReadsRunNoSql() throws Exception {
+        for (int run = 0; run < 2; run++) {
+            int budget = run == 0 ? Integer.MAX_VALUE : 0;
+            QueryBudget.assertWithin(budget, "GET /api/categories", () -> perform(get("/api/categories"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2)));
+            QueryBudget.assertWithin(budget, "GET /api/categories/{id}", () -> perform(get("/api/categories/" + work.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name").value("Work")));
+            QueryBudget.assertWithin(budget, "GET /api/templates/{id}/subtasks", () -> perform(get("/api/templates/" + template.getId() + "/subtasks"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2)));
+        }
+    }
+
+    @Test
+    void categoryUpdatesAreReadBack() throws Exception {
+        perform(get("/api/categories")).andExpect(status().isOk());
+        perform(get("/api/categories/" + work.getId())).andExpect(jsonPath("$.name").value("Work"));
+
+        perform(put("/api/categories/" + work.getId()).contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"Office\"}"))
+                .andExpect(status().isOk());
+
+        perform(get("/api/categories/" + work.getId())).andExpect(jsonPath("$.name").value("Office"));
+        perform(get("/api/categories"))
+                .andExpect(jsonPath("$[?(@.id == " + work.getId() + ")].name").value("Office"));
+
+        perform(post("/api/categories").contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"Errands\"}"))
+                .andExpect(status().isCreated());
+
+        perform(get("/api/categories")).andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    void templateChangesEvictItsCachedCollections() throws Exception {
+        perform(get("/api/templates/" + template.getId())).andExpect(jsonPath("$.categoryIds[0]").value(work.getId()));
+        perform(get("/api/templates/" + template.getId() + "/subtasks")).andExpect(jsonPath("$.length()").value(2));
+        assertEquals(2, subtaskCount());
+
+        perform(put("/api/templates/" + template.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Weekly review\", \"description\": \"Description\", \"categoryIds\": [" + home.getId() + "]}"))
+                .andExpect(status().isOk());
+        perform(post("/api/templates/" + template.getId() + "/subtasks").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Step 2\"}"))
+                .andExpect(status().isCreated());
+
+        perform(get("/api/templates/" + template.getId()))
+                .andExpect(jsonPath("$.categoryIds.length()").value(1))
+                .andExpect(jsonPath("$.categoryIds[0]").value(home.getId()));
+        perform(get("/api/templates/" + template.getId() + "/subtasks")).andExpect(jsonPath("$.length()").value(3));
+        // The subtask was saved through its own repository, not added to the template's collection
+        assertEquals(3, subtaskCount());
+    }
+
+    @Test
+    void hitsAndMissesAreCountedPerRegion() throws Exception {
+        perform(get("/api/categories/" + work.getId())).andExpect(status().isOk());
+        perform(get("/api/categories/" + work.getId())).andExpect(status().isOk());
+
+        FunctionCounter hits = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", "categories", "result", "hit")
+                .functionCounter();
+        assertNotNull(hits);
+        assertTrue(hits.count() > 0);
+        assertNotNull(meterRegistry.find("hibernate.cache.query.requests").tags("result", "hit").functionCounter());
+    }
+
+    private int subtaskCount() {
+        return transactionTemplate.execute(status -> templateRepository.findById(template.getId()).orElseThrow().getSubtasks().size());
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        return fixtures.perform(request, owner);
+    }
+}
@@ -0,0 +1,76 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingsTest {
+
+    private final FlightRecordings flightRecordings = new FlightRecordings();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(flightRecordings, "defaultDurationSeconds", 60L);
+        ReflectionTestUtils.setField(flightRecordings, "maxDurationSeconds", 600L);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        flightRecordings.discard();
+    }
+
+    @Test
+    void recordsApplicationEventsUntilStopped() throws IOException {
+        assertEquals("NONE", flightRecordings.status().getState());
+
+        FlightRecordingStatus started = flightRecordings.start(null, "default");
+        assertEquals("RUNNING", started.getState());
+        assertEquals(60, started.getDurationSeconds());
+        assertNull(started.getFile());
+        assertThrows(IllegalStateException.class, () -> flightRecordings.start(30L, null));
+
+        AccessCheckEvent event = new AccessCheckEvent();
+        event.begin();
+        event.taskId = 42;
+        event.userId = 7;
+        event.minimumRole = "EDITOR";
+        event.granted = true;
+        event.commit();
+
+        FlightRecordingStatus stopped = flightRecordings.stop();
+        assertEquals("CLOSED", stopped.getState());
+        assertNotNull(stopped.getFile());
+        assertTrue(stopped.getSizeBytes() > 0);
+        assertTrue(flightRecordings.file("other.jfr").isEmpty());
+
+        Path file = flightRecordings.file(stopped.getFile()).orElseThrow();
+        List<RecordedEvent> accessChecks = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("taskmanager.AccessCheck"))
+                .toList();
+        assertEquals(1, accessChecks.size());
+        assertEquals(42, accessChecks.get(0).getLong("taskId"));
+        assertTrue(accessChecks.get(0).getBoolean("granted"));
+
+        // The next recording replaces the previous one and its file
+        flightRecordings.start(5L, "profile");
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void rejectsDurationsAndSettingsOutOfBounds() {
+        assertThrows(IllegalArgumentException.class, () -> flightRecordings.start(0L, null));
+        assertThrows(IllegalArgumentException.class, () -> flightRecordings.start(601L, null));
+        assertThrows(IllegalArgumentException.class, () -> flightRecordings.start(10L, "custom"));
+        assertEquals("NONE", flightRecordings.status().getState());
+    }
+}
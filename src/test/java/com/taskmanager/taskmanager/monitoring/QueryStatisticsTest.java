@@ -0,0 +1,124 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryStatisticsTest {
+
+    private QueryStatistics statistics;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        statistics = new QueryStatistics();
+        ReflectionTestUtils.setField(statistics, "maxFingerprints", 100);
+        ReflectionTestUtils.setField(statistics, "slowThresholdMillis", 500L);
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:querystats-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        QueryStatisticsListener listener = new QueryStatisticsListener(statistics);
+        dataSource = ProxyDataSourceBuilder.create(h2).listener(listener).proxyResultSet(listener).build();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table items (id bigint primary key, name varchar(50))");
+        }
+        statistics.reset();
+    }
+
+    @Test
+    void fingerprintsHideValuesAndCollapseInLists() {
+        assertEquals("select * from users u1_0 where u1_0.name=? and u1_0.id in (?...) limit ?",
+                SqlFingerprint.of("select *\n  from users u1_0 where u1_0.name='o''brien' and u1_0.id in (1, 2,3) limit 10"));
+        assertEquals(SqlFingerprint.of("select a from t where id in (?,?)"), SqlFingerprint.of("select a from t where id in (?,?,?,?)"));
+        assertEquals("select c1_0.task_id from comments c1_0 where c1_0.x=?",
+                SqlFingerprint.of("/* load comments */ select c1_0.task_id from comments c1_0 where c1_0.x=-1.5"));
+    }
+
+    @Test
+    void recordsCallsAndRowsPerFingerprint() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            for (long id = 1; id <= 3; id++) {
+                try (PreparedStatement insert = connection.prepareStatement("insert into items (id, name) values (?, ?)")) {
+                    insert.setLong(1, id);
+                    insert.setString(2, "Item " + id);
+                    insert.executeUpdate();
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                assertEquals(2, count(statement.executeQuery("select id from items where id >= 2")));
+                assertEquals(1, count(statement.executeQuery("select id from items where id >= 3")));
+                statement.executeUpdate("update items set name = 'renamed'");
+            }
+        }
+
+        List<QueryStats> top = statistics.top(10);
+        assertEquals(3, top.size());
+        QueryStats insert = find(top, "insert into items (id, name) values (?, ?)");
+        assertEquals(3, insert.getCalls());
+        assertEquals(3, insert.getRows());
+        QueryStats select = find(top, "select id from items where id >= ?");
+        assertEquals(2, select.getCalls());
+        assertEquals(3, select.getRows());
+        assertTrue(select.getP99Millis() <= select.getMaxMillis());
+        assertEquals(3, find(top, "update items set name = ?").getRows());
+
+        assertEquals(1, statistics.top(1).size());
+        statistics.reset();
+        assertTrue(statistics.top(10).isEmpty());
+    }
+
+    @Test
+    void newFingerprintsOverTheCapShareOneEntry() {
+        ReflectionTestUtils.setField(statistics, "maxFingerprints", 2);
+        statistics.entry("select a from t");
+        statistics.entry("select b from t");
+        QueryStatistics.Entry overflow = statistics.entry("select c from t");
+
+        assertSame(overflow, statistics.entry("select d from t"));
+        statistics.recordExecution(overflow, 1_000, 0, 0);
+        assertEquals(QueryStatistics.OVERFLOW, statistics.top(1).get(0).getFingerprint());
+    }
+
+    @Test
+    void histogramPercentilesAreBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100_000);
+        }
+        histogram.record(50_000_000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(128_000, histogram.percentileNanos(0.5));
+        assertEquals(128_000, histogram.percentileNanos(0.99));
+        assertEquals(50_000_000, histogram.percentileNanos(1.0));
+    }
+
+    private static int count(ResultSet resultSet) throws SQLException {
+        int rows = 0;
+        try (resultSet) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static QueryStats find(List<QueryStats> stats, String fingerprint) {
+        return stats.stream()
+                .filter(s -> s.getFingerprint().equals(fingerprint))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No statistics for " + fingerprint + " in " + stats));
+    }
+}
@@ -0,0 +1,88 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingFilterTest {
+
+    private final ServerTimingFilter filter = new ServerTimingFilter(0);
+
+    @Test
+    void headerIsSetBeforeTheBodyIsWritten() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> headerAtBody = new AtomicReference<>();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/tasks"), response, (req, res) -> {
+            long start = RequestTiming.beginPhase(RequestTiming.Phase.AUTH);
+            sleep(5);
+            RequestTiming.endPhase(RequestTiming.Phase.AUTH, start);
+            // Statements run outside any phase take real time too
+            sleep(7);
+            RequestTiming.recordSql(TimeUnit.MILLISECONDS.toNanos(3));
+            RequestTiming.recordSql(TimeUnit.MILLISECONDS.toNanos(4));
+            res.getOutputStream().write('x');
+            headerAtBody.set(((MockHttpServletResponse) response).getHeader("Server-Timing"));
+            sleep(5);
+        });
+
+        String header = response.getHeader("Server-Timing");
+        assertNotNull(header);
+        // Set once, when the body started
+        assertEquals(headerAtBody.get(), header);
+        assertTrue(duration(header, "auth") >= 5);
+        assertEquals(7, duration(header, "db"));
+        assertTrue(header.contains("db;dur=7.0;desc=\"2 queries\""));
+        assertTrue(duration(header, "total") >= duration(header, "auth") + duration(header, "db"));
+    }
+
+    @Test
+    void sqlInsideAPhaseIsNotCountedTwice() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/tasks"), response, (req, res) -> {
+            long start = RequestTiming.beginPhase(RequestTiming.Phase.USER);
+            RequestTiming.recordSql(TimeUnit.MILLISECONDS.toNanos(20));
+            sleep(25);
+            RequestTiming.endPhase(RequestTiming.Phase.USER, start);
+        });
+
+        String header = response.getHeader("Server-Timing");
+        double accounted = duration(header, "auth") + duration(header, "user") + duration(header, "db")
+                + duration(header, "app") + duration(header, "json");
+        // The user lookup's query is part of both user and db, so the parts add up to more than the total
+        assertEquals(duration(header, "total") + 20, accounted, 0.1);
+    }
+
+    @Test
+    void nothingIsRecordedOutsideATimedRequest() throws Exception {
+        RequestTiming.recordSql(TimeUnit.MILLISECONDS.toNanos(50));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/tasks"), response, (req, res) -> { });
+        RequestTiming.recordSql(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertEquals(0, duration(response.getHeader("Server-Timing"), "db"));
+    }
+
+    private static double duration(String header, String metric) {
+        Matcher matcher = Pattern.compile("(?:^|, )" + metric + ";dur=([0-9.]+)").matcher(header);
+        assertTrue(matcher.find(), () -> metric + " missing from " + header);
+        return Double.parseDouble(matcher.group(1));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.taskmanager.taskmanager.monitoring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SloMonitorTest {
+
+    private static final long FAST = Duration.ofMillis(50).toNanos();
+    private static final long SLOW = Duration.ofMillis(900).toNanos();
+
+    private final SloMonitor sloMonitor = new SloMonitor();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sloMonitor, "latencyThresholdMillis", 500L);
+        ReflectionTestUtils.setField(sloMonitor, "latencyObjective", 0.99);
+        ReflectionTestUtils.setField(sloMonitor, "availabilityObjective", 0.999);
+        ReflectionTestUtils.setField(sloMonitor, "sampleIntervalMillis", 60_000L);
+    }
+
+    @Test
+    void burnRatesCoverOnlyTheirWindow() {
+        // An hour of healthy traffic, sampled every minute
+        int minute = 0;
+        for (; minute < 60; minute++) {
+            sampleAt(minute);
+            record(FAST, false, 100);
+        }
+        // Then five bad minutes: a fifth of the requests slow, a tenth failing
+        for (; minute < 65; minute++) {
+            sampleAt(minute);
+            record(FAST, false, 70);
+            record(SLOW, false, 20);
+            record(FAST, true, 10);
+        }
+        setTime(minute);
+
+        List<SloStatus> statuses = sloMonitor.evaluate();
+        SloStatus latency = statuses.get(0);
+        SloStatus availability = statuses.get(1);
+
+        SloStatus.Window latencyFiveMinutes = latency.getWindows().get(0);
+        assertEquals(300, latencyFiveMinutes.getCoveredSeconds());
+        assertEquals(500, latencyFiveMinutes.getRequests());
+        assertEquals(100, latencyFiveMinutes.getBadRequests());
+        assertEquals(20, latencyFiveMinutes.getBurnRate(), 1e-9);
+
+        SloStatus.Window latencyOneHour = latency.getWindows().get(2);
+        assertEquals(6_000, latencyOneHour.getRequests());
+        assertEquals(100, latencyOneHour.getBadRequests());
+        // The history is shorter than six hours, so the longest window starts at the first sample
+        assertEquals(65 * 60, latency.getWindows().get(3).getCoveredSeconds());
+        assertEquals("ok", latency.getAlert());
+
+        // 10% failing over five minutes but under 1% over the hour: a ticket, not a page
+        assertEquals(50, availability.getWindows().get(0).getBadRequests());
+        assertEquals(100, availability.getWindows().get(0).getBurnRate(), 1e-9);
+        assertEquals("ticket", availability.getAlert());
+    }
+
+    @Test
+    void samplesOlderThanTheLongestWindowAreDropped() {
+        int minute = 0;
+        for (; minute < 8 * 60; minute++) {
+            sampleAt(minute);
+        }
+        setTime(minute);
+
+        SloStatus.Window sixHours = sloMonitor.evaluate().get(0).getWindows().get(3);
+        assertEquals(6 * 3600, sixHours.getCoveredSeconds());
+        assertEquals(0, sixHours.getBurnRate());
+        assertEquals(6 * 60 + 2, ((Deque<?>) ReflectionTestUtils.getField(sloMonitor, "samples")).size());
+    }
+
+    private void sampleAt(int minute) {
+        setTime(minute);
+        sloMonitor.sample();
+    }
+
+    private void setTime(int minute) {
+        ReflectionTestUtils.setField(sloMonitor, "clock", Clock.fixed(Instant.ofEpochSecond(minute * 60L), ZoneOffset.UTC));
+    }
+
+    private void record(long nanos, boolean serverError, int times) {
+        for (int i = 0; i < times; i++) {
+            sloMonitor.record(nanos, serverError);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.Attachment;
+import com.taskmanager.taskmanager.storage.FileSystemStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentArchiveServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Spy
+    private FileStorageService fileStorageService = new FileStorageService();
+
+    @InjectMocks
+    private AttachmentArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        FileSystemStorageBackend storageBackend = new FileSystemStorageBackend();
+        ReflectionTestUtils.setField(storageBackend, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend", storageBackend);
+        ReflectionTestUtils.setField(archiveService, "compressionLevel", 6);
+        ReflectionTestUtils.setField(archiveService, "storedContentTypes", new String[] {"image/jpeg", "application/vnd.openxmlformats-officedocument.*"});
+    }
+
+    @Test
+    void writeArchiveDecodesFilesAndDeduplicatesNames() throws IOException {
+        String text = "hello world\n".repeat(100);
+        Files.write(uploadDir.resolve("notes"), text.getBytes(StandardCharsets.UTF_8));
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(uploadDir.resolve("notes.gz")))) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        archiveService.writeArchive(List.of(
+                attachment(1L, "Notes.txt", "text/plain", "notes", null),
+                attachment(2L, "notes.txt", "text/plain", "notes.gz", FileStorageService.CODEC_GZIP),
+                attachment(3L, "../../etc/passwd", "text/plain", "notes", null),
+                attachment(4L, "missing.txt", "text/plain", "missing", null)), archive);
+
+        Map<String, ZipEntry> entries = new LinkedHashMap<>();
+        Map<String, String> contents = readArchive(archive.toByteArray(), entries);
+        assertEquals(List.of("Notes.txt", "notes (1).txt", ".._.._etc_passwd"), List.copyOf(contents.keySet()));
+        assertEquals(text, contents.get("notes (1).txt"));
+        assertEquals(LocalDateTime.of(2024, 5, 1, 12, 30), entries.get("Notes.txt").getTimeLocal());
+        assertTrue(entries.get("Notes.txt").getCompressedSize() < text.length());
+    }
+
+    @Test
+    void writeArchiveDoesNotCompressCompressedFormats() throws IOException {
+        byte[] random = new byte[100_000];
+        new Random(42).nextBytes(random);
+        Files.write(uploadDir.resolve("photo"), random);
+        Files.write(uploadDir.resolve("sheet"), "a,b,c\n".repeat(1000).getBytes(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        archiveService.writeArchive(List.of(
+                attachment(1L, "photo.jpg", "image/jpeg", "photo", null),
+                attachment(2L, "sheet.xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "sheet", null)), archive);
+
+        Map<String, ZipEntry> entries = new LinkedHashMap<>();
+        readArchive(archive.toByteArray(), entries);
+        // Level 0 leaves the data as is, plus a few bytes of block headers
+        assertTrue(entries.get("photo.jpg").getCompressedSize() >= random.length);
+        assertTrue(entries.get("sheet.xlsx").getCompressedSize() >= 6000);
+    }
+
+    private static Attachment attachment(Long id, String fileName, String fileType, String filePath, String codec) {
+        return Attachment.builder()
+                .id(id)
+                .fileName(fileName)
+                .fileType(fileType)
+                .filePath(filePath)
+                .storageCodec(codec)
+                .uploadDate(LocalDateTime.of(2024, 5, 1, 12, 30))
+                .build();
+    }
+
+    private static Map<String, String> readArchive(byte[] archive, Map<String, ZipEntry> entries) throws IOException {
+        Map<String, String> contents = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                contents.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+                // Sizes are read from the data descriptor at the end of the entry
+                entries.put(entry.getName(), entry);
+            }
+        }
+        return contents;
+    }
+}
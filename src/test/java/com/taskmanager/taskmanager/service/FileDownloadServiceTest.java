@@ -0,0 +1,174 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.storage.FileSystemStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileDownloadServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final FileDownloadService downloadService = new FileDownloadService();
+
+    private final FileStorageService fileStorageService = new FileStorageService();
+
+    private FileDownloadService.Download download;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FileSystemStorageBackend storageBackend = new FileSystemStorageBackend();
+        ReflectionTestUtils.setField(storageBackend, "uploadDir", tempDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend", storageBackend);
+        ReflectionTestUtils.setField(downloadService, "fileStorageService", fileStorageService);
+
+        Path file = tempDir.resolve("report.txt");
+        Files.writeString(file, "0123456789abcdefghij");
+
+        download = FileDownloadService.Download.builder()
+                .storagePath("report.txt")
+                .contentType("text/plain")
+                .fileName("report.txt")
+                .etag("abc123")
+                .build();
+    }
+
+    @Test
+    void serveWritesFullBodyWithValidators() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(downloadService.serve(download, new MockHttpServletRequest("GET", "/"), response));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("\"abc123\"", response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("0123456789abcdefghij", response.getContentAsString());
+    }
+
+    @Test
+    void serveAnswersMatchingIfNoneMatchWithNotModified() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", W/\"abc123\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        downloadService.serve(download, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void serveWritesSingleRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        downloadService.serve(download, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 5-9/20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("56789", response.getContentAsString());
+    }
+
+    @Test
+    void serveWritesMultipleRangesAsMultipart() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,-3");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        downloadService.serve(download, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+        String body = new String(response.getContentAsByteArray(), StandardCharsets.ISO_8859_1);
+        assertTrue(body.contains("Content-Range: bytes 0-1/20\r\n\r\n01\r\n"));
+        assertTrue(body.contains("Content-Range: bytes 17-19/20\r\n\r\nhij\r\n"));
+    }
+
+    @Test
+    void serveIgnoresRangeWhenIfRangeDoesNotMatch() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        downloadService.serve(download, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(20, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void serveRejectsUnsatisfiableRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-60");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        downloadService.serve(download, request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void serveSendsCompressedFileToClientsAcceptingGzip() throws Exception {
+        FileDownloadService.Download compressed = gzipDownload("hello hello hello");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        downloadService.serve(compressed, request, response);
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"abc123-gzip\"", response.getHeader(HttpHeaders.ETAG));
+        assertArrayEquals(Files.readAllBytes(tempDir.resolve(compressed.getStoragePath())), response.getContentAsByteArray());
+    }
+
+    @Test
+    void serveDecodesCompressedFileForOtherClients() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-4");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        downloadService.serve(gzipDownload("hello hello hello"), request, response);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(17, response.getContentLengthLong());
+        assertEquals("hello hello hello", response.getContentAsString());
+    }
+
+    @Test
+    void serveReturnsFalseForMissingFile() throws Exception {
+        FileDownloadService.Download missing = download.toBuilder().storagePath("missing").build();
+
+        assertFalse(downloadService.serve(missing, new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse()));
+    }
+
+    private FileDownloadService.Download gzipDownload(String text) throws Exception {
+        Path file = tempDir.resolve("report.txt.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return download.toBuilder()
+                .storagePath("report.txt.gz")
+                .contentEncoding("gzip")
+                .decodedLength((long) text.length())
+                .build();
+    }
+}
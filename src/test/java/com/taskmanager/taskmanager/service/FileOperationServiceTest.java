@@ -0,0 +1,132 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.FileOperation;
+import com.taskmanager.taskmanager.model.FileOperationType;
+import com.taskmanager.taskmanager.repository.AttachmentRepository;
+import com.taskmanager.taskmanager.repository.FileOperationRepository;
+import com.taskmanager.taskmanager.repository.StoredFileRepository;
+import com.taskmanager.taskmanager.storage.FileSystemStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FileOperationServiceTest {
+
+    private static final String HASH = "ab" + "0".repeat(62);
+
+    @TempDir
+    Path uploadDir;
+
+    @Spy
+    private FileStorageService fileStorageService = new FileStorageService();
+
+    @Mock
+    private FileOperationRepository fileOperationRepository;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @Mock
+    private StoredFileRepository storedFileRepository;
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TaskExecutor fileOperationExecutor;
+
+    @InjectMocks
+    private FileOperationService fileOperationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        FileSystemStorageBackend storageBackend = new FileSystemStorageBackend();
+        ReflectionTestUtils.setField(storageBackend, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend", storageBackend);
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileOperationService, "leaseMillis", 60_000L);
+        ReflectionTestUtils.setField(fileOperationService, "initialBackoffMillis", 1000L);
+        ReflectionTestUtils.setField(fileOperationService, "maxBackoffMillis", 3_600_000L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void executePlacesStagedFileAndRemovesOperation() throws IOException {
+        FileStorageService.StagedFile stagedFile = fileStorageService.stage(
+                new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)));
+        String storagePath = fileStorageService.getStoragePath(stagedFile.getContentHash());
+        FileOperation operation = operation(FileOperationType.PLACE, storagePath, fileStorageService.getStagingName(stagedFile), 0);
+        when(fileOperationRepository.findById(1L)).thenReturn(Optional.of(operation));
+
+        assertTrue(fileOperationService.execute(1L));
+
+        assertEquals("hello", Files.readString(uploadDir.resolve(storagePath)));
+        verify(fileOperationRepository).deleteById(1L);
+        // Running it again finds the file in place
+        assertTrue(fileOperationService.execute(1L));
+    }
+
+    @Test
+    void executeDeletesUnreferencedFileAndRetriesFailures() throws IOException {
+        String storagePath = "ab/00/" + HASH;
+        Files.createDirectories(uploadDir.resolve(storagePath).getParent());
+        Files.write(uploadDir.resolve(storagePath), new byte[10]);
+        when(fileOperationRepository.findById(1L)).thenReturn(Optional.of(operation(FileOperationType.DELETE, storagePath, null, 0)));
+        when(storedFileRepository.findForUpdate(HASH)).thenReturn(Optional.empty());
+        when(storedFileRepository.insertIfAbsent(eq(HASH), eq(storagePath), anyLong(), any(), any())).thenReturn(1);
+
+        assertTrue(fileOperationService.execute(1L));
+        assertFalse(Files.exists(uploadDir.resolve(storagePath)));
+        verify(thumbnailService).deleteThumbnails(storagePath);
+        verify(storedFileRepository).deleteByContentHash(HASH);
+
+        // Deleting fails, e.g. because the store is unavailable
+        doReturn(false).when(fileStorageService).deleteFile(anyString());
+        when(fileOperationRepository.findById(2L)).thenReturn(Optional.of(operation(FileOperationType.DELETE, storagePath, null, 3)));
+        LocalDateTime before = LocalDateTime.now();
+
+        assertFalse(fileOperationService.execute(2L));
+        verify(fileOperationRepository, never()).deleteById(2L);
+        verify(transactionManager).rollback(any());
+        verify(fileOperationRepository).recordFailure(eq(2L),
+                argThat(next -> !next.isBefore(before.plusSeconds(8)) && next.isBefore(before.plusSeconds(60))),
+                eq("Failed to delete " + storagePath));
+    }
+
+    private static FileOperation operation(FileOperationType type, String storagePath, String stagingName, int attempts) {
+        return FileOperation.builder()
+                .type(type)
+                .storagePath(storagePath)
+                .stagingName(stagingName)
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
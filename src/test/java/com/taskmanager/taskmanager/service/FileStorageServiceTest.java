@@ -0,0 +1,108 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.storage.FileSystemStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStorageServiceTest {
+
+    // SHA-256 of "hello world"
+    private static final String HELLO_HASH = "b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9";
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService();
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        FileSystemStorageBackend storageBackend = new FileSystemStorageBackend();
+        ReflectionTestUtils.setField(storageBackend, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend", storageBackend);
+        ReflectionTestUtils.setField(fileStorageService, "compressionLevel", 6);
+    }
+
+    @Test
+    void stageComputesHashAndSize() throws IOException {
+        FileStorageService.StagedFile stagedFile = fileStorageService.stage(content("hello world"));
+
+        assertEquals(HELLO_HASH, stagedFile.getContentHash());
+        assertEquals(11, stagedFile.getSize());
+    }
+
+    @Test
+    void commitStoresContentInShardedPath() throws IOException {
+        String storagePath = fileStorageService.commit(fileStorageService.stage(content("hello world")));
+
+        assertEquals("b9/4d/" + HELLO_HASH, storagePath);
+        assertEquals("hello world", Files.readString(uploadDir.resolve(storagePath)));
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws IOException {
+        String first = fileStorageService.commit(fileStorageService.stage(content("hello world")));
+        String second = fileStorageService.commit(fileStorageService.stage(content("hello world")));
+
+        assertEquals(first, second);
+        try (var staging = Files.list(uploadDir.resolve(".staging"))) {
+            assertEquals(0, staging.count());
+        }
+    }
+
+    @Test
+    void stageCompressesContentButHashesOriginal() throws IOException {
+        String text = "hello world\n".repeat(1000);
+        FileStorageService.StagedFile plain = fileStorageService.stage(content(text));
+        FileStorageService.StagedFile compressed = fileStorageService.stage(content(text), true);
+
+        assertEquals(plain.getContentHash(), compressed.getContentHash());
+        assertEquals(12000, compressed.getSize());
+        assertEquals(FileStorageService.CODEC_GZIP, compressed.getCodec());
+        assertTrue(compressed.getStoredSize() < 1000);
+
+        String storagePath = fileStorageService.commit(compressed);
+        try (var in = FileStorageService.decode(fileStorageService.openStored(storagePath, 0, -1), compressed.getCodec())) {
+            assertEquals(text, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void stageKeepsIncompressibleContentUncompressed() throws IOException {
+        byte[] random = new byte[4096];
+        new java.util.Random(42).nextBytes(random);
+
+        FileStorageService.StagedFile stagedFile = fileStorageService.stage(new ByteArrayInputStream(random), true);
+
+        assertNull(stagedFile.getCodec());
+        assertEquals(4096, stagedFile.getStoredSize());
+        assertArrayEquals(random, Files.readAllBytes(uploadDir.resolve(fileStorageService.commit(stagedFile))));
+    }
+
+    @Test
+    void isCompressibleMatchesConfiguredTypes() {
+        ReflectionTestUtils.setField(fileStorageService, "compressionEnabled", true);
+        ReflectionTestUtils.setField(fileStorageService, "compressionMinSize", 1024L);
+        ReflectionTestUtils.setField(fileStorageService, "compressibleContentTypes", new String[] {"text/*", "application/json"});
+
+        assertTrue(fileStorageService.isCompressible("text/csv; charset=utf-8", 4096));
+        assertTrue(fileStorageService.isCompressible("application/json", -1));
+        assertFalse(fileStorageService.isCompressible("application/json", 100));
+        assertFalse(fileStorageService.isCompressible("image/png", 4096));
+    }
+
+    private static ByteArrayInputStream content(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,205 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.Pack;
+import com.taskmanager.taskmanager.model.PackedFile;
+import com.taskmanager.taskmanager.repository.PackRepository;
+import com.taskmanager.taskmanager.repository.PackedFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PackStorageServiceTest {
+
+    private static final String FIRST = "ab/cd/abcd" + "0".repeat(60);
+    private static final String SECOND = "ab/cd/abcd" + "1".repeat(60);
+    private static final String THIRD = "ab/cd/abcd" + "2".repeat(60);
+
+    @TempDir
+    Path uploadDir;
+
+    @Mock
+    private PackRepository packRepository;
+
+    @Mock
+    private PackedFileRepository packedFileRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private PackStorageService packStorageService;
+
+    // The index and the packs, kept by the repository mocks
+    private final Map<String, PackedFile> index = new LinkedHashMap<>();
+    private final Map<Long, Pack> packs = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(packStorageService, "storageBackend", "filesystem");
+        ReflectionTestUtils.setField(packStorageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(packStorageService, "enabled", true);
+        ReflectionTestUtils.setField(packStorageService, "maxFileSize", 1024L);
+        ReflectionTestUtils.setField(packStorageService, "targetSize", 1L << 20);
+        ReflectionTestUtils.setField(packStorageService, "minDeadRatio", 0.5);
+        ReflectionTestUtils.setField(packStorageService, "retireDelayMillis", 600_000L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        packs.put(1L, Pack.builder().id(1L).createdAt(LocalDateTime.now()).build());
+        packs.put(2L, Pack.builder().id(2L).createdAt(LocalDateTime.now()).build());
+        when(packRepository.findFirstBySealedFalseAndRetiredAtIsNullOrderByIdDesc())
+                .thenAnswer(invocation -> packs.values().stream().filter(pack -> !pack.isSealed()).findFirst());
+        when(packRepository.save(any())).thenAnswer(invocation -> {
+            Pack pack = invocation.getArgument(0);
+            pack.setId((long) packs.size() + 1);
+            packs.put(pack.getId(), pack);
+            return pack;
+        });
+        when(packRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(packs.get((Long) invocation.getArgument(0))));
+        when(packRepository.seal(anyLong())).thenAnswer(invocation -> {
+            packs.get((Long) invocation.getArgument(0)).setSealed(true);
+            return 1;
+        });
+        when(packedFileRepository.save(any())).thenAnswer(invocation -> {
+            PackedFile entry = invocation.getArgument(0);
+            index.put(entry.getStoragePath(), entry);
+            return entry;
+        });
+        when(packedFileRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(index.get((String) invocation.getArgument(0))));
+    }
+
+    @Test
+    void appendedFilesAreReadFromThePack() throws IOException {
+        packStorageService.append(FIRST, file("first", "hello"));
+        packStorageService.append(SECOND, file("second", "packed world"));
+
+        assertEquals(17, Files.size(uploadDir.resolve(".packs/0000000001.pack")));
+        PackedFile second = packStorageService.find(SECOND).orElseThrow();
+        assertEquals(5, second.getOffset());
+        assertEquals("packed world", read(packStorageService.open(second, 0, -1)));
+        assertEquals("world", read(packStorageService.open(second, 7, 100)));
+        verify(packRepository).recordAppend(1L, 17, 12);
+
+        assertTrue(packStorageService.accepts(FIRST, 1024));
+        assertFalse(packStorageService.accepts(FIRST, 1025));
+        assertFalse(packStorageService.accepts(FIRST + ".64.jpg", 10));
+        assertTrue(packStorageService.find(FIRST + ".64.jpg").isEmpty());
+    }
+
+    @Test
+    void theCurrentPackIsOnlyMappedOnceSealed() throws IOException {
+        Map<?, ?> mappings = (Map<?, ?>) ReflectionTestUtils.getField(packStorageService, "mappings");
+        packStorageService.append(FIRST, file("first", "hello"));
+        assertEquals("hello", read(packStorageService.open(packStorageService.find(FIRST).orElseThrow(), 0, -1)));
+
+        // Reads past the end of the first read still see the growing pack, without mapping it
+        packStorageService.append(SECOND, file("second", "packed world"));
+        assertEquals("packed world", read(packStorageService.open(packStorageService.find(SECOND).orElseThrow(), 0, -1)));
+        assertTrue(mappings.isEmpty());
+
+        ReflectionTestUtils.setField(packStorageService, "targetSize", 20L);
+        packStorageService.append(THIRD, file("third", "sealed"));
+        verify(packRepository).seal(1L);
+
+        assertEquals("hello", read(packStorageService.open(packStorageService.find(FIRST).orElseThrow(), 0, -1)));
+        assertEquals(1, mappings.size());
+        assertEquals(23, ((ByteBuffer) mappings.get(1L)).capacity());
+        packStorageService.closeChannels();
+    }
+
+    @Test
+    void appendsMoveOnWhenAnotherProcessSealedThePack() throws IOException {
+        packStorageService.append(FIRST, file("first", "hello"));
+        // Sealed by another process sharing the upload directory
+        packs.get(1L).setSealed(true);
+        packs.get(2L).setSealed(true);
+
+        packStorageService.append(SECOND, file("second", "world"));
+
+        PackedFile second = packStorageService.find(SECOND).orElseThrow();
+        assertEquals(3L, second.getPackId());
+        assertEquals(0, second.getOffset());
+        assertEquals(5, Files.size(uploadDir.resolve(".packs/0000000001.pack")));
+        assertEquals("world", read(packStorageService.open(second, 0, -1)));
+    }
+
+    @Test
+    void aSealedPackThatGrewIsMappedAgain() throws IOException {
+        packStorageService.append(FIRST, file("first", "hello"));
+        packs.get(1L).setSealed(true);
+        assertEquals("hello", read(packStorageService.open(packStorageService.find(FIRST).orElseThrow(), 0, -1)));
+
+        // Appended by another process before it saw the pack was sealed
+        Files.writeString(uploadDir.resolve(".packs/0000000001.pack"), " world", StandardOpenOption.APPEND);
+        PackedFile late = PackedFile.builder().storagePath(SECOND).packId(1L).offset(5).length(6).createdAt(LocalDateTime.now()).build();
+
+        assertEquals(" world", read(packStorageService.open(late, 0, -1)));
+    }
+
+    @Test
+    void compactMovesLiveEntriesAndRetiresThePack() throws IOException {
+        packStorageService.append(FIRST, file("first", "dead bytes"));
+        packStorageService.append(SECOND, file("second", "live"));
+        assertEquals(10, packStorageService.locate(SECOND).orElseThrow().getOffset());
+        packs.get(1L).setSealed(true);
+        ReflectionTestUtils.setField(packStorageService, "currentPack", packs.get(2L));
+        when(packRepository.findCompactionCandidates(0.5)).thenReturn(List.of(Pack.builder().id(1L).size(14).liveBytes(4).sealed(true).build()));
+        when(packedFileRepository.findByPackIdOrderByOffset(1L)).thenReturn(List.of(index.get(SECOND)));
+        when(packedFileRepository.relocate(SECOND, 1L, 10L, 2L, 0L)).thenAnswer(invocation -> {
+            index.get(SECOND).setPackId(2L);
+            index.get(SECOND).setOffset(0);
+            return 1;
+        });
+        when(packedFileRepository.countByPackId(1L)).thenReturn(0L);
+
+        PackStorageService.CompactionResult result = packStorageService.compact();
+
+        assertEquals(1, result.getPacksCompacted());
+        assertEquals(4, result.getBytesMoved());
+        assertEquals("live", Files.readString(uploadDir.resolve(".packs/0000000002.pack")));
+        // The cached location was dropped when the entry moved
+        assertEquals("live", read(packStorageService.open(packStorageService.locate(SECOND).orElseThrow(), 0, -1)));
+        verify(packRepository).recordAppend(2L, 4, 4);
+        verify(packRepository).releaseBytes(1L, 4);
+        verify(packRepository).retire(eq(1L), any());
+        verify(packRepository, never()).releaseBytes(eq(2L), anyLong());
+    }
+
+    private Path file(String name, String content) throws IOException {
+        return Files.writeString(uploadDir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
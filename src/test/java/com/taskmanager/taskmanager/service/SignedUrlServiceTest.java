@@ -0,0 +1,81 @@
+package com.taskmanager.taskmanager.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignedUrlServiceTest {
+
+    private static final FileDownloadService.Download DOWNLOAD = FileDownloadService.Download.builder()
+            .storagePath("ab/cd/abcd" + "0".repeat(60))
+            .contentType("text/plain")
+            .fileName("notes \"final\".txt")
+            .etag("abcd" + "0".repeat(60))
+            .cacheControl("private, max-age=31536000, immutable")
+            .contentEncoding("gzip")
+            .decodedLength(1234L)
+            .build();
+
+    private static final String SECRET = "a-test-secret-of-at-least-32-bytes";
+
+    private SignedUrlService signedUrlService;
+
+    @BeforeEach
+    void setUp() {
+        signedUrlService = service(SECRET, new MockEnvironment());
+    }
+
+    @Test
+    void signedTokenVerifiesToTheSameDownload() {
+        SignedUrlService.SignedToken signed = signedUrlService.sign(DOWNLOAD);
+
+        assertEquals(DOWNLOAD, signedUrlService.verify(signed.getToken()).orElseThrow());
+        assertTrue(signed.getExpiresAt().isAfter(Instant.now().plusSeconds(299)));
+        assertFalse(signed.getExpiresAt().isAfter(Instant.now().plusSeconds(600)));
+        // Minted again within the window, the URL stays the same and cached responses keep being used
+        assertEquals(signed.getToken(), signedUrlService.sign(DOWNLOAD).getToken());
+
+        FileDownloadService.Download thumbnail = DOWNLOAD.toBuilder().storagePath(DOWNLOAD.getStoragePath() + ".64.jpg")
+                .contentEncoding(null).decodedLength(null).inline(true).build();
+        assertEquals(thumbnail, signedUrlService.verify(signedUrlService.sign(thumbnail).getToken()).orElseThrow());
+    }
+
+    @Test
+    void tamperedOrForeignTokensAreRejected() {
+        String token = signedUrlService.sign(DOWNLOAD).getToken();
+        String other = signedUrlService.sign(DOWNLOAD.toBuilder().storagePath("ab/cd/other").build()).getToken();
+
+        // Another file's payload with this token's signature
+        assertTrue(signedUrlService.verify(other.substring(0, other.indexOf('.')) + token.substring(token.indexOf('.'))).isEmpty());
+        assertTrue(signedUrlService.verify(token.substring(0, token.length() - 2) + "AA").isEmpty());
+        assertTrue(signedUrlService.verify("not-a-token").isEmpty());
+        assertTrue(signedUrlService.verify("!!.!!").isEmpty());
+        assertTrue(service("another-test-secret-of-32-bytes-or-more", new MockEnvironment()).verify(token).isEmpty());
+    }
+
+    @Test
+    void aMissingOrShortSecretFailsStartupOutsideDevAndTest() {
+        assertThrows(IllegalStateException.class, () -> service("", new MockEnvironment()));
+        assertThrows(IllegalStateException.class, () -> service("too-short", new MockEnvironment()));
+
+        MockEnvironment dev = new MockEnvironment();
+        dev.setActiveProfiles("dev");
+        SignedUrlService random = service("", dev);
+        assertEquals(DOWNLOAD, random.verify(random.sign(DOWNLOAD).getToken()).orElseThrow());
+        assertThrows(IllegalStateException.class, () -> service("too-short", dev));
+    }
+
+    private static SignedUrlService service(String secret, MockEnvironment environment) {
+        SignedUrlService service = new SignedUrlService();
+        ReflectionTestUtils.setField(service, "environment", environment);
+        ReflectionTestUtils.setField(service, "secret", secret);
+        ReflectionTestUtils.setField(service, "ttlSeconds", 300L);
+        service.init();
+        return service;
+    }
+}
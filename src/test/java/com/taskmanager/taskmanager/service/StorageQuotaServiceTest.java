@@ -0,0 +1,98 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.StorageUsage;
+import com.taskmanager.taskmanager.repository.AttachmentRepository;
+import com.taskmanager.taskmanager.repository.StorageUsageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StorageQuotaServiceTest {
+
+    @Mock
+    private StorageUsageRepository storageUsageRepository;
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private StorageQuotaService storageQuotaService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(storageQuotaService, "quotaBytes", 1000L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void recordUploadCreatesCounterOnFirstUpload() {
+        when(storageUsageRepository.addUsageWithinQuota(eq(1L), eq(400L), eq(1L), eq(1000L), any()))
+                .thenReturn(0, 1);
+
+        storageQuotaService.recordUpload(1L, 400);
+
+        verify(storageUsageRepository).insertIfAbsent(eq(1L), any());
+        verify(storageUsageRepository, times(2)).addUsageWithinQuota(eq(1L), eq(400L), eq(1L), eq(1000L), any());
+    }
+
+    @Test
+    void recordUploadRejectsUploadOverQuota() {
+        when(storageUsageRepository.addUsageWithinQuota(anyLong(), anyLong(), anyLong(), anyLong(), any())).thenReturn(0);
+        when(storageUsageRepository.findById(1L)).thenReturn(Optional.of(usage(1L, 800, 3)));
+
+        StorageQuotaService.QuotaExceededException e = assertThrows(StorageQuotaService.QuotaExceededException.class,
+                () -> storageQuotaService.recordUpload(1L, 400));
+        assertEquals("Storage quota exceeded: 800 of 1000 bytes used", e.getMessage());
+    }
+
+    @Test
+    void checkQuotaUsesCounter() {
+        when(storageUsageRepository.findById(1L)).thenReturn(Optional.of(usage(1L, 800, 3)));
+
+        storageQuotaService.checkQuota(1L, 200);
+        assertThrows(StorageQuotaService.QuotaExceededException.class, () -> storageQuotaService.checkQuota(1L, 201));
+        // New users have no counter yet
+        storageQuotaService.checkQuota(2L, 1000);
+        verifyNoInteractions(attachmentRepository);
+    }
+
+    @Test
+    void reconcileUsageRecomputesDriftedCounters() {
+        StorageUsage drifted = usage(1L, 999, 9);
+        StorageUsage emptied = usage(2L, 50, 1);
+        when(storageUsageRepository.findUsersWithDrift()).thenReturn(List.of(1L, 2L));
+        when(storageUsageRepository.findForUpdate(1L)).thenReturn(Optional.of(drifted));
+        when(storageUsageRepository.findForUpdate(2L)).thenReturn(Optional.of(emptied));
+        when(attachmentRepository.sumFileSizeByUserId(1L)).thenReturn(300L);
+        when(attachmentRepository.countByUserId(1L)).thenReturn(2L);
+
+        assertEquals(2, storageQuotaService.reconcileUsage());
+
+        assertEquals(300, drifted.getUsedBytes());
+        assertEquals(2, drifted.getAttachmentCount());
+        verify(storageUsageRepository).delete(emptied);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    private static StorageUsage usage(Long userId, long usedBytes, long attachmentCount) {
+        return StorageUsage.builder().userId(userId).usedBytes(usedBytes).attachmentCount(attachmentCount).build();
+    }
+}
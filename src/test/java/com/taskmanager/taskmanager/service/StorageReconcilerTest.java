@@ -0,0 +1,129 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.repository.AttachmentRepository;
+import com.taskmanager.taskmanager.repository.PackedFileRepository;
+import com.taskmanager.taskmanager.storage.FileSystemStorageBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class StorageReconcilerTest {
+
+    private static final String LIVE = "ab/cd/abcd" + "0".repeat(60);
+    private static final String ORPHAN = "ab/cd/abcd" + "1".repeat(60);
+    private static final String RECENT = "ef/01/ef01" + "2".repeat(60);
+
+    @TempDir
+    Path uploadDir;
+
+    @Spy
+    private FileStorageService fileStorageService = new FileStorageService();
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private FileOperationService fileOperationService;
+
+    @Mock
+    private PackedFileRepository packedFileRepository;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private StorageReconciler storageReconciler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        FileSystemStorageBackend storageBackend = new FileSystemStorageBackend();
+        ReflectionTestUtils.setField(storageBackend, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend", storageBackend);
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(storageReconciler, "gracePeriodHours", 24L);
+        ReflectionTestUtils.setField(storageReconciler, "batchSize", 2);
+        ReflectionTestUtils.setField(storageReconciler, "pageSize", 2);
+        ReflectionTestUtils.setField(storageReconciler, "pauseMillis", 0L);
+        storageReconciler.registerMetrics();
+
+        when(fileOperationService.deleteOrphanedFile(anyString(), anyString()))
+                .thenAnswer(invocation -> fileStorageService.deleteFile(invocation.getArgument(0)));
+    }
+
+    @Test
+    void reconcileDeletesUnreferencedFilesOlderThanGracePeriod() throws IOException {
+        write("ab.txt", 10, true);
+        write(LIVE, 100, true);
+        write(LIVE + ".64.jpg", 5, true);
+        write(ORPHAN, 200, true);
+        write(ORPHAN + ".64.jpg", 7, true);
+        write(RECENT, 300, false);
+        write("legacy_old.txt", 20, true);
+        write("legacy_report.pdf", 30, true);
+        write(".staging/interrupted", 40, true);
+        // Sorted by code point: "ab.txt" comes before "ab/..."; read in pages of two
+        when(attachmentRepository.findFilePathsAfter("", 2)).thenReturn(List.of("ab.txt", LIVE));
+        when(attachmentRepository.findFilePathsAfter(LIVE, 2)).thenReturn(List.of("legacy_report.pdf"));
+
+        StorageReconciler.Result result = storageReconciler.reconcile();
+
+        assertEquals(8, result.getScanned());
+        assertEquals(3, result.getDeleted());
+        assertEquals(200 + 7 + 20 + 40, result.getFreedBytes());
+        verify(fileOperationService).deleteOrphanedFile(ORPHAN, ORPHAN);
+        verify(fileOperationService).deleteOrphanedFile(ORPHAN + ".64.jpg", ORPHAN);
+        verify(fileOperationService).deleteOrphanedFile("legacy_old.txt", "legacy_old.txt");
+        verifyNoMoreInteractions(fileOperationService);
+
+        assertTrue(Files.exists(uploadDir.resolve(LIVE)));
+        assertTrue(Files.exists(uploadDir.resolve(LIVE + ".64.jpg")));
+        assertTrue(Files.exists(uploadDir.resolve(RECENT)));
+        assertFalse(Files.exists(uploadDir.resolve(ORPHAN)));
+        assertFalse(Files.exists(uploadDir.resolve(".staging/interrupted")));
+        assertEquals(267, meterRegistry.get("attachments.gc.freed").counter().count());
+    }
+
+    @Test
+    void reconcileKeepsFilesConfirmedAsReferenced() throws IOException {
+        write(ORPHAN, 200, true);
+        when(attachmentRepository.findFilePathsAfter("", 2)).thenReturn(List.of());
+        // An upload of the same content committed after the listing started
+        when(fileOperationService.deleteOrphanedFile(any(), any())).thenReturn(false);
+
+        StorageReconciler.Result result = storageReconciler.reconcile();
+
+        assertEquals(0, result.getDeleted());
+        assertTrue(Files.exists(uploadDir.resolve(ORPHAN)));
+        assertEquals(0, meterRegistry.get("attachments.gc.freed").counter().count());
+    }
+
+    private void write(String key, int size, boolean old) throws IOException {
+        Path path = uploadDir.resolve(key);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[size]);
+        if (old) {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.mockito.MockitoAnnotations;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -85,4 +86,27 @@ class TaskServiceTest {
         assertEquals(testTask.getId(), foundTask.get().getId());
         verify(taskRepository, times(1)).findById(testTask.getId());
     }
+
+    @Test
+    void getTaskStatistics() {
+        LocalDate today = LocalDate.of(2025, 6, 2);
+        List<Task> tasks = List.of(
+                task(TaskStatus.TODO, today.minusDays(1)),
+                task(TaskStatus.COMPLETED, today.minusDays(1)),
+                task(TaskStatus.IN_PROGRESS, today),
+                task(TaskStatus.TODO, today.plusDays(3)),
+                task(TaskStatus.TODO, today.plusDays(7)));
+
+        Map<String, Object> statistics = taskService.getTaskStatistics(tasks, today);
+
+        assertEquals(5, statistics.get("totalTasks"));
+        assertEquals(Map.of(TaskStatus.TODO, 3L, TaskStatus.COMPLETED, 1L, TaskStatus.IN_PROGRESS, 1L), statistics.get("tasksByStatus"));
+        assertEquals(1L, statistics.get("overdueTasks"));
+        assertEquals(1L, statistics.get("tasksDueToday"));
+        assertEquals(1L, statistics.get("tasksDueThisWeek"));
+    }
+
+    private Task task(TaskStatus status, LocalDate dueDate) {
+        return Task.builder().title("Task").description("Task").status(status).dueDate(dueDate).user(testUser).build();
+    }
 }
@@ -0,0 +1,192 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.dto.TaskTemplateDto;
+import com.taskmanager.taskmanager.model.Category;
+import com.taskmanager.taskmanager.model.Priority;
+import com.taskmanager.taskmanager.model.TaskTemplate;
+import com.taskmanager.taskmanager.model.TemplateSubtask;
+import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.repository.TaskBatchRepository;
+import com.taskmanager.taskmanager.repository.TaskTemplateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TaskTemplateServiceTest {
+
+    @Mock
+    private TaskTemplateRepository templateRepository;
+
+    @Mock
+    private TemplateSubtaskService subtaskService;
+
+    @Mock
+    private TaskBatchRepository taskBatchRepository;
+
+    @Spy
+    private TemplatePlanCache planCache = new TemplatePlanCache();
+
+    @InjectMocks
+    private TaskTemplateService templateService;
+
+    private User testUser;
+    private TaskTemplate testTemplate;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(templateService, "maxBatchSize", 1000);
+
+        testUser = User.builder()
+                .id(1L)
+                .username("testuser")
+                .email("test@example.com")
+                .build();
+
+        testTemplate = TaskTemplate.builder()
+                .id(10L)
+                .name("Onboarding")
+                .description("New hire checklist")
+                .createdAt(LocalDateTime.now())
+                .user(testUser)
+                .categories(new ArrayList<>(List.of(Category.builder().id(5L).name("HR").build())))
+                .build();
+
+        when(templateRepository.findById(testTemplate.getId())).thenReturn(Optional.of(testTemplate));
+        when(subtaskService.getSubtasksByTemplateId(testTemplate.getId())).thenReturn(Arrays.asList(
+                TemplateSubtask.builder().id(1L).title("Laptop").position(1).template(testTemplate).build(),
+                TemplateSubtask.builder().id(2L).title("Badge").template(testTemplate).build()));
+    }
+
+    @Test
+    void getInstantiationPlanAppliesDefaults() {
+        TemplateInstantiationPlan plan = templateService.getInstantiationPlan(testTemplate.getId()).orElseThrow();
+
+        assertEquals("Onboarding", plan.getTitle().getSource());
+        assertEquals("New hire checklist", plan.getDescription().getSource());
+        assertEquals(Priority.MEDIUM, plan.getPriority());
+        assertEquals(7, plan.getDueDateDays());
+        assertEquals(testUser.getId(), plan.getOwnerId());
+        assertEquals(List.of(5L), plan.getCategoryIds());
+        assertEquals(2, plan.getSubtasks().size());
+        assertEquals(2, plan.getSubtasks().get(1).getPosition());
+    }
+
+    @Test
+    void getInstantiationPlanIsCachedUntilInvalidated() {
+        templateService.getInstantiationPlan(testTemplate.getId());
+        templateService.getInstantiationPlan(testTemplate.getId());
+
+        verify(templateRepository, times(1)).findById(testTemplate.getId());
+        verify(subtaskService, times(1)).getSubtasksByTemplateId(testTemplate.getId());
+
+        templateService.updateTemplate(testTemplate);
+        templateService.getInstantiationPlan(testTemplate.getId());
+
+        verify(templateRepository, times(2)).findById(testTemplate.getId());
+    }
+
+    @Test
+    void invalidateAllEvictsAgainWhenTheTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            planCache.invalidateAll();
+            // Compiled after the eviction but before the delete committed, so it may still name the category
+            templateService.getInstantiationPlan(testTemplate.getId());
+            assertTrue(planCache.get(testTemplate.getId()).isPresent());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(planCache.get(testTemplate.getId()).isEmpty());
+    }
+
+    @Test
+    void createTasksFromPlanRejectsInvalidCount() {
+        TemplateInstantiationPlan plan = templateService.getInstantiationPlan(testTemplate.getId()).orElseThrow();
+
+        assertThrows(IllegalArgumentException.class, () -> templateService.createTasksFromPlan(plan, testUser, 0, null, null));
+        assertThrows(IllegalArgumentException.class, () -> templateService.createTasksFromPlan(plan, testUser, 1001, null, null));
+        verify(taskBatchRepository, never()).insertTasksFromPlan(any(), any(), any(), anyList(), anyList());
+    }
+
+    @Test
+    void createTasksFromPlanDelegatesToBatchRepository() {
+        TemplateInstantiationPlan plan = templateService.getInstantiationPlan(testTemplate.getId()).orElseThrow();
+        when(taskBatchRepository.insertTasksFromPlan(eq(plan), eq(testUser.getId()), any(), anyList(), anyList()))
+                .thenReturn(List.of(1L, 2L, 3L));
+
+        List<Long> taskIds = templateService.createTasksFromPlan(plan, testUser, 3, null, null);
+
+        assertEquals(3, taskIds.size());
+        verify(taskBatchRepository, times(1)).insertTasksFromPlan(eq(plan), eq(testUser.getId()),
+                eq(LocalDate.now().plusDays(7)), eq(Collections.nCopies(3, "Onboarding")), anyList());
+    }
+
+    @Test
+    void createTasksFromPlanRendersPerTaskVariables() {
+        testTemplate.setTaskTitleTemplate("Welcome ${var.name} (${user.username})");
+        TemplateInstantiationPlan plan = templateService.getInstantiationPlan(testTemplate.getId()).orElseThrow();
+
+        templateService.createTasksFromPlan(plan, testUser, 0, null,
+                List.of(Map.of("name", "Ada"), Map.of("name", "Linus")));
+
+        verify(taskBatchRepository, times(1)).insertTasksFromPlan(eq(plan), eq(testUser.getId()), any(),
+                eq(List.of("Welcome Ada (testuser)", "Welcome Linus (testuser)")), anyList());
+    }
+
+    @Test
+    void createTemplateRejectsUnknownVariables() {
+        testTemplate.setTaskTitleTemplate("Review ${unknown}");
+
+        assertThrows(IllegalArgumentException.class, () -> templateService.createTemplate(testTemplate));
+        verify(templateRepository, never()).save(any(TaskTemplate.class));
+    }
+
+    @Test
+    void convertToDtoListLoadsChildrenWithOneQueryEach() {
+        TaskTemplate otherTemplate = TaskTemplate.builder()
+                .id(11L)
+                .name("Offboarding")
+                .description("Leaver checklist")
+                .user(testUser)
+                .build();
+        when(subtaskService.getSubtasksByTemplateIds(List.of(10L, 11L))).thenReturn(Map.of(10L, List.of(
+                TemplateSubtask.builder().id(1L).title("Laptop").position(1).template(testTemplate).build())));
+        when(templateRepository.findCategoryIdsByTemplateIds(List.of(10L, 11L)))
+                .thenReturn(List.<Object[]>of(new Object[] {10L, 5L}, new Object[] {11L, 6L}));
+
+        List<TaskTemplateDto> dtos = templateService.convertToDtoList(List.of(testTemplate, otherTemplate));
+
+        assertEquals(1, dtos.get(0).getSubtasks().size());
+        assertEquals(List.of(5L), dtos.get(0).getCategoryIds());
+        assertTrue(dtos.get(1).getSubtasks().isEmpty());
+        assertEquals(List.of(6L), dtos.get(1).getCategoryIds());
+        verify(subtaskService, never()).getSubtasksByTemplateId(any());
+        verify(templateRepository, times(1)).findCategoryIdsByTemplateIds(any());
+    }
+}
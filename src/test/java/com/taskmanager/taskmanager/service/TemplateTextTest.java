@@ -0,0 +1,69 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateTextTest {
+
+    private TemplateContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = TemplateContext.builder()
+                .today(LocalDate.of(2024, 2, 14))
+                .dueDate(LocalDate.of(2024, 2, 21))
+                .user(User.builder().id(1L).username("testuser").email("test@example.com").build())
+                .templateName("Weekly report")
+                .variables(Map.of("team", "Platform"))
+                .build();
+    }
+
+    @Test
+    void rendersBuiltInVariables() {
+        TemplateText text = TemplateText.parse("${template.name} ${iso-week} for ${var.team} by ${user.username}, due ${due}");
+
+        assertEquals("Weekly report 2024-W07 for Platform by testuser, due 2024-02-21", text.render(context));
+    }
+
+    @Test
+    void rendersRelativeDates() {
+        assertEquals("2024-02-17", TemplateText.parse("${today+3d}").render(context));
+        assertEquals("2024-02-07", TemplateText.parse("${today-1w}").render(context));
+        assertEquals("2024", TemplateText.parse("${year}").render(context));
+    }
+
+    @Test
+    void constantTextIsRenderedVerbatim() {
+        TemplateText text = TemplateText.parse("Plain title");
+
+        assertTrue(text.isConstant());
+        assertEquals("Plain title", text.render(context));
+    }
+
+    @Test
+    void escapedPlaceholderIsLiteral() {
+        assertEquals("Cost ${amount}", TemplateText.parse("Cost $${amount}").render(context));
+    }
+
+    @Test
+    void rejectsUnknownOrMalformedVariables() {
+        assertThrows(IllegalArgumentException.class, () -> TemplateText.parse("${tomorrow}"));
+        assertThrows(IllegalArgumentException.class, () -> TemplateText.parse("${today+3y}"));
+        assertThrows(IllegalArgumentException.class, () -> TemplateText.parse("${var.}"));
+        assertThrows(IllegalArgumentException.class, () -> TemplateText.parse("Due ${today"));
+    }
+
+    @Test
+    void missingCallerVariableFailsAtRender() {
+        TemplateText text = TemplateText.parse("Hello ${var.name}");
+
+        assertTrue(text.usesCallerVariables());
+        assertThrows(IllegalArgumentException.class, () -> text.render(context));
+    }
+}
@@ -0,0 +1,141 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.Attachment;
+import com.taskmanager.taskmanager.repository.AttachmentRepository;
+import com.taskmanager.taskmanager.storage.FileSystemStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ThumbnailServiceTest {
+
+    private static final String CONTENT_HASH = "abcd0000000000000000000000000000000000000000000000000000000000ff";
+
+    @TempDir
+    Path uploadDir;
+
+    @Spy
+    private FileStorageService fileStorageService = new FileStorageService();
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Spy
+    private TaskExecutor thumbnailExecutor = new SyncTaskExecutor();
+
+    @InjectMocks
+    private ThumbnailService thumbnailService;
+
+    private String storagePath;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        FileSystemStorageBackend storageBackend = new FileSystemStorageBackend();
+        ReflectionTestUtils.setField(storageBackend, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend", storageBackend);
+        ReflectionTestUtils.setField(thumbnailService, "maxSourcePixels", 100_000_000L);
+        storagePath = fileStorageService.getStoragePath(CONTENT_HASH);
+    }
+
+    @Test
+    void scheduleThumbnailsGeneratesEverySize() throws IOException {
+        writeImage(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), "png");
+
+        thumbnailService.scheduleThumbnails(attachment("image/png"));
+
+        assertDimensions("jpg", 1024, 1024, 512);
+        assertDimensions("jpg", 256, 256, 128);
+        assertDimensions("jpg", 64, 64, 32);
+        verify(attachmentRepository).updateThumbnailTypeByContentHash(CONTENT_HASH, "image/jpeg");
+    }
+
+    @Test
+    void getThumbnailGeneratesOnDemandAndKeepsTransparency() throws IOException {
+        writeImage(new BufferedImage(40, 80, BufferedImage.TYPE_INT_ARGB), "png");
+
+        Optional<ThumbnailService.Thumbnail> thumbnail = thumbnailService.getThumbnail(attachment("image/png"), 64);
+
+        assertTrue(thumbnail.isPresent());
+        assertEquals("image/png", thumbnail.get().getContentType());
+        // Images smaller than a thumbnail size are not scaled up
+        BufferedImage image = ImageIO.read(uploadDir.resolve(thumbnail.get().getStoragePath()).toFile());
+        assertEquals(32, image.getWidth());
+        assertEquals(64, image.getHeight());
+    }
+
+    @Test
+    void getThumbnailReusesExistingThumbnails() throws IOException {
+        writeImage(new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB), "png");
+        thumbnailService.generateThumbnails(1L, CONTENT_HASH, storagePath);
+        Files.delete(uploadDir.resolve(storagePath));
+
+        Attachment attachment = attachment("image/png");
+        attachment.setThumbnailType("image/jpeg");
+
+        assertTrue(thumbnailService.getThumbnail(attachment, 256).isPresent());
+    }
+
+    @Test
+    void getThumbnailReturnsEmptyForUndecodableContent() throws IOException {
+        Path original = uploadDir.resolve(storagePath);
+        Files.createDirectories(original.getParent());
+        Files.writeString(original, "not an image");
+
+        assertTrue(thumbnailService.getThumbnail(attachment("image/png"), 64).isEmpty());
+        verify(attachmentRepository, never()).updateThumbnailTypeByContentHash(any(), any());
+    }
+
+    @Test
+    void deleteThumbnailsRemovesEverySize() throws IOException {
+        writeImage(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png");
+        thumbnailService.generateThumbnails(1L, CONTENT_HASH, storagePath);
+
+        thumbnailService.deleteThumbnails(storagePath);
+
+        for (int size : ThumbnailService.SIZES) {
+            assertFalse(Files.exists(uploadDir.resolve(storagePath + "." + size + ".jpg")));
+        }
+    }
+
+    private Attachment attachment(String fileType) {
+        return Attachment.builder()
+                .id(1L)
+                .fileName("image.png")
+                .fileType(fileType)
+                .filePath(storagePath)
+                .contentHash(CONTENT_HASH)
+                .build();
+    }
+
+    private void writeImage(BufferedImage image, String format) throws IOException {
+        Path original = uploadDir.resolve(storagePath);
+        Files.createDirectories(original.getParent());
+        ImageIO.write(image, format, original.toFile());
+    }
+
+    private void assertDimensions(String extension, int size, int width, int height) throws IOException {
+        BufferedImage thumbnail = ImageIO.read(uploadDir.resolve(storagePath + "." + size + "." + extension).toFile());
+        assertEquals(width, thumbnail.getWidth());
+        assertEquals(height, thumbnail.getHeight());
+    }
+}
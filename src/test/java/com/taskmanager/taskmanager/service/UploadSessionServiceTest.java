@@ -0,0 +1,229 @@
+package com.taskmanager.taskmanager.service;
+
+import com.taskmanager.taskmanager.model.Attachment;
+import com.taskmanager.taskmanager.model.Task;
+import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.storage.FileSystemStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UploadSessionServiceTest {
+
+    // SHA-256 of "hello world"
+    private static final String HELLO_HASH = "b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9";
+
+    @TempDir
+    Path uploadDir;
+
+    @Spy
+    private FileStorageService fileStorageService = new FileStorageService();
+
+    @Mock
+    private AttachmentService attachmentService;
+
+    @Mock
+    private StorageQuotaService storageQuotaService;
+
+    @InjectMocks
+    private UploadSessionService uploadSessionService;
+
+    private Task task;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        FileSystemStorageBackend storageBackend = new FileSystemStorageBackend();
+        ReflectionTestUtils.setField(storageBackend, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "storageBackend", storageBackend);
+        ReflectionTestUtils.setField(uploadSessionService, "maxUploadSize", 1024L);
+        ReflectionTestUtils.setField(uploadSessionService, "sessionTtlMinutes", 60L);
+
+        user = User.builder().id(1L).username("testuser").build();
+        task = Task.builder().id(2L).title("Task").user(user).build();
+    }
+
+    @Test
+    void completeUploadHashesChunksIncrementally() throws IOException {
+        UploadSessionService.UploadSession session = uploadSessionService.createSession(task, user, "hello.txt", "text/plain", 11);
+
+        assertEquals(6, uploadSessionService.appendChunk(session, 0, content("hello ")));
+        assertEquals(11, uploadSessionService.appendChunk(session, 6, content("world")));
+        uploadSessionService.completeUpload(session, task, user);
+
+        ArgumentCaptor<FileStorageService.StagedFile> stagedFile = ArgumentCaptor.forClass(FileStorageService.StagedFile.class);
+        verify(attachmentService).saveStagedAttachment(stagedFile.capture(), eq("hello.txt"), eq("text/plain"), eq(task), eq(user), eq(false));
+        assertEquals(HELLO_HASH, stagedFile.getValue().getContentHash());
+        assertEquals(11, stagedFile.getValue().getSize());
+        assertTrue(uploadSessionService.getSession(session.getId(), "testuser").isEmpty());
+    }
+
+    @Test
+    void appendChunkRejectsUnexpectedOffset() throws IOException {
+        UploadSessionService.UploadSession session = uploadSessionService.createSession(task, user, "hello.txt", "text/plain", 11);
+        uploadSessionService.appendChunk(session, 0, content("hello "));
+
+        assertThrows(IllegalStateException.class, () -> uploadSessionService.appendChunk(session, 0, content("hello ")));
+        assertEquals(6, session.getOffset());
+    }
+
+    @Test
+    void appendChunkKeepsBytesReceivedBeforeFailure() throws IOException {
+        UploadSessionService.UploadSession session = uploadSessionService.createSession(task, user, "hello.txt", "text/plain", 11);
+        InputStream interrupted = new InputStream() {
+            private final InputStream delegate = content("hello ");
+
+            @Override
+            public int read() throws IOException {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] b) throws IOException {
+                int read = delegate.read(b);
+                if (read == -1) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+        };
+
+        assertThrows(IOException.class, () -> uploadSessionService.appendChunk(session, 0, interrupted));
+        assertEquals(6, session.getOffset());
+
+        uploadSessionService.appendChunk(session, 6, content("world"));
+        uploadSessionService.completeUpload(session, task, user);
+
+        ArgumentCaptor<FileStorageService.StagedFile> stagedFile = ArgumentCaptor.forClass(FileStorageService.StagedFile.class);
+        verify(attachmentService).saveStagedAttachment(stagedFile.capture(), any(), any(), any(), any(), anyBoolean());
+        assertEquals(HELLO_HASH, stagedFile.getValue().getContentHash());
+    }
+
+    @Test
+    void appendChunkDoesNotBlockStatusOrWaitForAStalledChunk() throws Exception {
+        UploadSessionService.UploadSession session = uploadSessionService.createSession(task, user, "hello.txt", "text/plain", 11);
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        InputStream stalled = new InputStream() {
+            private final InputStream delegate = content("hello ");
+
+            @Override
+            public int read() throws IOException {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] b) throws IOException {
+                int read = delegate.read(b);
+                if (read == -1) {
+                    // The client has gone quiet; the connection is not closed yet
+                    received.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return read;
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> first = executor.submit(() -> uploadSessionService.appendChunk(session, 0, stalled));
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+
+            assertTimeoutPreemptively(Duration.ofSeconds(1), () -> assertEquals(6, session.getOffset()));
+            assertThrows(IllegalStateException.class, () -> uploadSessionService.appendChunk(session, 6, content("world")));
+
+            resume.countDown();
+            assertEquals(6, first.get(5, TimeUnit.SECONDS));
+            assertEquals(11, uploadSessionService.appendChunk(session, 6, content("world")));
+        } finally {
+            resume.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void completeUploadCanBeRetriedWhenSavingFails() throws IOException {
+        UploadSessionService.UploadSession session = uploadSessionService.createSession(task, user, "hello.txt", "text/plain", 11);
+        uploadSessionService.appendChunk(session, 0, content("hello world"));
+        Attachment attachment = Attachment.builder().id(3L).build();
+        when(attachmentService.saveStagedAttachment(any(), any(), any(), any(), any(), anyBoolean()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+                .thenReturn(attachment);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> uploadSessionService.completeUpload(session, task, user));
+        assertTrue(uploadSessionService.getSession(session.getId(), "testuser").isPresent());
+        try (var staged = Files.list(uploadDir.resolve(".staging"))) {
+            assertEquals(1, staged.count());
+        }
+
+        assertSame(attachment, uploadSessionService.completeUpload(session, task, user));
+
+        ArgumentCaptor<FileStorageService.StagedFile> stagedFile = ArgumentCaptor.forClass(FileStorageService.StagedFile.class);
+        verify(attachmentService, times(2)).saveStagedAttachment(stagedFile.capture(), any(), any(), any(), any(), eq(false));
+        assertEquals(HELLO_HASH, stagedFile.getAllValues().get(1).getContentHash());
+        assertTrue(uploadSessionService.getSession(session.getId(), "testuser").isEmpty());
+    }
+
+    @Test
+    void completeUploadRejectsIncompleteUpload() throws IOException {
+        UploadSessionService.UploadSession session = uploadSessionService.createSession(task, user, "hello.txt", "text/plain", 11);
+        uploadSessionService.appendChunk(session, 0, content("hello "));
+
+        assertThrows(IllegalArgumentException.class, () -> uploadSessionService.completeUpload(session, task, user));
+        verify(attachmentService, never()).saveStagedAttachment(any(), any(), any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void createSessionRejectsOversizedUpload() {
+        assertThrows(IllegalArgumentException.class,
+                () -> uploadSessionService.createSession(task, user, "big.bin", null, 2048));
+    }
+
+    @Test
+    void expireSessionsRemovesStaleSessions() throws IOException {
+        ReflectionTestUtils.setField(uploadSessionService, "sessionTtlMinutes", -1L);
+        UploadSessionService.UploadSession session = uploadSessionService.createSession(task, user, "hello.txt", "text/plain", 11);
+
+        uploadSessionService.expireSessions();
+
+        assertThrows(IllegalStateException.class, () -> uploadSessionService.appendChunk(session, 0, content("hello ")));
+        try (var staged = Files.list(uploadDir.resolve(".staging"))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+    private static InputStream content(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,149 @@
+package com.taskmanager.taskmanager.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class S3StorageBackendTest {
+
+    private static final int MB = 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private S3Client s3Client;
+
+    private S3StorageBackend storageBackend;
+
+    @BeforeEach
+    void setUp() {
+        // The consumer-builder overloads build the request and delegate to the overloads stubbed below
+        s3Client = mock(S3Client.class, invocation ->
+                Arrays.asList(invocation.getMethod().getParameterTypes()).contains(Consumer.class)
+                        ? invocation.callRealMethod()
+                        : RETURNS_DEFAULTS.answer(invocation));
+
+        storageBackend = new S3StorageBackend();
+        ReflectionTestUtils.setField(storageBackend, "s3Client", s3Client);
+        ReflectionTestUtils.setField(storageBackend, "transferExecutor", new SyncTaskExecutor());
+        ReflectionTestUtils.setField(storageBackend, "bucket", "attachments");
+        ReflectionTestUtils.setField(storageBackend, "keyPrefix", "files/");
+        ReflectionTestUtils.setField(storageBackend, "multipartThreshold", 1024L);
+        ReflectionTestUtils.setField(storageBackend, "partSize", 1024L);
+        ReflectionTestUtils.setField(storageBackend, "uploadParallelism", 2);
+    }
+
+    @Test
+    void putFileStoresSmallFileInOneRequest() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("small"), "hello world");
+
+        storageBackend.putFile("ab/cd/abcd", file);
+
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client).putObject(request.capture(), any(RequestBody.class));
+        assertEquals("attachments", request.getValue().bucket());
+        assertEquals("files/ab/cd/abcd", request.getValue().key());
+        assertEquals(11, request.getValue().contentLength());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void putFileUploadsLargeFileInMinimumSizeParts() throws IOException {
+        byte[] content = new byte[11 * MB];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i / MB);
+        }
+        Path file = Files.write(tempDir.resolve("large"), content);
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            RequestBody body = invocation.getArgument(1);
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                parts.put(request.partNumber(), in.readAllBytes());
+            }
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        });
+
+        storageBackend.putFile("ab/cd/abcd", file);
+
+        // The configured 1KB part size is raised to the 5MB minimum S3 accepts
+        assertEquals(3, parts.size());
+        assertEquals(5 * MB, parts.get(1).length);
+        assertEquals(5 * MB, parts.get(2).length);
+        assertEquals(MB, parts.get(3).length);
+        assertArrayEquals(Arrays.copyOfRange(content, 10 * MB, 11 * MB), parts.get(3));
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        assertEquals("upload-1", complete.getValue().uploadId());
+        assertEquals("etag-3", complete.getValue().multipartUpload().parts().get(2).eTag());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void putFileAbortsMultipartUploadWhenPartFails() throws IOException {
+        Path file = Files.write(tempDir.resolve("large"), new byte[6 * MB]);
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("Slow down").build());
+
+        assertThrows(IOException.class, () -> storageBackend.putFile("ab/cd/abcd", file));
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void getRequestsByteRange() throws IOException {
+        storageBackend.get("ab/cd/abcd", 5, 5);
+        storageBackend.get("ab/cd/abcd", 5, -1);
+
+        ArgumentCaptor<GetObjectRequest> request = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client, times(2)).getObject(request.capture());
+        assertEquals("files/ab/cd/abcd", request.getAllValues().get(0).key());
+        assertEquals("bytes=5-9", request.getAllValues().get(0).range());
+        assertEquals("bytes=5-", request.getAllValues().get(1).range());
+    }
+
+    @Test
+    void getMapsMissingKeyToNoSuchFile() {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenThrow(NoSuchKeyException.builder().build());
+
+        assertThrows(NoSuchFileException.class, () -> storageBackend.get("ab/cd/abcd", 0, -1));
+    }
+}
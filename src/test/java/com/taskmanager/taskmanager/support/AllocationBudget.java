@@ -0,0 +1,62 @@
+package com.taskmanager.taskmanager.support;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Asserts how many bytes a piece of work, typically one MockMvc request, may allocate.
+ *
+ * The work is run a number of times first, so that class loading, caches and the
+ * JIT compiler settle, then measured with the JVM's per-thread allocation counter.
+ * The median of the measured runs is compared against the budget. With an in-memory
+ * database the figure includes the database's own allocations, so budgets guard
+ * against regressions rather than predict production figures.
+ */
+public final class AllocationBudget {
+
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 9;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationBudget() {
+    }
+
+    /**
+     * Run work repeatedly and fail if its median allocation exceeds its budget
+     *
+     * @param budgetBytes The maximum number of bytes allocated per run
+     * @param name What is being measured, e.g. "GET /api/tasks"
+     * @param work The work, run on the current thread
+     * @return The result of the last run
+     * @throws Exception If the work throws
+     */
+    public static <T> T assertWithin(long budgetBytes, String name, Callable<T> work) throws Exception {
+        T result = null;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            result = work.call();
+        }
+        long[] allocated = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            result = work.call();
+            allocated[i] = THREADS.getCurrentThreadAllocatedBytes() - before;
+        }
+
+        Arrays.sort(allocated);
+        long median = allocated[MEASURED_RUNS / 2];
+        if (median > budgetBytes) {
+            fail(name + " allocated " + kilobytes(median) + " per run, over its budget of " + kilobytes(budgetBytes)
+                    + " (runs from " + kilobytes(allocated[0]) + " to " + kilobytes(allocated[MEASURED_RUNS - 1]) + ")");
+        }
+        return result;
+    }
+
+    private static String kilobytes(long bytes) {
+        return (bytes + 512) / 1024 + " KB";
+    }
+}
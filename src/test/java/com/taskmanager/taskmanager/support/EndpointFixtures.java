@@ -0,0 +1,206 @@
+package com.taskmanager.taskmanager.support;
+
+import com.taskmanager.taskmanager.model.Category;
+import com.taskmanager.taskmanager.model.CollaboratorRole;
+import com.taskmanager.taskmanager.model.Comment;
+import com.taskmanager.taskmanager.model.Priority;
+import com.taskmanager.taskmanager.model.Subtask;
+import com.taskmanager.taskmanager.model.Task;
+import com.taskmanager.taskmanager.model.TaskCollaborator;
+import com.taskmanager.taskmanager.model.TaskStatus;
+import com.taskmanager.taskmanager.model.TaskTemplate;
+import com.taskmanager.taskmanager.model.TemplateSubtask;
+import com.taskmanager.taskmanager.model.User;
+import com.taskmanager.taskmanager.repository.CategoryRepository;
+import com.taskmanager.taskmanager.repository.CommentRepository;
+import com.taskmanager.taskmanager.repository.TaskCollaboratorRepository;
+import com.taskmanager.taskmanager.repository.TaskRepository;
+import com.taskmanager.taskmanager.repository.TaskTemplateRepository;
+import com.taskmanager.taskmanager.repository.TemplateSubtaskRepository;
+import com.taskmanager.taskmanager.repository.UserRepository;
+import com.taskmanager.taskmanager.security.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the rows endpoint tests run against and performs requests as a given user.
+ *
+ * Import it into a test context that has MockMvc, e.g. with
+ * {@code @Import(EndpointFixtures.class)} next to {@code @AutoConfigureMockMvc}.
+ */
+public class EndpointFixtures {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private TaskCollaboratorRepository collaboratorRepository;
+
+    @Autowired
+    private TaskTemplateRepository templateRepository;
+
+    @Autowired
+    private TemplateSubtaskRepository templateSubtaskRepository;
+
+    /**
+     * Perform a request with a token of the user
+     *
+     * @param request The request
+     * @param user The user making the request
+     * @return The result of the request
+     * @throws Exception If the request fails
+     */
+    public ResultActions perform(MockHttpServletRequestBuilder request, User user) throws Exception {
+        return mockMvc.perform(request.header("Authorization", "Bearer " + jwtUtil.generateToken(user.getUsername())));
+    }
+
+    /**
+     * Describe a request for a failure message
+     *
+     * @param request The request
+     * @return The method and URI of the request, e.g. "GET /api/tasks"
+     */
+    public static String describe(MockHttpServletRequestBuilder request) {
+        MockHttpServletRequest built = request.buildRequest(new MockServletContext());
+        return built.getMethod() + " " + built.getRequestURI();
+    }
+
+    /**
+     * Save a user with a unique username
+     *
+     * @param name The start of the username
+     * @return The saved user
+     */
+    public User user(String name) {
+        String username = name + "-" + System.nanoTime();
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("password")
+                .build());
+    }
+
+    /**
+     * Save a category
+     *
+     * @param name The name of the category
+     * @param owner The user the category belongs to
+     * @return The saved category
+     */
+    public Category category(String name, User owner) {
+        return categoryRepository.save(Category.builder().name(name).user(owner).build());
+    }
+
+    /**
+     * Save a task with two subtasks
+     *
+     * @param owner The user the task belongs to
+     * @param title The title of the task
+     * @param category The category of the task, or null for none
+     * @param dueDate The due date of the task
+     * @return The saved task
+     */
+    public Task task(User owner, String title, Category category, LocalDate dueDate) {
+        Task task = Task.builder()
+                .title(title)
+                .description("Description of " + title)
+                .status(TaskStatus.TODO)
+                .priority(Priority.MEDIUM)
+                .dueDate(dueDate)
+                .user(owner)
+                .build();
+        if (category != null) {
+            task.getCategories().add(category);
+        }
+        for (int position = 0; position < 2; position++) {
+            task.getSubtasks().add(Subtask.builder()
+                    .title("Subtask " + position)
+                    .position(position)
+                    .createdAt(LocalDateTime.now())
+                    .task(task)
+                    .build());
+        }
+        return taskRepository.save(task);
+    }
+
+    /**
+     * Save a comment
+     *
+     * @param task The task commented on
+     * @param author The author of the comment
+     * @param parent The comment replied to, or null for a top-level comment
+     * @return The saved comment
+     */
+    public Comment comment(Task task, User author, Comment parent) {
+        return commentRepository.save(Comment.builder()
+                .content("Comment")
+                .createdAt(LocalDateTime.now())
+                .task(task)
+                .user(author)
+                .parentComment(parent)
+                .build());
+    }
+
+    /**
+     * Share a task with a user as a viewer, added by the task's owner
+     *
+     * @param task The task to share
+     * @param user The user to share it with
+     */
+    public void collaborator(Task task, User user) {
+        collaboratorRepository.save(TaskCollaborator.builder()
+                .task(task)
+                .user(user)
+                .role(CollaboratorRole.VIEWER)
+                .addedAt(LocalDateTime.now())
+                .addedBy(task.getUser())
+                .build());
+    }
+
+    /**
+     * Save a template with subtasks
+     *
+     * @param owner The user the template belongs to
+     * @param name The name of the template
+     * @param category The category of the template
+     * @param subtasks The number of subtasks, saved through their own repository
+     * @return The saved template
+     */
+    public TaskTemplate template(User owner, String name, Category category, int subtasks) {
+        TaskTemplate template = templateRepository.save(TaskTemplate.builder()
+                .name(name)
+                .description("Description")
+                .createdAt(LocalDateTime.now())
+                .user(owner)
+                .categories(new ArrayList<>(List.of(category)))
+                .build());
+        for (int position = 0; position < subtasks; position++) {
+            templateSubtaskRepository.save(TemplateSubtask.builder().title("Step " + position).position(position).template(template).build());
+        }
+        return template;
+    }
+}
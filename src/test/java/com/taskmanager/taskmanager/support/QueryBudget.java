@@ -0,0 +1,50 @@
+package com.taskmanager.taskmanager.support;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Asserts how many SQL statements a piece of work, typically one MockMvc request, may run.
+ *
+ * Budgets are meant to be constant: an endpoint that lists N items must not run more
+ * statements as N grows. A test that exceeds its budget fails with the statements
+ * it ran, which usually shows the repeated query straight away.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    /**
+     * Run work and fail if it executes more statements than its budget
+     *
+     * @param budget The maximum number of statements
+     * @param name What is being measured, e.g. "GET /api/shared-tasks"
+     * @param work The work, run on the current thread
+     * @return The result of the work
+     * @throws Exception If the work throws
+     */
+    public static <T> T assertWithin(int budget, String name, Callable<T> work) throws Exception {
+        QueryRecorder.start();
+        T result;
+        List<String> statements;
+        try {
+            result = work.call();
+        } finally {
+            statements = QueryRecorder.stop();
+        }
+
+        if (statements.size() > budget) {
+            StringBuilder message = new StringBuilder()
+                    .append(name).append(" ran ").append(statements.size())
+                    .append(" SQL statements, over its budget of ").append(budget).append(':');
+            for (int i = 0; i < statements.size(); i++) {
+                message.append("\n  ").append(i + 1).append(". ").append(statements.get(i));
+            }
+            fail(message.toString());
+        }
+        return result;
+    }
+}
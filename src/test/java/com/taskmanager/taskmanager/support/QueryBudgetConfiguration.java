@@ -0,0 +1,37 @@
+package com.taskmanager.taskmanager.support;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application's DataSource so {@link QueryRecorder} sees every statement,
+ * whether it comes from Hibernate or a JdbcTemplate.
+ *
+ * It wraps the DataSource even when the query statistics proxy already did, so
+ * the recorder does not depend on the order in which the proxies are applied.
+ *
+ * Import it into a test context to use {@link QueryBudget}.
+ */
+@TestConfiguration
+public class QueryBudgetConfiguration {
+
+    @Bean
+    public static BeanPostProcessor queryRecordingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new QueryRecorder())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.taskmanager.taskmanager.support;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL executed on the current thread between {@link #start()} and {@link #stop()}.
+ *
+ * MockMvc runs the whole request, filters and view rendering included, on the test
+ * thread, so this captures exactly the statements of one request. Work handed to
+ * other threads, such as thumbnail generation, is not counted.
+ */
+public class QueryRecorder implements QueryExecutionListener {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    /**
+     * Start recording on the current thread
+     */
+    public static void start() {
+        RECORDED.set(new ArrayList<>());
+    }
+
+    /**
+     * Stop recording on the current thread
+     *
+     * @return The statements executed since {@link #start()}, in order
+     */
+    public static List<String> stop() {
+        List<String> recorded = RECORDED.get();
+        RECORDED.remove();
+        return recorded != null ? recorded : List.of();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        List<String> recorded = RECORDED.get();
+        if (recorded == null) {
+            return;
+        }
+        // A batch is one round trip, however many parameter sets it carries
+        for (QueryInfo queryInfo : queryInfoList) {
+            recorded.add(execInfo.isBatch() ? "[batch of " + execInfo.getBatchSize() + "] " + queryInfo.getQuery() : queryInfo.getQuery());
+        }
+    }
+}